@@ -9,7 +9,10 @@ import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
 import com.networknt.schema.ValidationMessage;
 import io.javalin.Javalin;
+import org.apache.commons.cli.*;
+import io.javalin.http.sse.SseClient;
 import org.mitre.bch.cath.simulation.utils.MlFlowManager;
+import org.mitre.bch.cath.simulation.utils.RunProgress;
 import org.mlflow.api.proto.Service;
 import org.mlflow.tracking.RunsPage;
 import org.slf4j.Logger;
@@ -17,6 +20,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import static org.mitre.bch.cath.simulation.utils.FileHandler.fileToString;
@@ -26,7 +33,10 @@ public class API {
     private static final int PORT = 7000;
     private static Logger logger = LoggerFactory.getLogger(API.class);
 
-    public static void apiServer() {
+    /** Start the API server
+     * @param concurrentJobs maximum number of simulation jobs running at the same time
+     */
+    public static void apiServer(int concurrentJobs) {
 
 
         Javalin app = Javalin.create(config -> {
@@ -37,7 +47,7 @@ public class API {
             });
         });
 
-        JobManager jobManager = new JobManager();
+        JobManager jobManager = new JobManager(concurrentJobs, () -> new MlFlowManager("simulation"));
         MlFlowManager mlFlowManager = new MlFlowManager("simulation");
 
         // submit job to job manager queue
@@ -46,7 +56,6 @@ public class API {
             InputArgs inputArgs = new Gson().fromJson(inputString, InputArgs.class);
             int jobId = jobManager.submit(inputArgs);
             ctx.json(jobId);
-            jobManager.runNextJob(mlFlowManager);
         });
 
         // query simulation runs from mlflow_db
@@ -191,6 +200,28 @@ public class API {
             ctx.json(jobStatus);
         });
 
+        // stream the progress of a job as server-sent events, once a second until the job finishes
+        Set<ProgressSubscriber> progressSubscribers = ConcurrentHashMap.newKeySet();
+        app.sse("/progress", client -> {
+            int jobId = client.ctx().queryParamAsClass("jobId", Integer.class).get();
+            Job job = jobManager.getJob(jobId);
+            if (job == null) {
+                client.sendEvent("progress", new Gson().toJson(new ProgressEvent(jobId, Job.JobStatus.DOES_NOT_EXIST, null)));
+                client.close();
+                return;
+            }
+            ProgressSubscriber subscriber = new ProgressSubscriber(client, job);
+            client.keepAlive();
+            client.onClose(() -> progressSubscribers.remove(subscriber));
+            progressSubscribers.add(subscriber);
+        });
+        ScheduledExecutorService progressPublisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "progress-publisher");
+            t.setDaemon(true);
+            return t;
+        });
+        progressPublisher.scheduleAtFixedRate(() -> publishProgress(progressSubscribers), 1, 1, TimeUnit.SECONDS);
+
         app.get("/incomplete-status", ctx -> {
             Gson gson = new Gson();
             String incompleteStatusJobs = gson.toJson(jobManager.checkAllStatus());
@@ -242,6 +273,30 @@ public class API {
             Double totalAECount
     ) { }
     public record BoxPlotData(String x, List<Integer> y) {};
+    public record ProgressEvent(int jobId, Job.JobStatus status, RunProgress.Snapshot progress) {};
+    private record ProgressSubscriber(SseClient client, Job job) {};
+
+    /** Send the progress of their job to each subscriber, and close the subscribers whose job has finished
+     * @param subscribers clients subscribed to job progress
+     */
+    private static void publishProgress(Set<ProgressSubscriber> subscribers) {
+        Gson gson = new Gson();
+        for (ProgressSubscriber subscriber : subscribers) {
+            Job job = subscriber.job();
+            Job.JobStatus status = job.getJobStatus();
+            try {
+                subscriber.client().sendEvent("progress",
+                        gson.toJson(new ProgressEvent(job.getJobId(), status, job.getProgress().snapshot())));
+                if (status == Job.JobStatus.COMPLETE || status == Job.JobStatus.FAILED) {
+                    subscribers.remove(subscriber);
+                    subscriber.client().close();
+                }
+            } catch (Exception e) {
+                logger.info("Dropping progress subscriber of job {}", job.getJobId());
+                subscribers.remove(subscriber);
+            }
+        }
+    }
 
     public static List<RunColumns> getSimulationRuns(io.javalin.http.Context ctx, MlFlowManager mlFlowManager, JobManager jobManager) throws Exception {
         Optional<Service.Experiment> scheduleExp = mlFlowManager.client.getExperimentByName("simulation");
@@ -340,7 +395,17 @@ public class API {
     }
 
 
-    public static void main(String[] args) {
-        API.apiServer();
+    public static void main(String[] args) throws ParseException {
+        Option option_jobs = Option.builder("j")
+                .required(false)
+                .desc("Maximum number of simulation jobs to run at the same time")
+                .longOpt("jobs")
+                .hasArg()
+                .build();
+        Options options = new Options();
+        options.addOption(option_jobs);
+        CommandLine cli = new DefaultParser().parse(options, args);
+
+        API.apiServer(Integer.parseInt(cli.getOptionValue("j", "1")));
     }
 }
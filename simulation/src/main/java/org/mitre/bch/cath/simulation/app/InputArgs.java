@@ -14,6 +14,13 @@ public class InputArgs {
     public final String description;
     public final JsonObject configData;
     public final boolean verbose;
+    public final boolean quiet;
+    public final String provenance;
+    public final long timeoutMinutes;
+    public final String sampling;
+    public final boolean presample;
+    public final String streams;
+    public final String logFormat;
 
     /** Constructor for InputArgs instance to run simulation from the frontend
      * @param iterations number of iterations to run the sim
@@ -26,8 +33,16 @@ public class InputArgs {
      * @param iterations description of experiment
      * @param iterations JSON data with config.json contents
      * @param verbose whether or not to run with verbose logging
+     * @param quiet whether or not to suppress INFO simulation logging of each iteration
+     * @param provenance how the provenance of scheduled events is captured, the default of verbose if null
+     * @param timeoutMinutes per-iteration timeout in minutes, no timeout if not positive
+     * @param sampling how the distributions draw their samples, standard if null
+     * @param presample whether the frequently sampled distributions are presampled in blocks
+     * @param streams how the random number streams are created, seeded if null
+     * @param logFormat format of the verbose logs, csv if null
      */
-    public InputArgs(int iterations, String sched, int seed, String folderName, int extraDays, String addonBucket, String expName, String description, JsonObject configData, boolean verbose) {
+    public InputArgs(int iterations, String sched, int seed, String folderName, int extraDays, String addonBucket, String expName, String description, JsonObject configData, boolean verbose, boolean quiet,
+                     String provenance, long timeoutMinutes, String sampling, boolean presample, String streams, String logFormat) {
         this.iterations = iterations;
         this.sched = sched;
         this.seed = seed;
@@ -38,5 +53,12 @@ public class InputArgs {
         this.description = description;
         this.configData = configData;
         this.verbose = verbose;
+        this.quiet = quiet;
+        this.provenance = provenance;
+        this.timeoutMinutes = timeoutMinutes;
+        this.sampling = sampling;
+        this.presample = presample;
+        this.streams = streams;
+        this.logFormat = logFormat;
     }
 }
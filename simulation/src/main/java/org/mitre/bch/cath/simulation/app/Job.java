@@ -1,5 +1,7 @@
 package org.mitre.bch.cath.simulation.app;
 
+import org.mitre.bch.cath.simulation.utils.RunProgress;
+
 
 public class Job {
 
@@ -7,7 +9,8 @@ public class Job {
 
     private final InputArgs inputArgs;
     private int jobId;
-    private JobStatus jobStatus;
+    private volatile JobStatus jobStatus;
+    private final transient RunProgress progress = new RunProgress();
 
 
     /** Constructor for Job instance
@@ -22,6 +25,10 @@ public class Job {
         return this.inputArgs;
     }
 
+    public RunProgress getProgress() {
+        return this.progress;
+    }
+
     public int getJobId() {
         return this.jobId;
     }
@@ -1,95 +1,159 @@
 package org.mitre.bch.cath.simulation.app;
 
+import org.mitre.bch.cath.simulation.distributions.Sampling;
 import org.mitre.bch.cath.simulation.model.CathLabSim;
 
-import java.io.IOException;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.mitre.bch.cath.simulation.utils.Event;
+import org.mitre.bch.cath.simulation.utils.LogFormat;
 import org.mitre.bch.cath.simulation.utils.MlFlowManager;
+import org.mitre.bch.cath.simulation.utils.RandomStreams;
 import org.mlflow.api.proto.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class JobManager {
-    private LinkedList<Job> jobQueue;
+    private static final Logger logger = LoggerFactory.getLogger(JobManager.class);
+
+    /** Queued and running jobs, ordered by job id. Jobs are removed once they finish, whether they completed or
+     * failed, so a finished job is reported as DOES_NOT_EXIST; only progress subscribers holding the job see its final
+     * status. */
+    private final Map<Integer, Job> jobQueue = new ConcurrentSkipListMap<>();
+
+    /** Workers running the jobs, the executor's queue holds the jobs not started yet */
+    private final ExecutorService workers;
+
+    /** Creates a MlFlowManager for each job, as it holds the state of the job's parent run */
+    private final Supplier<MlFlowManager> mlFlowManagerFactory;
+
+    /** Number of iterations each job runs in parallel */
+    private final int parallelism;
 
     AtomicInteger atomicInteger = new AtomicInteger(0);
 
-    /** Constructor for JobManager instance
+    /** Constructor for JobManager instance, running one job at a time
      */
     public JobManager() {
-        this.jobQueue = new LinkedList<>();
+        this(1, () -> new MlFlowManager("simulation"));
     }
 
-    /** Creates and submits Job to job queue.
+    /** Constructor for JobManager instance
+     * @param concurrentJobs maximum number of jobs running at the same time
+     * @param mlFlowManagerFactory creates the MlFlowManager of each job
+     */
+    public JobManager(int concurrentJobs, Supplier<MlFlowManager> mlFlowManagerFactory) {
+        int threads = Math.max(1, concurrentJobs);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> new Thread(r, "job-" + threadCount.incrementAndGet()));
+        this.mlFlowManagerFactory = mlFlowManagerFactory;
+        // share the processors between the jobs running at the same time
+        this.parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / threads);
+    }
+
+    /** Creates and submits Job to job queue. Returns immediately, the job is run by a background worker.
      * @param inputArgs InputArgs instance with all inputs needed to run the simulation
+     * @return id of the job
      */
     public int submit(InputArgs inputArgs) {
         Job job = new Job(inputArgs);
         job.setJobId(atomicInteger.getAndIncrement());
-        jobQueue.add(job);
+        jobQueue.put(job.getJobId(), job);
+        workers.execute(() -> runJob(job));
         return job.getJobId();
     }
 
+    /** Gets a queued or running job
+     * @param jobId Id of job.
+     * @return the job, or null if it does not exist or has finished
+     */
+    public Job getJob(int jobId) {
+        return jobQueue.get(jobId);
+    }
+
     /** Checks status of given job
      * @param jobId Id of job.
      */
     public Job.JobStatus checkStatus(int jobId) {
-        Optional<Job> job = jobQueue.stream().filter(j -> j.getJobId() == jobId).findFirst();
-        if (job.isPresent()) {
-            return job.get().getJobStatus();
+        Job job = jobQueue.get(jobId);
+        if (job != null) {
+            return job.getJobStatus();
         } else {
             return Job.JobStatus.DOES_NOT_EXIST;
         }
     }
 
-    /** Returns all incomplete jobs in the job queue
+    /** Returns all incomplete (queued or running) jobs in the job queue. Failed jobs are not returned, as they are
+     * removed from the queue once they finish.
      */
     public List<Job> checkAllStatus() {
-        return jobQueue.stream().filter(j -> j.getJobStatus() == Job.JobStatus.NOT_STARTED || j.getJobStatus() == Job.JobStatus.IN_PROGRESS || j.getJobStatus() == Job.JobStatus.FAILED).toList();
+        return jobQueue.values().stream().filter(j -> j.getJobStatus() == Job.JobStatus.NOT_STARTED || j.getJobStatus() == Job.JobStatus.IN_PROGRESS).toList();
     }
 
     /** Returns whether there is a job is currently running
      */
     public Boolean currentlyRunningJob() {
-        return !jobQueue.stream().filter(j -> j.getJobStatus() == Job.JobStatus.IN_PROGRESS).toList().isEmpty();
+        return jobQueue.values().stream().anyMatch(j -> j.getJobStatus() == Job.JobStatus.IN_PROGRESS);
     }
 
-    /** Runs next job in job queue if no job is currently running.
-     * @param mlFlowManager instance of MLFlowManager to manage MLFlow calls
+    /** Runs a job on the current worker thread, and removes it from the job queue once it finishes.
+     * @param job the job to run
      */
-    public void runNextJob(MlFlowManager mlFlowManager) throws IOException {
-        if (Boolean.FALSE.equals(currentlyRunningJob()) && !this.jobQueue.isEmpty()) {
-            Job nextJob = this.jobQueue.element();
-            if (nextJob.getJobStatus() == Job.JobStatus.NOT_STARTED) {
-                nextJob.setJobStatus(Job.JobStatus.IN_PROGRESS);
-                InputArgs inputArgs = nextJob.getInputArgs();
-                mlFlowManager.setParentRunName(inputArgs.expName);
-                try {
-                    CathLabSim.runSim(
-                            inputArgs.iterations,
-                            inputArgs.sched,
-                            inputArgs.seed,
-                            inputArgs.folderName,
-                            inputArgs.expName,
-                            inputArgs.extraDays,
-                            inputArgs.description,
-                            inputArgs.addonBucket,
-                            mlFlowManager,
-                            inputArgs.configData,
-                            null,
-                            inputArgs.verbose,
-                            null
-                    );
-                    nextJob.setJobStatus(Job.JobStatus.COMPLETE);
-                } catch(Exception e) {
-                    mlFlowManager.client.setTerminated(mlFlowManager.parentRunId, Service.RunStatus.FAILED);
-                    nextJob.setJobStatus(Job.JobStatus.FAILED);
-                }
-                this.jobQueue.remove();
-                runNextJob(mlFlowManager);
+    private void runJob(Job job) {
+        job.setJobStatus(Job.JobStatus.IN_PROGRESS);
+        InputArgs inputArgs = job.getInputArgs();
+        MlFlowManager mlFlowManager = null;
+        try {
+            mlFlowManager = mlFlowManagerFactory.get();
+            mlFlowManager.setParentRunName(inputArgs.expName);
+            // jobs running at the same time must not share a log folder, even if they have the same experiment name
+            String folderName = String.format("%s_%d", inputArgs.folderName, job.getJobId());
+            CathLabSim.runSim(
+                    inputArgs.iterations,
+                    inputArgs.sched,
+                    inputArgs.seed,
+                    folderName,
+                    inputArgs.expName,
+                    inputArgs.extraDays,
+                    inputArgs.description,
+                    inputArgs.addonBucket,
+                    mlFlowManager,
+                    inputArgs.configData,
+                    null,
+                    inputArgs.verbose,
+                    null,
+                    Event.Provenance.parse(inputArgs.provenance, inputArgs.verbose),
+                    inputArgs.quiet,
+                    parallelism,
+                    inputArgs.timeoutMinutes,
+                    Sampling.parse(inputArgs.sampling),
+                    inputArgs.presample,
+                    RandomStreams.parse(inputArgs.streams),
+                    LogFormat.parse(inputArgs.logFormat),
+                    job.getProgress()
+            );
+            job.setJobStatus(Job.JobStatus.COMPLETE);
+        } catch(Exception e) {
+            logger.error("Job {} failed", job.getJobId(), e);
+            if (mlFlowManager != null && mlFlowManager.parentRunId != null) {
+                mlFlowManager.client.setTerminated(mlFlowManager.parentRunId, Service.RunStatus.FAILED);
             }
+            job.setJobStatus(Job.JobStatus.FAILED);
+        } finally {
+            jobQueue.remove(job.getJobId());
         }
     }
 
+    /** Stops accepting jobs and interrupts the running ones
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
 }
@@ -17,6 +17,8 @@ public class Beta extends BetaDistribution implements Distribution {
     protected double loc;
     /** Shape parameter, equal to max value minus min value */
     protected double shape;
+    /** Random number generator of the fast sampler, null when sampling through Commons Math */
+    private final RandomNumberGenerator fastRandom;
 
     /** Constructs a Beta distribution.
      *
@@ -24,12 +26,19 @@ public class Beta extends BetaDistribution implements Distribution {
      * @throws IllegalArgumentException if alpha <= 0.0 || beta <= 0.0
      */
     public Beta(double alpha, double beta, RandomNumberGenerator randomGenerator) {
-        super(randomGenerator, alpha, beta);
-        setState(alpha, beta, 0.0, 1.0);
+        this(alpha, beta, 0.0, 1.0, randomGenerator, Sampling.STANDARD);
+    }
+    public Beta(double alpha, double beta, RandomNumberGenerator randomGenerator, Sampling sampling) {
+        this(alpha, beta, 0.0, 1.0, randomGenerator, sampling);
     }
     public Beta(double alpha, double beta, double loc, double shape, RandomNumberGenerator randomGenerator) {
+        this(alpha, beta, loc, shape, randomGenerator, Sampling.STANDARD);
+    }
+    public Beta(double alpha, double beta, double loc, double shape, RandomNumberGenerator randomGenerator,
+                Sampling sampling) {
         super(randomGenerator, alpha, beta);
         setState(alpha, beta, loc, shape);
+        this.fastRandom = sampling == Sampling.FAST ? randomGenerator : null;
     }
 
     /** Cumulative distribution function.
@@ -47,6 +56,10 @@ public class Beta extends BetaDistribution implements Distribution {
      * @return random value sampled from the Beta(alpha, beta, loc, shape) distribution
      */
     public double nextDouble() {
+        if (fastRandom != null) { // X / (X + Y) with X ~ Gamma(alpha), Y ~ Gamma(beta)
+            double x = Samplers.gamma(fastRandom, alpha);
+            return loc + shape * (x / (x + Samplers.gamma(fastRandom, beta)));
+        }
         return loc + shape * super.sample();
     }
 
@@ -14,6 +14,9 @@ public class Gamma extends GammaDistribution implements Distribution {
     protected double lambda;
     protected double location;
 
+    /** Random number generator of the fast sampler, null when sampling through Commons Math */
+    private final RandomNumberGenerator fastRandom;
+
 
 /**
  * Constructs a Gamma distribution.
@@ -21,13 +24,23 @@ public class Gamma extends GammaDistribution implements Distribution {
  * @throws IllegalArgumentException if alpha &lt;= 0.0 || lambda &gt;= 0.0.
  */
     public Gamma(double alpha, double lambda, RandomNumberGenerator randomGenerator) {
+        this(alpha, lambda, randomGenerator, Sampling.STANDARD);
+    }
+
+    public Gamma(double alpha, double lambda, RandomNumberGenerator randomGenerator, Sampling sampling) {
         super(randomGenerator, alpha, 1/lambda);
         setState(alpha,lambda);
+        this.fastRandom = sampling == Sampling.FAST ? randomGenerator : null;
     }
 
     public Gamma(double alpha, double lambda, double location, RandomNumberGenerator randomGenerator) {
+        this(alpha, lambda, location, randomGenerator, Sampling.STANDARD);
+    }
+
+    public Gamma(double alpha, double lambda, double location, RandomNumberGenerator randomGenerator, Sampling sampling) {
         super(randomGenerator, alpha, 1/lambda);
         setState(alpha,lambda,location);
+        this.fastRandom = sampling == Sampling.FAST ? randomGenerator : null;
     }
     /**
      * Cumulative distribution function.
@@ -43,6 +56,9 @@ public class Gamma extends GammaDistribution implements Distribution {
      * @return random value sampled from the Gamma(shape, scale) distribution
      */
     public double nextDouble() {
+        if (fastRandom != null) {
+            return location + Samplers.gamma(fastRandom, alpha) / lambda;
+        }
         return location + super.sample();
         }
 
@@ -24,13 +24,23 @@ public class Lognormal extends LogNormalDistribution implements Distribution {
 	/**The standard deviation of corresponding Normal random variable.*/
 	protected double sigma;
 
+	/**Random number generator of the fast sampler, null when sampling through Commons Math.*/
+	private final RandomNumberGenerator fastRandom;
+
 	//=========================================== CONSTRUCTORS ======================================================//
 	
 	/**The constructor for a lognormal in terms of the underling Normal parameters. The mean and
 	 * standard deviation should describe the underlying Normal random variable.*/
 	public Lognormal(double mu, double sigma, RandomNumberGenerator randomGenerator) {
+		this(mu, sigma, randomGenerator, Sampling.STANDARD);
+	}//end constructor
+
+	/**The constructor for a lognormal in terms of the underling Normal parameters, with the given way of drawing
+	 * samples.*/
+	public Lognormal(double mu, double sigma, RandomNumberGenerator randomGenerator, Sampling sampling) {
 		super(randomGenerator, mu, sigma);
 		setState(mu, sigma);
+		this.fastRandom = sampling == Sampling.FAST ? randomGenerator : null;
 	}//end constructor
 
 
@@ -52,6 +62,9 @@ public class Lognormal extends LogNormalDistribution implements Distribution {
 	 * @return random value sampled from the LogNormal(mu, sigma) distribution
 	 */
 	public double nextDouble() {
+		if (fastRandom != null) {
+			return Math.exp(mu + sigma * Samplers.normal(fastRandom));
+		}
 		return super.sample();
 	}
 
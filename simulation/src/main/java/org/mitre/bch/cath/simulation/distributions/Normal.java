@@ -7,6 +7,9 @@ public class Normal extends NormalDistribution implements Distribution {
     protected double mean;
     protected double sd;
 
+    /** Random number generator of the fast sampler, null when sampling through Commons Math */
+    private final RandomNumberGenerator fastRandom;
+
     /**
      * Constructs a uniform distribution with the given minimum and maximum.
      *
@@ -16,8 +19,21 @@ public class Normal extends NormalDistribution implements Distribution {
      */
 
     public Normal(double mean, double sd, RandomNumberGenerator randomGenerator) {
+        this(mean, sd, randomGenerator, Sampling.STANDARD);
+    }
+
+    /**
+     * Constructs a normal distribution with the given mean and standard deviation.
+     *
+     * @param mean mean bound of this distribution.
+     * @param sd of this distribution.
+     * @param randomGenerator random number generator.
+     * @param sampling how samples are drawn
+     */
+    public Normal(double mean, double sd, RandomNumberGenerator randomGenerator, Sampling sampling) {
         super(randomGenerator, mean, sd);
         setState(mean, sd);
+        this.fastRandom = sampling == Sampling.FAST ? randomGenerator : null;
     }
 
     /**
@@ -41,7 +57,8 @@ public class Normal extends NormalDistribution implements Distribution {
      * @return random value sampled from the Gamma(shape, scale) distribution
      */
     public double nextDouble() {
-        double sample = super.sample();
+        double sample = fastRandom != null ?
+                super.getMean() + super.getStandardDeviation() * Samplers.normal(fastRandom) : super.sample();
         if (sample <= 0.0) throw new IllegalArgumentException();
         return sample;
     }
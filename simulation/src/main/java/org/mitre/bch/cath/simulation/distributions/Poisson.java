@@ -15,6 +15,12 @@ public class Poisson extends PoissonDistribution implements Distribution {
 
     protected double p;
 
+    /** Random number generator of the fast sampler, null when sampling through Commons Math */
+    private final RandomNumberGenerator fastRandom;
+
+    /** Inverse CDF table of the fast sampler, null when the mean is too large for a table */
+    private final double[] table;
+
 
     /**
      * Constructs a Gamma distribution.
@@ -22,8 +28,19 @@ public class Poisson extends PoissonDistribution implements Distribution {
      * @throws IllegalArgumentException p &gt;= 0.0.
      */
     public Poisson(double p, RandomNumberGenerator randomGenerator) {
+        this(p, randomGenerator, Sampling.STANDARD);
+    }
+
+    /**
+     * Constructs a Poisson distribution, with the given way of drawing samples.
+     * With Sampling.FAST, small means are sampled from an inverse CDF table.
+     */
+    public Poisson(double p, RandomNumberGenerator randomGenerator, Sampling sampling) {
         super(randomGenerator, p, PoissonDistribution.DEFAULT_EPSILON, PoissonDistribution.DEFAULT_MAX_ITERATIONS);
         setState(p);
+        boolean fast = sampling == Sampling.FAST && p <= Samplers.POISSON_TABLE_MAX_MEAN;
+        this.fastRandom = fast ? randomGenerator : null;
+        this.table = fast ? Samplers.poissonTable(this) : null;
     }
     /**
      * Cumulative distribution function.
@@ -42,6 +59,9 @@ public class Poisson extends PoissonDistribution implements Distribution {
      * @return random value sampled from the Poisson(p) distribution
      */
     public double nextDouble() {
+        if (fastRandom != null) {
+            return Samplers.poisson(fastRandom, table);
+        }
         return super.sample();
     }
 
@@ -51,7 +71,8 @@ public class Poisson extends PoissonDistribution implements Distribution {
      */
     @Override
     public double getMean() {
-        return super.getNumericalMean();
+        // PoissonDistribution.getNumericalMean() calls getMean(), so return the parameter directly
+        return this.p;
     }
 
     /**
@@ -0,0 +1,101 @@
+package org.mitre.bch.cath.simulation.distributions;
+
+/**
+ * Presampled distribution
+ * Wraps a Distribution and draws its samples in blocks into a primitive ring buffer, so the event handlers only read
+ * the next slot. The blocks grow from MIN_BLOCK up to MAX_BLOCK samples, so rarely used distributions stay small.
+ * The samples are drawn from the wrapped distribution's random number generator when a block is filled, so a seed
+ * gives reproducible, but different, results than drawing each sample when it is needed.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public final class PresampledDistribution implements Distribution {
+    //===== Static Attributes ======//
+    /** Size of the first block */
+    static final int MIN_BLOCK = 64;
+
+    /** Size of the largest block */
+    static final int MAX_BLOCK = 4096;
+
+    //===== Attributes ======//
+    /** The wrapped distribution */
+    private final Distribution distribution;
+
+    /** Presampled values */
+    private double[] buffer = new double[0];
+
+    /** Index of the next value in the buffer */
+    private int next = 0;
+
+    /** Number of values in the buffer */
+    private int filled = 0;
+
+    /** Exception thrown while filling the buffer, rethrown when its sample is read, or null */
+    private RuntimeException failure;
+
+    //===== Constructors ======//
+    /**
+     * Constructs a presampled distribution
+     * @param distribution the distribution to draw samples from
+     */
+    public PresampledDistribution(Distribution distribution) {
+        this.distribution = distribution;
+    }
+
+    //===== Methods ======//
+    /**
+     * Returns P(X &lt;= x) of the wrapped distribution
+     * @param x the point at which the CDF is evaluated
+     * @return the probability that a random variable with this distribution takes a value less than or equal to x
+     */
+    public double cdf(double x) {
+        return distribution.cdf(x);
+    }
+
+    /**
+     * Returns the next presampled value, filling the next block when the buffer is used up
+     * @return random value sampled from the wrapped distribution
+     */
+    public double nextDouble() {
+        if (next == filled) {
+            if (failure != null) { // the sample that failed, fail now as it would have when drawn
+                RuntimeException e = failure;
+                failure = null;
+                throw e;
+            }
+            fill();
+        }
+        return buffer[next++];
+    }
+
+    /**
+     * Returns the mean of the wrapped distribution
+     * @return distribution mean
+     */
+    public double getMean() {
+        return distribution.getMean();
+    }
+
+    /** Draw the next block of samples. A sample that fails ends the block, and its exception is kept until the
+     * sample is read.
+     */
+    private void fill() {
+        if (buffer.length < MAX_BLOCK) {
+            buffer = new double[Math.max(MIN_BLOCK, 2 * buffer.length)];
+        }
+        next = 0;
+        filled = 0;
+        try {
+            while (filled < buffer.length) {
+                buffer[filled] = distribution.nextDouble();
+                filled++;
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            if (filled == 0) {
+                failure = null;
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.mitre.bch.cath.simulation.distributions;
+
+import org.mitre.bch.cath.simulation.utils.RandomNumberGenerator;
+
+/**
+ * Specialized, allocation-free sampling kernels used by the distributions with Sampling.FAST.
+ * The kernels draw directly from the RandomNumberGenerator:
+ * ziggurat standard normal (Marsaglia and Tsang, 2000), Marsaglia-Tsang gamma (2000), and an inverse CDF table for
+ * small-mean Poisson.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+final class Samplers {
+    //===== Static Attributes ======//
+    /** Number of ziggurat layers */
+    private static final int LAYERS = 128;
+
+    /** Start of the tail of the ziggurat */
+    private static final double R = 3.442619855899;
+
+    /** Ziggurat acceptance thresholds of the layers, on the scale of a 32-bit integer */
+    private static final long[] KN = new long[LAYERS];
+
+    /** Ziggurat layer widths, on the scale of a 32-bit integer */
+    private static final double[] WN = new double[LAYERS];
+
+    /** Normal density at the layer edges */
+    private static final double[] FN = new double[LAYERS];
+
+    /** Largest mean sampled with an inverse CDF table, larger means use the Commons Math sampler */
+    static final double POISSON_TABLE_MAX_MEAN = 64;
+
+    static {
+        double m1 = 2147483648.0;
+        double vn = 9.91256303526217e-3;
+        double dn = R;
+        double tn = dn;
+        double q = vn / Math.exp(-.5 * dn * dn);
+        KN[0] = (long) ((dn / q) * m1);
+        KN[1] = 0;
+        WN[0] = q / m1;
+        WN[LAYERS - 1] = dn / m1;
+        FN[0] = 1.0;
+        FN[LAYERS - 1] = Math.exp(-.5 * dn * dn);
+        for (int i = LAYERS - 2; i >= 1; i--) {
+            dn = Math.sqrt(-2 * Math.log(vn / dn + Math.exp(-.5 * dn * dn)));
+            KN[i + 1] = (long) ((dn / tn) * m1);
+            tn = dn;
+            FN[i] = Math.exp(-.5 * dn * dn);
+            WN[i] = dn / m1;
+        }
+    }
+
+    //===== Constructors ======//
+    private Samplers() {}
+
+    //===== Methods ======//
+    /** Draw a uniform number in (0, 1], safe to take the log of
+     *
+     * @param random random number generator
+     * @return uniform number
+     */
+    private static double positiveUniform(RandomNumberGenerator random) {
+        return 1.0 - random.nextDouble();
+    }
+
+    /** Draw a standard normal number with the ziggurat method
+     *
+     * @param random random number generator
+     * @return standard normal number
+     */
+    static double normal(RandomNumberGenerator random) {
+        int hz = random.nextInt();
+        int iz = hz & (LAYERS - 1);
+        if (Math.abs((long) hz) < KN[iz]) {
+            return hz * WN[iz];
+        }
+        for (;;) {
+            double x = hz * WN[iz];
+            if (iz == 0) { // the tail
+                double y;
+                do {
+                    x = -Math.log(positiveUniform(random)) / R;
+                    y = -Math.log(positiveUniform(random));
+                } while (y + y < x * x);
+                return hz > 0 ? R + x : -R - x;
+            }
+            if (FN[iz] + random.nextDouble() * (FN[iz - 1] - FN[iz]) < Math.exp(-.5 * x * x)) {
+                return x;
+            }
+            hz = random.nextInt();
+            iz = hz & (LAYERS - 1);
+            if (Math.abs((long) hz) < KN[iz]) {
+                return hz * WN[iz];
+            }
+        }
+    }
+
+    /** Draw a gamma number with unit scale with the Marsaglia-Tsang method
+     *
+     * @param random random number generator
+     * @param shape shape parameter, greater than 0
+     * @return gamma number
+     */
+    static double gamma(RandomNumberGenerator random, double shape) {
+        if (shape < 1) { // boost the shape, Gamma(a) = Gamma(a + 1) * U^(1/a)
+            return gamma(random, shape + 1) * Math.pow(positiveUniform(random), 1 / shape);
+        }
+        double d = shape - 1.0 / 3;
+        double c = 1 / Math.sqrt(9 * d);
+        for (;;) {
+            double x;
+            double v;
+            do {
+                x = normal(random);
+                v = 1 + c * x;
+            } while (v <= 0);
+            v = v * v * v;
+            double u = positiveUniform(random);
+            double x2 = x * x;
+            if (u < 1 - 0.0331 * x2 * x2 || Math.log(u) < 0.5 * x2 + d * (1 - v + Math.log(v))) {
+                return d * v;
+            }
+        }
+    }
+
+    /** Build the inverse CDF table of a small-mean Poisson distribution
+     *
+     * @param distribution the Poisson distribution
+     * @return cumulative probabilities of 0, 1, ..., up to where they reach 1 in double precision
+     */
+    static double[] poissonTable(Poisson distribution) {
+        double mean = distribution.getMean();
+        int size = (int) Math.ceil(mean + 20 * Math.sqrt(mean) + 20);
+        double[] table = new double[size];
+        for (int k = 0; k < size; k++) {
+            table[k] = distribution.cumulativeProbability(k);
+        }
+        return table;
+    }
+
+    /** Draw a Poisson number by inverting its CDF table
+     *
+     * @param random random number generator
+     * @param table cumulative probabilities, see poissonTable
+     * @return Poisson number
+     */
+    static long poisson(RandomNumberGenerator random, double[] table) {
+        double u = random.nextDouble();
+        // smallest k with u < F(k)
+        int lo = 0;
+        int hi = table.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (u < table[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,25 @@
+package org.mitre.bch.cath.simulation.distributions;
+
+/**
+ * How the distributions draw their samples.
+ * STANDARD samples through the generic Apache Commons Math paths, as the simulation always has, so results of a seed
+ * are reproducible across versions. FAST uses the specialized, allocation-free samplers in Samplers, which draw
+ * different numbers from the random number generator, so a seed gives different (equally distributed) results.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public enum Sampling {
+    STANDARD, FAST;
+
+    /** Parse a sampling mode from a string, falling back to STANDARD
+     *
+     * @param value sampling mode name, case-insensitive, may be null
+     * @return the sampling mode
+     */
+    public static Sampling parse(String value) {
+        if (value == null || value.isBlank()) {
+            return STANDARD;
+        }
+        return Sampling.valueOf(value.trim().toUpperCase());
+    }
+}
@@ -24,6 +24,9 @@ public class Uniform extends UniformRealDistribution implements Distribution {
     protected double min;
     protected double max;
 
+    /** Random number generator of the fast sampler, null when sampling through Commons Math */
+    private final RandomNumberGenerator fastRandom;
+
     /**
      * Constructs a uniform distribution with the given minimum and maximum.
      *
@@ -32,8 +35,20 @@ public class Uniform extends UniformRealDistribution implements Distribution {
      * @param randomGenerator random number geenrator
      */
     public Uniform(double min, double max, RandomNumberGenerator randomGenerator) {
+        this(min, max, randomGenerator, Sampling.STANDARD);
+    }
+    /**
+     * Constructs a uniform distribution with the given minimum and maximum, and way of drawing samples.
+     *
+     * @param min Lower bound of this distribution (inclusive).
+     * @param max Upper bound of this distribution (exclusive).
+     * @param randomGenerator random number geenrator
+     * @param sampling how samples are drawn
+     */
+    public Uniform(double min, double max, RandomNumberGenerator randomGenerator, Sampling sampling) {
         super(randomGenerator, min, max);
         setState(min,max);
+        this.fastRandom = sampling == Sampling.FAST ? randomGenerator : null;
     }
     /**
      * Constructs a uniform distribution with min=0.0 and max=1.0.
@@ -41,6 +56,12 @@ public class Uniform extends UniformRealDistribution implements Distribution {
     public Uniform(RandomNumberGenerator randomGenerator) {
         this(0,1,randomGenerator);
     }
+    /**
+     * Constructs a uniform distribution with min=0.0 and max=1.0, and the given way of drawing samples.
+     */
+    public Uniform(RandomNumberGenerator randomGenerator, Sampling sampling) {
+        this(0,1,randomGenerator,sampling);
+    }
     /**
      * Cumulative distribution function.
      *
@@ -56,6 +77,10 @@ public class Uniform extends UniformRealDistribution implements Distribution {
      * @return a random value
      */
     public double nextDouble() {
+        if (fastRandom != null) {
+            double u = fastRandom.nextDouble();
+            return u * getSupportUpperBound() + (1 - u) * getSupportLowerBound();
+        }
         return super.sample();
     }
 
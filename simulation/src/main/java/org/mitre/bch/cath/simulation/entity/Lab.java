@@ -2,6 +2,7 @@ package org.mitre.bch.cath.simulation.entity;
 
 import org.mitre.bch.cath.simulation.model.CathLabSim;
 import org.mitre.bch.cath.simulation.model.CathSchedule;
+import org.mitre.bch.cath.simulation.model.DayRiskState;
 import org.mitre.bch.cath.simulation.utils.CathDistribution;
 import org.mitre.bch.cath.simulation.utils.Config;
 import org.mitre.bch.cath.simulation.utils.EntityManager;
@@ -14,7 +15,11 @@ import sim.engine.Steppable;
 import java.io.Serial;
 import java.time.DayOfWeek;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /** Lab class represents the location where a Procedure is performed on a Patient.
@@ -41,8 +46,25 @@ public class Lab implements Steppable {
     /** Lab name */
     public String name;
 
-    /** Patients that are assigned to this lab up to the current day of simulation */
-    public List<Patient> patients = new ArrayList<>();
+    /** Patients that are assigned to this lab up to the current day of simulation, in case order.
+     * Only modified through the Lab methods, which keep the cursor and done indexes below. */
+    private final List<Patient> patients = new ArrayList<>();
+
+    /** Read-only view of patients */
+    private final List<Patient> patientsView = Collections.unmodifiableList(patients);
+
+    /** Index in patients of the cursor patient (currentPatient, or priorPatient if there is no current patient),
+     * as last found. Only a hint, checked before use. */
+    private int cursor = -1;
+
+    /** Number of times each patient appears in patients */
+    private final Map<Patient, Integer> occurrences = new IdentityHashMap<>();
+
+    /** Number of leading patients in patients whose cases are done (status AFTER), as last found */
+    private int done = 0;
+
+    /** Total lab time of the leading done patients, by the day their case started, summed in case order */
+    private final Map<Integer, Double> doneLabTimes = new HashMap<>();
 
     /** Lab type */
     public LabType type;
@@ -105,8 +127,9 @@ public class Lab implements Steppable {
 
         if (this.currentPatient == null && this.priorPatient != null && this.hasNextPatient() && this.getNextPatient().tStart == null) {
             //case ended, start next case
-            Double turnover = cathDistribution.tTurnover.nextDouble();
             Patient nextPatient = this.getNextPatient();
+            cathDistribution.forPatient(nextPatient.pid);
+            Double turnover = cathDistribution.tTurnover.nextDouble();
             double potentialtStart = Double.max(turnover + this.priorPatient.tEnd, tnow);
             if (nextPatient.originaltStart != null && potentialtStart <= nextPatient.originaltStart) {
                 // finished emergency case or case(s) carrying over from prior day, before lab would've started
@@ -132,13 +155,14 @@ public class Lab implements Steppable {
                     model.metrics.addPatientLog(nextPatient, String.format("Mid day, %s set tStart to %f, with turnover of %f",
                             this.name, nextPatient.tStart, turnover), tnow);
                 }
-                model.scheduleOnce(nextPatient.tStart, nextPatient);
+                model.scheduleOnce(nextPatient.tStart, nextPatient, "Lab.step.turnover");
             }
 
         } else if (this.currentPatient == null && this.priorPatient != null && this.hasNextPatient() &&
                 this.getNextPatient().tStart != null && this.priorPatient.day.intValue() != this.getNextPatient().day.intValue()) {
             // all prev case ended, next case has start time, probably carried over from previous day
             Patient nextPatient = this.getNextPatient();
+            cathDistribution.forPatient(nextPatient.pid);
             double turnover = cathDistribution.tTurnover.nextDouble();
 
             model.metrics.addPatientLog(nextPatient, "Next case start already set to " + nextPatient.tStart, tnow);
@@ -152,7 +176,7 @@ public class Lab implements Steppable {
                 nextPatient.tStart = newTStart;
                 nextPatient.tTurnover = nextPatient.tStart - this.priorPatient.tEnd;
 
-                model.scheduleOnce(nextPatient.tStart, nextPatient);
+                model.scheduleOnce(nextPatient.tStart, nextPatient, "Lab.step.carryover");
                 LOGGER.info("Scheduling patient {}, new day start @ {}", nextPatient.pid, nextPatient.tStart);
             }
 
@@ -175,7 +199,7 @@ public class Lab implements Steppable {
 
                 if (nextPatient.tStart == null) {
                     // This part is only called if the first case in the lab is an add-on, which doesn't have a tStart yet.
-                    Optional<Patient> nextScheduled = patients.stream().filter(p -> p.tStart != null && p.tStart > tnow).findFirst();
+                    Optional<Patient> nextScheduled = getPendingPatients().stream().filter(p -> p.tStart != null && p.tStart > tnow).findFirst();
                     if (nextScheduled.isPresent()){
                         // if there is scheduled non-add-on case after the add-on, push it after this add-on.
                         nextPatient.tStart = nextScheduled.get().tStart;
@@ -186,10 +210,11 @@ public class Lab implements Steppable {
                     } else { // no current patient, next patient is an add-on, and no scheduled cases on schedule after
                         // even if an emergency add-on, need turnover time
                         //      (which isn't recorded as turnover time for the patient) to prep the lab or something
+                        cathDistribution.forPatient(nextPatient.pid);
                         nextPatient.tStart = tnow + cathDistribution.tTurnover.nextDouble();
                     }
                     model.metrics.addPatientLog(nextPatient, "Start of sim, Lab set tStart to " + nextPatient.tStart, tnow);
-                    model.scheduleOnce(nextPatient.tStart, nextPatient);
+                    model.scheduleOnce(nextPatient.tStart, nextPatient, "Lab.step.startOfSim");
                     LOGGER.info("Scheduling {}, patient {}, sim start @ {}", this.name, nextPatient.pid, nextPatient.tStart);
                 } else {
                     model.metrics.addPatientLog(nextPatient, "Start of sim, Lab found tStart to " + nextPatient.tStart, tnow);
@@ -235,6 +260,7 @@ public class Lab implements Steppable {
     public void setCurrentPatient(CathLabSim model, Patient currentPatient) {
         LoggerHelper LOGGER = model.LOGGER;
         this.currentPatient = currentPatient;
+        model.metrics.markPatientsChanged();
         if (currentPatient == null) {
             LOGGER.info("Set {} current patient to null", this.name);
         } else {
@@ -260,12 +286,13 @@ public class Lab implements Steppable {
         LoggerHelper LOGGER = model.LOGGER;
         double tnow = model.schedule.getTime();
         if (this.currentPatient == null && !hasNextPatient()) {
+            model.cathDistribution.forPatient(patient.pid);
             patient.tStart = tnow + model.cathDistribution.tTurnover.nextDouble();
             model.schedule.scheduleOnce(patient.tStart, patient);
             model.metrics.addPatientLog(patient, String.format("%s set tStart of next add-on %d to %f",
                     this.name, patient.pid, patient.tStart), tnow);
         }
-        this.patients.add(patient);
+        insertPatient(patients.size(), patient);
         LOGGER.info("Patient {} added to patients for {}", patient.pid, this.name);
     }
 
@@ -279,10 +306,11 @@ public class Lab implements Steppable {
         // if prior patient finished so current is null, and the next patient's tstart is already set,
         // clear next patient's tstart, add add-on as next, and set add-on's start time
         if (this.currentPatient == null) {
-            Optional<Patient> nextScheduled = patients.stream().filter(p -> p.tStart != null && p.tStart > tnow).findFirst();
+            Optional<Patient> nextScheduled = getPendingPatients().stream().filter(p -> p.tStart != null && p.tStart > tnow).findFirst();
             if (this.priorPatient != null && !this.priorPatient.day.equals((int) tnow / CathSchedule.MIN_PER_DAY)) {
                 // early morning observation
                 // whether pushing scheduled case or lab is empty for the day, schedule start now + turnover time
+                model.cathDistribution.forPatient(patient.pid);
                 patient.tStart = tnow + model.cathDistribution.tTurnover.nextDouble();
                 if (nextScheduled.isPresent()) { // have a scheduled case in the future, may ultimately get tStart pushed back
                     LOGGER.info("Clearing tStart of patient {} due to possible rescheduling", nextScheduled.get().pid);
@@ -300,14 +328,15 @@ public class Lab implements Steppable {
                 nextScheduled.get().tStart = null;
                 nextScheduled.get().delayed = true;
             } else { // no more cases on schedule (all done or never any for that day), so schedule now plus some turnover
+                model.cathDistribution.forPatient(patient.pid);
                 patient.tStart = tnow + model.cathDistribution.tTurnover.nextDouble();
             }
-            model.scheduleOnce(patient.tStart, patient);
+            model.scheduleOnce(patient.tStart, patient, "Lab.addPatientToLabAfterCurrent");
             model.metrics.addPatientLog(patient, String.format("Lab set tStart of next add-on %d to %f",
                     patient.pid, patient.tStart), tnow);
-            this.patients.add(Math.max(patients.indexOf(priorPatient) + 1, 0), patient);
+            insertPatient(Math.max(cursorIndex() + 1, 0), patient);
         } else { // add as next patient in list after currentPatient finishes
-            this.patients.add(Math.max(patients.indexOf(currentPatient) + 1, 0), patient);
+            insertPatient(Math.max(cursorIndex() + 1, 0), patient);
         }
     }
 
@@ -333,18 +362,115 @@ public class Lab implements Steppable {
      * @return the expected total lab time
      */
     public double getExpectedTotalLabTime(int day) {
-        return patients
+        // the leading done cases are already summed, in the same order as the scan of all patients
+        return getPendingPatients()
                 .stream()
                 .filter(p -> p.tStart == null ? p.day == day : p.tStart.intValue() / CathSchedule.MIN_PER_DAY == day)
                 .map(p -> p.status == Patient.Status.AFTER ? p.tDuration : p.tExpectedDuration)
-                .reduce(0.0, Double::sum);
+                .reduce(doneLabTimes.getOrDefault(day, 0.0), Double::sum);
     }
 
     /** Add a bunch of patients to the lab
      * @param patients a List of patients to be added to the lab
      */
     public void addPatientsToLab(List<Patient> patients) {
-        this.patients.addAll(patients);
+        for (Patient p : patients) {
+            insertPatient(this.patients.size(), p);
+        }
+    }
+
+    /** Insert a patient into patients, keeping the indexes up to date.
+     * @param index index to insert the patient at
+     * @param patient the patient
+     */
+    private void insertPatient(int index, Patient patient) {
+        patients.add(index, patient);
+        occurrences.merge(patient, 1, Integer::sum);
+        if (index <= cursor) {
+            cursor++;
+        }
+        if (index < done) {
+            clearDone();
+        }
+    }
+
+    /** Remove the first occurrence of a patient from patients, keeping the indexes up to date.
+     * @param patient the patient
+     */
+    public void removePatient(Patient patient) {
+        // a patient whose case isn't done can't be among the leading done patients
+        int from = patient.status == Patient.Status.AFTER ? 0 : getDoneCount();
+        int offset = patients.subList(from, patients.size()).indexOf(patient);
+        if (offset < 0) {
+            return;
+        }
+        int index = from + offset;
+        patients.remove(index);
+        occurrences.compute(patient, (p, n) -> n == 1 ? null : n - 1);
+        if (index < cursor) {
+            cursor--;
+        }
+        if (index < done) {
+            clearDone();
+        }
+    }
+
+    /** Get the index of the cursor patient (currentPatient, or priorPatient if there is no current patient) in
+     * patients, the same as patients.indexOf but usually without a scan.
+     * @return index of the first occurrence of the cursor patient, -1 if there is none
+     */
+    private int cursorIndex() {
+        Patient p = this.currentPatient != null ? this.currentPatient : this.priorPatient;
+        int count = p == null ? 0 : occurrences.getOrDefault(p, 0);
+        if (count == 0) {
+            return -1;
+        }
+        if (count == 1) { // the only occurrence, usually where the cursor was or just after it
+            if (cursor >= 0 && cursor < patients.size() && patients.get(cursor) == p) {
+                return cursor;
+            }
+            if (cursor + 1 >= 0 && cursor + 1 < patients.size() && patients.get(cursor + 1) == p) {
+                return ++cursor;
+            }
+        }
+        cursor = patients.indexOf(p);
+        return cursor;
+    }
+
+    /** Get the number of leading patients whose cases are done (status AFTER). Cases are done in order, so these are
+     * skipped by the scans for cases still to start, and their lab times are summed by day as they are found.
+     * @return number of leading done patients
+     */
+    private int getDoneCount() {
+        while (done < patients.size() && patients.get(done).status == Patient.Status.AFTER) {
+            Patient p = patients.get(done);
+            Integer day = p.tStart == null ? p.day : Integer.valueOf(p.tStart.intValue() / CathSchedule.MIN_PER_DAY);
+            doneLabTimes.merge(day, p.tDuration, Double::sum);
+            done++;
+        }
+        return done;
+    }
+
+    /** Forget the leading done patients and their lab times, after a change before the end of them. Rare, so they
+     * are counted and summed again from the start, in case order.
+     */
+    private void clearDone() {
+        done = 0;
+        doneLabTimes.clear();
+    }
+
+    /** Get the patients assigned to this lab up to the current day of simulation, in case order.
+     * @return read-only view of the patients
+     */
+    public List<Patient> getPatients() {
+        return patientsView;
+    }
+
+    /** Get the patients after the leading ones whose cases are done.
+     * @return read-only view of patients from the first one whose case isn't done
+     */
+    public List<Patient> getPendingPatients() {
+        return patientsView.subList(getDoneCount(), patients.size());
     }
 
     /** Retrieve the patient subsequent to the currentPatient.
@@ -353,12 +479,8 @@ public class Lab implements Steppable {
      */
     public Patient getNextPatient() {
         if (hasNextPatient()) {
-            if (this.currentPatient != null) {
-                return patients.get(patients.indexOf(this.currentPatient) + 1);
-            } else {
-                // Could case a problem if called at sim start, but/so shouldn't be called there
-                return patients.get(patients.indexOf(this.priorPatient) + 1);
-            }
+            // Could case a problem if called at sim start with no prior patient, but/so shouldn't be called there
+            return patients.get(cursorIndex() + 1);
         } else {
             return null;
         }
@@ -369,15 +491,10 @@ public class Lab implements Steppable {
      * @return boolean whether at least one additional patient is assigned to the lab.
      */
     public boolean hasNextPatient() {
-        int patientIndex;
-        if (this.currentPatient != null){
-            patientIndex = patients.indexOf(this.currentPatient);
-        } else if (this.priorPatient != null) {
-            patientIndex = patients.indexOf(this.priorPatient);
-        } else {
+        if (this.currentPatient == null && this.priorPatient == null) {
             return patients.size() > 0; // if no current or prior patients, just see if any patients on the list
         }
-        return patients.size() > patientIndex + 1;
+        return patients.size() > cursorIndex() + 1;
     }
 
     /** Run end-of-day pushing checks and actions for add-on cases which have not yet been started.
@@ -389,7 +506,7 @@ public class Lab implements Steppable {
         LoggerHelper LOGGER = model.LOGGER;
 
         // Collect add-ons not yet started
-        List<Patient> todayAddonNotStarted = this.patients.stream()
+        List<Patient> todayAddonNotStarted = getPendingPatients().stream()
                 .filter(p -> p.addon && p.status == Patient.Status.BEFORE && p.addonObserved != null && p.addonObserved <= tnow &&
                         p.bumpNum < model.pushBumpMap.get(p.urgency)).toList();
         LOGGER.info("List of add-ons not started in {} is {}", this.name, todayAddonNotStarted);
@@ -407,7 +524,7 @@ public class Lab implements Steppable {
                                         model.pushBooleansMap.get(Patient.Urgency.EMERGENCY).get("skipToday"),
                                         true,
                                         model.pushBooleansMap.get(Patient.Urgency.EMERGENCY).get("skipWeekend"));
-                                this.patients.remove(p);
+                                this.removePatient(p);
                                 model.metrics.addBumpedCase(day);
                                 model.metrics.addPatientLog(p, String.format("Lab rescheduled emergency case to %s next day",
                                         model.pushBooleansMap.get(Patient.Urgency.EMERGENCY).get("endOfDay") ? "end of" : "start of"), tnow);
@@ -427,7 +544,7 @@ public class Lab implements Steppable {
                                         model.pushBooleansMap.get(Patient.Urgency.URGENT).get("skipToday"),
                                         true,
                                         model.pushBooleansMap.get(Patient.Urgency.URGENT).get("skipWeekend"));
-                                this.patients.remove(p);
+                                this.removePatient(p);
                                 model.metrics.addBumpedCase(day);
                                 model.metrics.addPatientLog(p, String.format("Lab rescheduled urgent case to %s next day",
                                         model.pushBooleansMap.get(Patient.Urgency.URGENT).get("endOfDay") ? "end of" : "start of"), tnow);
@@ -466,7 +583,7 @@ public class Lab implements Steppable {
                                     LOGGER.info("Normal patient {} rescheduled to {} next day ({})", p.pid,
                                             model.pushBooleansMap.get(Patient.Urgency.NORMAL).get("endOfDay") ? "end of" : "start of", day + 1);
                                 }
-                                this.patients.remove(p);
+                                this.removePatient(p);
                                 model.metrics.addBumpedCase(day);
                                 LOGGER.info("Patient {} removed from {} patients list", p.pid, this.name);
                             } else {
@@ -488,6 +605,7 @@ public class Lab implements Steppable {
         double tnow = model.schedule.getTime();
         int day = (int) tnow / CathSchedule.MIN_PER_DAY;
         EntityManager entityManager = model.entityManager;
+        DayRiskState dayRiskState = model.cathSchedule.dayRiskState;
 
         boolean criterionMet = false;
 
@@ -497,62 +615,46 @@ public class Lab implements Steppable {
             } else if (k.equals("currentLabsRunning")) {
                 // labs with ongoing or still-to-start cases
                 criterionMet = criterionMet | entityManager.labMap.values().stream().filter(
-                                l -> l.patients.stream().anyMatch(p -> p.status != Patient.Status.AFTER &&
+                                l -> l.getPendingPatients().stream().anyMatch(p -> p.status != Patient.Status.AFTER &&
                                 (!p.addon || p.addonObserved < tnow))).count() >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("aeMediumCount")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.day != null && p.day.equals(day) && p.aeLevel != null)
-                        .mapToDouble(p2 -> p2.aeLevel == Patient.AELevel.MED ? 1 : 0).sum() >= model.pushCriteriaValues.get(k).get("num");
+                criterionMet = criterionMet | dayRiskState.getAECount(day, Patient.AELevel.MED)
+                        >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("aeHighCount")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.day != null && p.day.equals(day) && p.aeLevel != null)
-                        .mapToDouble(p2 -> p2.aeLevel == Patient.AELevel.HIGH ? 1 : 0).sum() >= model.pushCriteriaValues.get(k).get("num");
+                criterionMet = criterionMet | dayRiskState.getAECount(day, Patient.AELevel.HIGH)
+                        >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("aeAnyCount")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.day != null && p.day.equals(day) && p.aeLevel != null)
-                        .mapToDouble(p2 -> p2.hadae ? 1 : 0).sum() >= model.pushCriteriaValues.get(k).get("num");
+                criterionMet = criterionMet | dayRiskState.getAECount(day, Patient.AELevel.MED)
+                        + dayRiskState.getAECount(day, Patient.AELevel.HIGH) >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("aeWeightedThreshold")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.day != null && p.day.equals(day) && p.aeLevel != null)
-                        .reduce(0.0, (acc, val) -> acc + (val.aeLevel == Patient.AELevel.HIGH
-                                ? model.pushCriteriaValues.get(k).get("coefHIGH")
-                                : model.pushCriteriaValues.get(k).get("coefMED")), Double::sum)
+                criterionMet = criterionMet | dayRiskState.getAECount(day, Patient.AELevel.HIGH)
+                        * model.pushCriteriaValues.get(k).get("coefHIGH")
+                        + dayRiskState.getAECount(day, Patient.AELevel.MED) * model.pushCriteriaValues.get(k).get("coefMED")
                                 >= model.pushCriteriaValues.get(k).get("thresh");
             } else if (k.equals("MediumRiskCount")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.day != null && p.day.equals(day) && p.riskLevel == Patient.RiskLevel.MED).count()
+                criterionMet = criterionMet | dayRiskState.getRiskCount(day, Patient.RiskLevel.MED)
                                 >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("HighRiskCount")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.day != null && p.day.equals(day) && p.riskLevel == Patient.RiskLevel.HIGH).count()
+                criterionMet = criterionMet | dayRiskState.getRiskCount(day, Patient.RiskLevel.HIGH)
                                 >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("MixedRiskThreshold")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.day != null && p.day.equals(day) && p.riskLevel != null)
-                        .reduce(0.0, (acc, val) -> acc + (val.riskLevel == Patient.RiskLevel.HIGH
-                                ? model.pushCriteriaValues.get(k).get("coefHIGH")
-                                : val.riskLevel == Patient.RiskLevel.MED
-                                ? model.pushCriteriaValues.get(k).get("coefMED") : 0), Double::sum)
+                criterionMet = criterionMet | dayRiskState.getRiskCount(day, Patient.RiskLevel.HIGH)
+                        * model.pushCriteriaValues.get(k).get("coefHIGH")
+                        + dayRiskState.getRiskCount(day, Patient.RiskLevel.MED) * model.pushCriteriaValues.get(k).get("coefMED")
                                 >= model.pushCriteriaValues.get(k).get("thresh");
             } else if (k.equals("currentHighRisk")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.tStart != null && p.tStart <= tnow
-                                        && tnow - p.tStart <= model.pushCriteriaValues.get(k).get("hourRecency") * 60
-                                        && p.riskLevel == Patient.RiskLevel.HIGH).count()
+                criterionMet = criterionMet | dayRiskState.getRecentStartCount(Patient.RiskLevel.HIGH, tnow,
+                        model.pushCriteriaValues.get(k).get("hourRecency") * 60)
                                         >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("currentMediumRisk")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.tStart != null && p.tStart <= tnow
-                                        && tnow - p.tStart <= model.pushCriteriaValues.get(k).get("hourRecency") * 60
-                                        && p.riskLevel == Patient.RiskLevel.MED).count()
+                criterionMet = criterionMet | dayRiskState.getRecentStartCount(Patient.RiskLevel.MED, tnow,
+                        model.pushCriteriaValues.get(k).get("hourRecency") * 60)
                                         >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("currentHighAERisk")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.status == Patient.Status.DURING && p.aeLevel == Patient.AELevel.HIGH).count()
+                criterionMet = criterionMet | dayRiskState.getActiveAECount(Patient.AELevel.HIGH)
                                     >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("currentMediumAERisk")) {
-                criterionMet = criterionMet | model.cathSchedule.allPatients.stream()
-                        .filter(p -> p.status == Patient.Status.DURING && p.aeLevel == Patient.AELevel.MED).count()
+                criterionMet = criterionMet | dayRiskState.getActiveAECount(Patient.AELevel.MED)
                                     >= model.pushCriteriaValues.get(k).get("num");
             } else if (k.equals("currentExpectedLongCase")) {
                 criterionMet = criterionMet | pat.tExpectedDuration >= model.pushCriteriaValues.get(k).get("hourDuration") * 60;
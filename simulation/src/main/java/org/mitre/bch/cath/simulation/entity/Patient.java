@@ -173,7 +173,6 @@ public class Patient implements Steppable {
      */
     public Patient (CathLabSim cathLabSim, Integer procedure, Integer adverseScore, Integer riskScore,
                     Integer durationScore, float pICU, boolean addon, String priorLocation, Integer lab, int pid, Integer day) {
-        CathDistribution cathDistribution = cathLabSim.cathDistribution;
         this.day = addon ? null : day;
         this.addonDay = addon ? day : null;
         this.pid = pid;
@@ -192,10 +191,7 @@ public class Patient implements Steppable {
         this.nextStatus = Status.BEFORE;
         this.schedDelay = addon ? 0 : null;
         this.bumpDelay = addon ? 0 : null;
-        this.tExpectedDuration = this.procedure.steps
-                .stream()
-                .map(step -> cathDistribution.tCase.get(this.durationScore, step.name).getMean())
-                .reduce(0.0, Double::sum);
+        this.tExpectedDuration = this.procedure.getExpectedDuration(this.durationScore);
     }
 
     //===== Methods ======//
@@ -211,8 +207,8 @@ public class Patient implements Steppable {
      */
     @Override
     public void step(SimState simState) {
-        this.status = this.nextStatus;
         CathLabSim model = (CathLabSim) simState;
+        setStatus(model, this.nextStatus);
         CathDistribution cathDistribution = model.cathDistribution;
         LoggerHelper LOGGER = model.LOGGER;
         double tnow = model.schedule.getTime();
@@ -222,11 +218,12 @@ public class Patient implements Steppable {
                 if (this.day != null && this.day == day + 1 && this.tStart == null && this.addon) {
                     // add-on rescheduled to next day
                     LOGGER.info("This add-on {} no longer supposed to start now, likely was moved to the next day.", this.pid);
-                    model.scheduleOnceIn(NANOSECOND, this.lab);
+                    model.scheduleOnceIn(NANOSECOND, this.lab, "Patient.step");
                     LOGGER.info("Scheduling {} @ {} to check for any remaining cases for this day, " +
                             "as though the moved case just finished.", this.lab.name, tnow + NANOSECOND);
                 } else if (this.addonObserved != null && this.addonObserved == tnow) { // add-on now
                     float rng;
+                    cathDistribution.forPatient(this.pid);
                     switch (this.priorLocation) {
                         case ICU -> {
                             rng = cathDistribution.UrgencyRandom.nextFloat();
@@ -269,8 +266,9 @@ public class Patient implements Steppable {
                     LOGGER.info("patient {} was bumped (occurrence #{})",this.pid, this.bumpNum);
                 } else if (this.tStart != null && tnow >= this.tStart) {
                     this.nextStatus = Status.DURING;
+                    model.cathSchedule.dayRiskState.caseStarted(this);
                     this.lab.setCurrentPatient(model,this);
-                    model.scheduleOnceIn(NANOSECOND, this); // run the start step 0 logic a nanosecond after
+                    model.scheduleOnceIn(NANOSECOND, this, "Patient.step"); // run the start step 0 logic a nanosecond after
 
                     model.metrics.addPatientLog(this, "BEFORE -> During", tnow);
                     model.metrics.addCaseTypeCount(this.day, this.procedure.name);
@@ -313,12 +311,12 @@ public class Patient implements Steppable {
                                         this.procedure.steps.get(0).resources.get(r), false);
                             }
                         });
-                        model.scheduleOnce(this);
+                        model.scheduleOnce(this, "Patient.step");
                         break;
                     }
                 } else if (this.ae) { // finished a step, having AE
                     LOGGER.info("patient {} should be in rescue; this should never get printed!!!", this.pid);
-                    model.scheduleOnce(this);
+                    model.scheduleOnce(this, "Patient.step");
                     break;
                 } else if (this.procedure.hasStepAfter(this.pStep)) { // finished a step, no AE, continue to next step
                     this.pStep = this.procedure.getStepAfter(pStep);
@@ -330,9 +328,10 @@ public class Patient implements Steppable {
                         model.metrics.addLabTurnover(this.day, this.lab.name, this.tTurnover);
                     }
                     this.pStep = null;
-                    this.status = Status.AFTER;
+                    setStatus(model, Status.AFTER);
                     this.nextStatus = Status.AFTER;
                     this.tEnd = this.tStart + this.tDelay + this.tDuration;
+                    model.metrics.addCaseEnd(this.day, this.lab.name, this.tEnd);
                     this.tWait = this.addon ? this.tStart - this.addonObserved : null;
                     double todayeod = this.day * CathSchedule.MIN_PER_DAY + model.endTime;
                     if (this.tEnd > todayeod) { // ends after the end of the day
@@ -349,13 +348,15 @@ public class Patient implements Steppable {
                         r.releaseAll(this.day, model,this);
                     }
 
-                    model.scheduleOnceIn(NANOSECOND, this.lab);
+                    model.scheduleOnceIn(NANOSECOND, this.lab, "Patient.step");
                     LOGGER.info("Scheduling {}, patient {}, AFTER start @ {}",
                             this.lab.name, this.pid, tnow + NANOSECOND);
 
                     if (this.priorLocation == PriorLocation.ICU) {
                         this.pICU = 1.0;
+                        model.metrics.markPatientsChanged();
                     }
+                    cathDistribution.forPatient(this.pid);
                     float nextICUfloat = cathDistribution.ICURandom.nextFloat();
                     if (this.pICU > nextICUfloat) {
                         LOGGER.info("Patient {} sent to ICU at {}", this.pid, tnow);
@@ -365,7 +366,7 @@ public class Patient implements Steppable {
                         if (this.pICU != 1) {
                             model.metrics.addNewSentICUCase(this.day);
                         }
-                        this.status = Status.AFTER;
+                        setStatus(model, Status.AFTER);
                     }
                     break;
                 }
@@ -379,8 +380,9 @@ public class Patient implements Steppable {
                     }
                 }
 
-                // schedule next step
-                double stepTime = cathDistribution.tCase.get(this.durationScore, this.pStep.name).nextDouble();
+                // schedule next step, drawing the step time and AE from this patient's streams
+                cathDistribution.forPatient(this.pid);
+                double stepTime = this.procedure.getTCase(this.pStep, this.durationScore).nextDouble();
                 // Truncating cases if random pull is over 8 hours,
                 //      this may be handled differently, or with a different value, in other environments
                 if (stepTime > 8*60) {
@@ -391,13 +393,15 @@ public class Patient implements Steppable {
 
                 // AE -- currently only able to trigger at the end of a step, and a case can only have 1
                 if (this.aeLevel == null) {
-                    this.pAE = cathDistribution.pAE.get(this.procedure.id, this.adverseScore, this.pStep.name);
+                    this.pAE = this.procedure.getPAE(this.pStep, this.adverseScore);
                     model.metrics.addPatientLog(this, String.format("pAE at step is %.3f", this.pAE), tnow);
                     float nextFloat = cathDistribution.AERandom.nextFloat();
                     this.ae = this.pAE > nextFloat;
+                    model.metrics.markPatientsChanged();
                     if (this.ae) {
                         this.aeLevel = cathDistribution.AERandom.nextFloat() > 0.75 ? AELevel.HIGH : AELevel.MED;
                         this.hadae = true;
+                        model.cathSchedule.dayRiskState.aeObserved(this);
                         model.metrics.addPatientLog(this, String.format("AE observed, AE Level set to %s",
                                 this.aeLevel), tnow);
                         model.metrics.addAELevelCount(this.day, this.aeLevel);
@@ -407,7 +411,7 @@ public class Patient implements Steppable {
                     }
                 }
 
-                model.scheduleOnceIn(stepTime, this);
+                model.scheduleOnceIn(stepTime, this, "Patient.step");
                 break;
             case AFTER:
                 break;
@@ -424,17 +428,32 @@ public class Patient implements Steppable {
                 }
 
                 // schedule next event
+                cathDistribution.forPatient(this.pid);
                 this.tRescue = cathDistribution.tRescue.nextDouble();
                 this.tDuration += this.tRescue;
 
                 this.nextStatus = Status.DURING;
                 this.ae = false;
+                model.metrics.markPatientsChanged();
                 LOGGER.info("patient {} rescue time: {}", this.pid, this.tRescue);
-                model.scheduleOnceIn(this.tRescue, this);
+                model.scheduleOnceIn(this.tRescue, this, "Patient.step");
                 break;
         }
     }
 
+    /** Set the status of the patient, keeping the push criteria counters up to date.
+     * @param model the CathLabSim instance of the simulation
+     * @param status the new status
+     */
+    private void setStatus(CathLabSim model, Status status) {
+        Status oldStatus = this.status;
+        this.status = status;
+        model.cathSchedule.dayRiskState.statusChanged(this, oldStatus);
+        if (status != oldStatus) {
+            model.metrics.markPatientsChanged();
+        }
+    }
+
     /** Assign day and lab to an add-on case.
      * @param model     the CathLabSim instance of the simulation
      * @param day       the day that the add-on is scheduled to.
@@ -447,8 +466,12 @@ public class Patient implements Steppable {
         LoggerHelper LOGGER = model.LOGGER;
         int currentDay = (int) model.schedule.getTime() / CathSchedule.MIN_PER_DAY;
 
+        Integer oldDay = this.day;
+        Lab oldLab = this.lab;
         this.lab = lab;
         this.day = next ? currentDay : day;
+        // allPatients is reordered below so this case is the last (end of day) or first case of the day in the lab
+        model.cathSchedule.reassignPatient(this, oldDay, oldLab, endOfDay);
         LOGGER.info("On day {} assigning patient {} to {} on day {}. next? {} eod? {}", currentDay,
                 this.pid, this.lab.name, day, next, endOfDay);
 
@@ -472,16 +495,14 @@ public class Patient implements Steppable {
                         this.pid, this.lab.name, this.lab.currentPatient.pid, this.lab.currentPatient.status);
             }
             this.lab.addPatientToLabAfterCurrent(model, this);
-            LOGGER.info("{}", this.lab.patients.stream().map(p->p.pid).collect(Collectors.toList()));
+            LOGGER.info("{}", () -> this.lab.getPatients().stream().map(p->p.pid).collect(Collectors.toList()));
         } else if (currentDay == day) { // if it's the given day for the add-on, add to given lab
             this.lab.addPatientToLab(model, this);
         }
 
         if (endOfDay) { // urgent case to go at end of day (today), or normal case to go at end of whichever day
-            Patient lastCaseOfDayLab = model.cathSchedule.allPatients.stream()
-                    .filter(p -> p != this && p.day != null && p.lab != null && p.day == day && p.lab == lab)
-                    .reduce((first, second) -> second)
-                    .orElse(null);
+            List<Patient> labDayPatients = model.cathSchedule.getLabDayPatients(day, lab);
+            Patient lastCaseOfDayLab = labDayPatients.size() > 1 ? labDayPatients.get(labDayPatients.size() - 2) : null;
             if (lastCaseOfDayLab != null) { // this add-on is not the only case in that lab on that day
                 int lastCaseIdx = model.cathSchedule.allPatients.indexOf(lastCaseOfDayLab);
                 int thisCaseIdx = model.cathSchedule.allPatients.indexOf(this);
@@ -495,10 +516,8 @@ public class Patient implements Steppable {
         }
         else {
             // urgent case observed post-end of day, or bumped at end of day, so doing first in passed day in whichever lab
-            Patient firstCaseOfDayLab = model.cathSchedule.allPatients.stream()
-                    .filter(p -> p != this && p.day != null && p.lab != null && p.day == day && p.lab == lab)
-                    .reduce((first, second) -> first)
-                    .orElse(null);
+            List<Patient> labDayPatients = model.cathSchedule.getLabDayPatients(day, lab);
+            Patient firstCaseOfDayLab = labDayPatients.size() > 1 ? labDayPatients.get(1) : null;
             if (firstCaseOfDayLab != null) { // other cases in the lab on next day to place this add-on before
                 int firstCaseIdx = model.cathSchedule.allPatients.indexOf(firstCaseOfDayLab);
                 model.cathSchedule.allPatients.remove(this);
@@ -522,7 +541,7 @@ public class Patient implements Steppable {
             Lab addonLab = findLab.get();
             assignAddon(model, currentDay, addonLab, true, false, false);
             if (addonLab.currentPatient == null) {
-                model.scheduleOnce(addonLab);
+                model.scheduleOnce(addonLab, "Patient.scheduleNextSlot");
             }
         } else {
             // No current handling for this, could potentially try scheduling to next day
@@ -755,7 +774,7 @@ public class Patient implements Steppable {
         assignAddon(model, addonDayAssigned, addonLab, false, endOfDay, bumping);
         if (addonLab.currentPatient == null && addonLab.priorPatient != null
                 && addonLab.getNextPatient() == this) {
-            model.scheduleOnce(addonLab);
+            model.scheduleOnce(addonLab, "Patient.scheduleToDay");
         }
     }
 
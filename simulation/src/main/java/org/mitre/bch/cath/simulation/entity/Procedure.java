@@ -1,8 +1,11 @@
 package org.mitre.bch.cath.simulation.entity;
 
 import org.jetbrains.annotations.NotNull;
+import org.mitre.bch.cath.simulation.distributions.Distribution;
 import org.mitre.bch.cath.simulation.model.CathLabSim;
+import org.mitre.bch.cath.simulation.utils.CathDistribution;
 import org.mitre.bch.cath.simulation.utils.Config;
+import org.mitre.bch.cath.simulation.utils.DistributionCatalog;
 import org.mitre.bch.cath.simulation.utils.EntityManager;
 import org.mitre.bch.cath.simulation.utils.LoggerHelper;
 import org.mitre.bch.cath.simulation.utils.VerificationException;
@@ -38,6 +41,13 @@ public class Procedure implements Serializable {
     /** The list of steps (and required resources for this procedure */
     public List<Procedure.Step> steps = new ArrayList<>();
 
+    /** Expected duration of the procedure, the summed mean case time of the steps, by durationScore.
+     * NaN where a step has no case time distribution for the durationScore. */
+    private double[] expectedDurations = new double[0];
+
+    /** The case time distributions and means the procedure was compiled against */
+    private transient CathDistribution cathDistribution;
+
     //===== Constructors ======//
     /** Constructor from a Config.Procedure instance that came from parsing of the config file.
      * @param cathLabSim the CathLabSim instance of the simulation
@@ -67,6 +77,7 @@ public class Procedure implements Serializable {
             }
             this.addStep(step);
         }
+        compile(cathLabSim.cathDistribution);
     }
 
     //===== Methods ======//
@@ -74,14 +85,100 @@ public class Procedure implements Serializable {
       * @param step a Step instance, including resources needed
      */
     private void addStep(Step step){
+        step.ordinal = this.steps.size();
+        if (!this.steps.isEmpty()) {
+            this.steps.get(this.steps.size() - 1).next = step;
+        }
         this.steps.add(step);
     }
 
+    /** Bind the probability of AE, case time distribution and mean of each step from the dense tables, and sum the
+     * expected duration of the procedure for each durationScore, so a case doesn't look them up by step name.
+     * @param cathDistribution the populated distributions of the simulation iteration
+     */
+    private void compile(CathDistribution cathDistribution) {
+        this.cathDistribution = cathDistribution;
+        DistributionCatalog catalog = cathDistribution.catalog;
+        int size = catalog.getDurationScoreCount();
+        for (Step step : steps) {
+            int stepOrdinal = catalog.getStepOrdinal(step.name);
+            step.tCase = new Distribution[size];
+            step.tCaseMean = new double[size];
+            for (int d = 0; d < size; d++) {
+                DistributionCatalog.DistributionSpec spec = catalog.getTCaseSpec(d, stepOrdinal);
+                step.tCase[d] = spec == null ? null : cathDistribution.tCaseTable[d][stepOrdinal];
+                step.tCaseMean[d] = spec == null ? Double.NaN : spec.mean;
+            }
+            step.pAE = new float[catalog.getAdverseScoreCount()];
+            for (int a = 0; a < step.pAE.length; a++) {
+                step.pAE[a] = catalog.getPAE(this.id, a, stepOrdinal);
+            }
+        }
+        expectedDurations = new double[size];
+        for (int d = 0; d < size; d++) {
+            double sum = 0.0; // summed in step order, as the expected duration always was
+            for (Step step : steps) {
+                sum += step.tCaseMean[d];
+            }
+            expectedDurations[d] = sum;
+        }
+    }
+
+    /** Get the expected duration of the procedure, the summed mean case time of its steps.
+     * @param durationScore duration score of the case
+     * @return expected duration
+     */
+    public double getExpectedDuration(int durationScore) {
+        if (durationScore >= 0 && durationScore < expectedDurations.length && !Double.isNaN(expectedDurations[durationScore])) {
+            return expectedDurations[durationScore];
+        }
+        // a step without a mean, fails as the lookup by name always did
+        return steps.stream()
+                .map(step -> cathDistribution.catalog.getTCaseMean(durationScore, step.name))
+                .reduce(0.0, Double::sum);
+    }
+
+    /** Get the probability of AE of a step of the procedure.
+     * @param step the step
+     * @param adverseScore adverse score of the case
+     * @return probability of AE
+     */
+    public float getPAE(Step step, int adverseScore) {
+        if (adverseScore >= 0 && adverseScore < step.pAE.length && !Float.isNaN(step.pAE[adverseScore])) {
+            return step.pAE[adverseScore];
+        }
+        // not in the dense table, fails as the lookup by name always did
+        return cathDistribution.pAE.get(this.id, adverseScore, step.name);
+    }
+
+    /** Get the case time distribution of a step of the procedure.
+     * @param step the step
+     * @param durationScore duration score of the case
+     * @return the case time distribution, bound to the iteration's random number generator
+     */
+    public Distribution getTCase(Step step, int durationScore) {
+        if (durationScore >= 0 && durationScore < step.tCase.length && step.tCase[durationScore] != null) {
+            return step.tCase[durationScore];
+        }
+        return cathDistribution.tCase.get(durationScore, step.name);
+    }
+
+    /** Check whether a step belongs to this procedure, at its ordinal.
+     * @param step the step
+     * @return whether the step is this procedure's
+     */
+    private boolean isOwnStep(Step step) {
+        return step.ordinal < steps.size() && steps.get(step.ordinal) == step;
+    }
+
     /** Check if a given step is the last one.
      * @param step if this is the last step
      * @return if this is the last step
      */
     public boolean hasStepAfter(Step step) {
+        if (isOwnStep(step)) {
+            return step.next != null;
+        }
         int currentStepIndex = steps.indexOf(step);
         return steps.size() > currentStepIndex + 1;
     }
@@ -91,6 +188,9 @@ public class Procedure implements Serializable {
      * @return the subsequent step
      */
     public Step getStepAfter(Step step) {
+        if (isOwnStep(step)) {
+            return step.next;
+        }
         int currentStepIndex = steps.indexOf(step);
         if (steps.size() > currentStepIndex + 1) {
             return steps.get(currentStepIndex + 1);
@@ -130,6 +230,21 @@ public class Procedure implements Serializable {
         /** Resources required in the AE rescue phase of the step */
         public Map<Resource, Integer> rescueResources = new HashMap<>();
 
+        /** Position of the step in its procedure */
+        public int ordinal = -1;
+
+        /** The subsequent step in the procedure, null if this is the last step */
+        public Step next;
+
+        /** Case time distribution of the step, by durationScore, null where there is none */
+        private transient Distribution[] tCase = new Distribution[0];
+
+        /** Mean case time of the step, by durationScore, NaN where there is none */
+        private transient double[] tCaseMean = new double[0];
+
+        /** Probability of AE at the step in its procedure, by adverseScore, NaN where there is none */
+        private transient float[] pAE = new float[0];
+
         //===== Constructors ======//
         /** Constructor of a Step.
          * @param id Step unique identifier
@@ -40,6 +40,15 @@ public class Resource {
     /** Resource assignment */
     public Map<ResourceInstance, Patient> inUseBy = new HashMap<>();
 
+    /** Free instances, by position in resourceInstances */
+    private final BitSet free = new BitSet();
+
+    /** Free instances not assigned to a lab (floating), by position in resourceInstances */
+    private final BitSet freeFloating = new BitSet();
+
+    /** Free instances assigned to each lab, by position in resourceInstances */
+    private final Map<Lab, BitSet> freeByLab = new IdentityHashMap<>();
+
     //===== Constructors ======//
     /** Constructor of a Resource.
      * @param name resource name
@@ -51,6 +60,105 @@ public class Resource {
     }
 
     //===== Methods ======//
+    /** Add a new, free and floating, instance of this resource.
+     * Instances must be added through this method, so they are tracked as free or in use.
+     * @param name name of the instance
+     * @return the instance
+     */
+    public ResourceInstance addInstance(String name) {
+        ResourceInstance resourceInstance = new ResourceInstance(name, resourceInstances.size());
+        resourceInstances.add(resourceInstance);
+        free.set(resourceInstance.index);
+        freeFloating.set(resourceInstance.index);
+        return resourceInstance;
+    }
+
+    /** Get the free instances assigned to a lab.
+     * @param lab the lab, null for floating instances
+     * @return free instances, by position in resourceInstances
+     */
+    private BitSet freeIn(Lab lab) {
+        return lab == null ? freeFloating : freeByLab.computeIfAbsent(lab, l -> new BitSet());
+    }
+
+    /** Get the number of free instances assigned to labs other than the given one.
+     * @param lab the lab
+     * @return number of free instances
+     */
+    private int numFreeInOtherLabs(Lab lab) {
+        int others = free.cardinality() - freeFloating.cardinality();
+        return lab == null ? others : others - freeIn(lab).cardinality();
+    }
+
+    /** Seize free instances, in order, for a patient.
+     * @param model the CathLabSim instance that the resource instance exists in
+     * @param patient the patient/case that seizes the resource
+     * @param pool the free instances to seize from
+     * @param needed count of resources needed
+     * @return count of resources still needed
+     */
+    private int seizeFrom(CathLabSim model, Patient patient, BitSet pool, int needed) {
+        for (int i = pool.nextSetBit(0); i >= 0 && needed > 0; i = pool.nextSetBit(i + 1), needed--) {
+            seizeInstance(model, patient, i);
+        }
+        return needed;
+    }
+
+    /** Seize free instances assigned to labs other than the patient's, in order, for a patient.
+     * Walks the free instances, skipping floating ones and ones of the patient's lab.
+     * @param model the CathLabSim instance that the resource instance exists in
+     * @param patient the patient/case that seizes the resource
+     * @param needed count of resources needed
+     * @return count of resources still needed
+     */
+    private int seizeFromOtherLabs(CathLabSim model, Patient patient, int needed) {
+        BitSet own = freeIn(patient.lab);
+        for (int i = free.nextSetBit(0); i >= 0 && needed > 0; i = free.nextSetBit(i + 1)) {
+            if (!freeFloating.get(i) && !own.get(i)) {
+                seizeInstance(model, patient, i);
+                needed--;
+            }
+        }
+        return needed;
+    }
+
+    /** Seize a free instance for a patient.
+     * @param model the CathLabSim instance that the resource instance exists in
+     * @param patient the patient/case that seizes the resource
+     * @param i position of the instance in resourceInstances
+     */
+    private void seizeInstance(CathLabSim model, Patient patient, int i) {
+        ResourceInstance r = resourceInstances.get(i);
+        r.setInUse();
+        r.seizedAt = model.schedule.getTime();
+        r.inUseBy = patient;
+        inUseBy.put(r, patient);
+        patient.resources.add(r);
+        model.metrics.markResourcesChanged();
+    }
+
+    /** Free an instance in use. The instance may be of another resource, as releaseAll releases all of a patient's
+     * resources.
+     * @param day Integer day of the procedure which is releasing resources
+     * @param model CathLabSim instance where the resources exist and are being released
+     * @param r the instance
+     */
+    private void free(Integer day, CathLabSim model, ResourceInstance r) {
+        r.setFree();
+        model.metrics.markResourcesChanged();
+        model.metrics.addResourceUsage(day, r, model.schedule.getTime() - r.seizedAt);
+        r.seizedAt = null;
+        r.inUseBy = null;
+        inUseBy.remove(r);
+    }
+
+    /** Get the number of instances in use.
+     * @return number of instances in use
+     */
+    public int numInUse() {
+        return resourceInstances.size() - free.cardinality();
+    }
+
     /** Seize resource(s) for a patient.
      * @param model the CathLabSim instance that the resource instance exists in
      * @param patient the patient/case that seizes the resource
@@ -59,22 +167,11 @@ public class Resource {
      * @return count of resources still needed
      */
     public int seize(CathLabSim model, Patient patient, int count, boolean useOtherLab) {
-        int needed = count;
-        List<ResourceInstance> resourcePool = new ArrayList<>();
-        resourcePool.addAll(resourceInstances.stream().filter(r -> r.labAssigned == patient.lab && !r.inUse).toList());
-        resourcePool.addAll(resourceInstances.stream().filter(r -> r.labAssigned == null && !r.inUse).toList());
+        // instances of the patient's lab first, then floating ones, then other labs', each in instance order
+        int needed = seizeFrom(model, patient, freeIn(patient.lab), count);
+        needed = seizeFrom(model, patient, freeFloating, needed);
         if (useOtherLab) {
-            resourcePool.addAll(resourceInstances.stream().filter(r -> r.labAssigned != null &&
-                    r.labAssigned != patient.lab && !r.inUse).toList());
-        }
-
-        for (int i = 0; i < min(count, resourcePool.size()); i++, needed --) {
-            ResourceInstance r = resourcePool.get(i);
-            r.inUse = true;
-            r.seizedAt = model.schedule.getTime();
-            r.inUseBy = patient;
-            inUseBy.put(r, patient);
-            patient.resources.add(r);
+            needed = seizeFromOtherLabs(model, patient, needed);
         }
         return needed;
     }
@@ -95,14 +192,11 @@ public class Resource {
      * @return the number of resources that are available
      */
     public int numAvailable(Lab lab, boolean useOtherLab) {
-        List<ResourceInstance> resourcePool = new ArrayList<>();
-        resourcePool.addAll(resourceInstances.stream().filter(r -> r.labAssigned == lab && !r.inUse).toList());
-        resourcePool.addAll(resourceInstances.stream().filter(r -> r.labAssigned == null && !r.inUse).toList());
+        int available = freeIn(lab).cardinality() + freeFloating.cardinality();
         if (useOtherLab) {
-            resourcePool.addAll(resourceInstances.stream().filter(r -> r.labAssigned != null &&
-                    r.labAssigned != lab && !r.inUse).toList());
+            available += numFreeInOtherLabs(lab);
         }
-        return resourcePool.size();
+        return available;
     }
 
     /** Check the availability of resources for a patient.
@@ -144,22 +238,20 @@ public class Resource {
     public void release(Integer day, CathLabSim model, Patient patient, int count) {
         int toRelease = count;
 
+        // instances of other labs first, then floating ones, then the patient's lab's, each in instance order
         List<ResourceInstance> resourcesInUse = new ArrayList<>();
-        resourcesInUse.addAll(resourceInstances.stream().filter(r -> r.labAssigned != null &&
-                r.labAssigned != patient.lab && r.inUseBy == patient).toList());
-        resourcesInUse.addAll(resourceInstances.stream().filter(r -> r.labAssigned == null &&
-                r.inUseBy == patient).toList());
-        resourcesInUse.addAll(resourceInstances.stream().filter(r -> r.labAssigned == patient.lab &&
-                r.inUseBy == patient).toList());
+        for (ResourceInstance r : patient.resources) {
+            if (r.type == this) {
+                resourcesInUse.add(r);
+            }
+        }
+        resourcesInUse.sort(Comparator.comparingInt((ResourceInstance r) -> r.labAssigned == null ? 1 :
+                r.labAssigned == patient.lab ? 2 : 0).thenComparingInt(r -> r.index));
 
         for (int i = 0; i < min(toRelease, resourcesInUse.size()); i++) {
             toRelease --;
             ResourceInstance r = resourcesInUse.get(i);
-            r.inUse = false;
-            model.metrics.addResourceUsage(day, r, model.schedule.getTime() - r.seizedAt);
-            r.seizedAt = null;
-            r.inUseBy = null;
-            inUseBy.remove(r);
+            free(day, model, r);
             patient.resources.remove(r);
         }
     }
@@ -172,12 +264,7 @@ public class Resource {
     public void releaseAll(Integer day, CathLabSim model, Patient patient) {
         Iterator<ResourceInstance> i = patient.resources.iterator();
         while (i.hasNext()) {
-            ResourceInstance r = i.next();
-            r.inUse = false;
-            model.metrics.addResourceUsage(day, r, model.schedule.getTime() - r.seizedAt);
-            r.seizedAt = null;
-            r.inUseBy = null;
-            inUseBy.remove(r);
+            free(day, model, i.next());
             i.remove();
         }
     }
@@ -193,11 +280,14 @@ public class Resource {
         /** Resource type */
         public Resource type;
 
-        /** The lab this resource is assigned to, with null indicating a floating resource */
-        public Lab labAssigned;
+        /** Position of the instance in the resource's resourceInstances */
+        public final int index;
 
-        /** Whether this instance is currently in use */
-        public boolean inUse = false;
+        /** The lab this resource is assigned to, with null indicating a floating resource. Set with assignLab. */
+        private Lab labAssigned;
+
+        /** Whether this instance is currently in use. Set by the resource when seized or released. */
+        private boolean inUse = false;
 
         /** Time the resource was seized, null if not in use */
         public Double seizedAt = null;
@@ -209,12 +299,14 @@ public class Resource {
         public Map<Integer, ResourceSchedule> schedule = new HashMap<>();
 
         //===== Constructors ======//
-        /** Constructor of a Resource Instance.
+        /** Constructor of a Resource Instance. Instances are created by Resource.addInstance.
          * @param name name of resource
+         * @param index position of the instance in the resource's resourceInstances
          */
-        public ResourceInstance(String name) {
+        private ResourceInstance(String name, int index) {
             this.name = name;
             this.type = Resource.this;
+            this.index = index;
         }
 
         //===== Methods ======//
@@ -226,6 +318,45 @@ public class Resource {
                     '}';
         }
 
+        /** Mark the instance as in use, removing it from its resource's free instances. */
+        private void setInUse() {
+            inUse = true;
+            free.clear(index);
+            freeIn(labAssigned).clear(index);
+        }
+
+        /** Mark the instance as not in use, adding it back to its resource's free instances. */
+        private void setFree() {
+            inUse = false;
+            free.set(index);
+            freeIn(labAssigned).set(index);
+        }
+
+        /** Assign the instance to a lab, moving it between the free instances of the labs if it is not in use.
+         * @param lab the lab, null for floating
+         */
+        public void assignLab(Lab lab) {
+            if (!inUse) {
+                freeIn(labAssigned).clear(index);
+                freeIn(lab).set(index);
+            }
+            this.labAssigned = lab;
+        }
+
+        /** Get the lab the instance is assigned to.
+         * @return the lab, null for floating
+         */
+        public Lab getLabAssigned() {
+            return labAssigned;
+        }
+
+        /** Check if the instance is in use.
+         * @return whether the instance is seized by a patient
+         */
+        public boolean isInUse() {
+            return inUse;
+        }
+
         /** Add a weekly schedule to the resource instance.
          * @param dayOfWeek day of week
          * @param lab       lab assigned
@@ -273,12 +404,12 @@ public class Resource {
             int timeOfDay = tnow % CathSchedule.MIN_PER_DAY;
             ResourceSchedule schedule = this.schedule.get(dayOfWeek);
             if (timeOfDay >= schedule.startTime && timeOfDay < schedule.endTime) {
-                this.labAssigned = schedule.lab;
-               model.scheduleOnce(day * CathSchedule.MIN_PER_DAY + schedule.endTime, this);
+                assignLab(schedule.lab);
+               model.scheduleOnce(day * CathSchedule.MIN_PER_DAY + schedule.endTime, this, "ResourceInstance.step");
             } else if (timeOfDay >= schedule.endTime) {
                 // If something better than 'null' for after-hours assignment, update that here.
-                this.labAssigned = null;
-               model.scheduleOnce((day + 1) * CathSchedule.MIN_PER_DAY + schedule.startTime, this);
+                assignLab(null);
+               model.scheduleOnce((day + 1) * CathSchedule.MIN_PER_DAY + schedule.startTime, this, "ResourceInstance.step");
             }
         }
     }
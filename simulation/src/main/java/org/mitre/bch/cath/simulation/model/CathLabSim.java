@@ -3,6 +3,7 @@ package org.mitre.bch.cath.simulation.model;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import org.apache.commons.cli.*;
+import org.mitre.bch.cath.simulation.distributions.Sampling;
 import org.mitre.bch.cath.simulation.entity.Patient;
 import org.mitre.bch.cath.simulation.utils.*;
 import org.mlflow.api.proto.Service;
@@ -13,11 +14,15 @@ import sim.engine.Steppable;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.IntStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.time.*;
 import org.mlflow.tracking.*;
 import org.mlflow.api.proto.Service.*;
@@ -48,8 +53,17 @@ public class CathLabSim extends SimState {
     /** The static logger object */
     private static final Logger SLOGGER = LoggerFactory.getLogger(CathLabSim.class);
 
-    /** The simulation event queue */
-    public List<Event> eventQueue;
+    /** The simulation event ledger */
+    public EventLedger eventLedger;
+
+    /** How the provenance of scheduled events is captured for the events log */
+    public Event.Provenance provenance;
+
+    /** Aggregator the summary metrics of this iteration are recorded into, null if not aggregated */
+    public ReplicationAggregator aggregator;
+
+    /** Writer of the binary log file of the run the verbose logs of this iteration go to, null to write csv files */
+    public ColumnarLogWriter logWriter;
 
     /** How many days an add-on can be bumped/pushed, depending on urgency */
     public Map<Patient.Urgency, Integer> pushBumpMap = new HashMap<>();
@@ -120,12 +134,19 @@ public class CathLabSim extends SimState {
      * @param configSchedule list of Config.Schedule objects, the elective cases
      * @param addonBucket list of Config.Schedule objects, the add-on cases
      * @param mlFlowManager mlFlowManager object for managing Mlflow interactions
-     * @param configData possible uploaded config file as an object
-     * @param configPath possible path to a config file to read from
+     * @param blueprint verified simulation blueprint built from the config file
+     * @param scheduleName name of the schedule being simulated
+     * @param provenance how the provenance of scheduled events is captured
+     * @param quiet whether to suppress INFO simulation logging for this run
+     * @param sampling how the distributions draw their samples
+     * @param presample whether the frequently sampled distributions are presampled in blocks
+     * @param streams how the random number streams are created
      */
     public CathLabSim(long seed, String scheduleRunId, String folderName, int extraDays,
                       List<Config.Schedule> configSchedule, List<Config.Schedule> addonBucket,
-                      MlFlowManager mlFlowManager, JsonObject configData, String configPath, String scheduleName) {
+                      MlFlowManager mlFlowManager, SimulationBlueprint blueprint, String scheduleName,
+                      Event.Provenance provenance, boolean quiet, Sampling sampling, boolean presample,
+                      RandomStreams streams) {
         super(seed);
         this.scheduleRunId = scheduleRunId;
         this.scheduleRunName = scheduleName == null ? getScheduleRunName(mlFlowManager, scheduleRunId) : scheduleName;
@@ -133,21 +154,15 @@ public class CathLabSim extends SimState {
         this.addonBucket = addonBucket;
         this.extraDays = extraDays;
         LOGGER = new LoggerHelper(this);
-        eventQueue = new ArrayList<>();
-        cathDistribution = new CathDistribution((int) seed, this.addonBucket);
+        LOGGER.setQuiet(quiet);
+        eventLedger = new EventLedger();
+        this.provenance = provenance;
+        cathDistribution = new CathDistribution((int) seed, this.addonBucket, sampling, presample, streams);
         entityManager = new EntityManager();
         // populate distribution
         cathDistribution.populateDistributions();
-        //===== Attributes ======//
-        Config config;
-        if (configData == null) {
-            config = Config.readConfig(configPath, this);
-        } else {
-            config = Config.uploadConfig(configData, this);
-        }
-        if (config == null) {
-            System.exit(1);
-        }
+        // instantiate labs, resources, procedures from the blueprint
+        blueprint.instantiate(this);
         cathSchedule = new CathSchedule(this, configSchedule);
         LOGGER.info("allPatients size is {}", cathSchedule.allPatients.size());
         LOGGER.info("last patient is {}", cathSchedule.allPatients.get(cathSchedule.allPatients.size() - 1));
@@ -230,6 +245,63 @@ public class CathLabSim extends SimState {
                 .hasArg()
                 .build();
 
+        Option option_provenance = Option.builder("p")
+                .required(false)
+                .desc("How event provenance is captured for the events log: off, call_site, or stack")
+                .longOpt("provenance")
+                .hasArg()
+                .build();
+
+        Option option_threads = Option.builder("t")
+                .required(false)
+                .desc("Maximum number of iterations to run in parallel")
+                .longOpt("threads")
+                .hasArg()
+                .build();
+
+        Option option_timeout = Option.builder("o")
+                .required(false)
+                .desc("Timeout of each iteration in minutes")
+                .longOpt("timeout")
+                .hasArg()
+                .build();
+
+        Option option_sampling = Option.builder("m")
+                .required(false)
+                .desc("How the distributions draw their samples: standard, or fast (different results per seed)")
+                .longOpt("sampling")
+                .hasArg()
+                .build();
+
+        Option option_presample = Option.builder("r")
+                .required(false)
+                .desc("Whether to presample the case, start, turnover and add-on times in blocks (different results per seed)")
+                .longOpt("presample")
+                .hasArg()
+                .build();
+
+        Option option_streams = Option.builder("g")
+                .required(false)
+                .desc("How the random number streams are created: seeded, split, or common " +
+                        "(common random numbers per patient and day, different results per seed)")
+                .longOpt("streams")
+                .hasArg()
+                .build();
+
+        Option option_log_format = Option.builder("w")
+                .required(false)
+                .desc("Format of the verbose logs: csv (files per iteration), or binary (one columnar file per run)")
+                .longOpt("log_format")
+                .hasArg()
+                .build();
+
+        Option option_quiet = Option.builder("q")
+                .required(false)
+                .desc("Whether to suppress INFO simulation logging of each iteration")
+                .longOpt("quiet")
+                .hasArg()
+                .build();
+
         final Options options = new Options();
         CommandLineParser parser = new DefaultParser();
 
@@ -243,6 +315,14 @@ public class CathLabSim extends SimState {
         options.addOption(option_exp);
         options.addOption(config_path);
         options.addOption(option_verbose);
+        options.addOption(option_provenance);
+        options.addOption(option_quiet);
+        options.addOption(option_threads);
+        options.addOption(option_timeout);
+        options.addOption(option_sampling);
+        options.addOption(option_presample);
+        options.addOption(option_streams);
+        options.addOption(option_log_format);
 
         CommandLine cli = parser.parse(options, args);
 
@@ -260,6 +340,14 @@ public class CathLabSim extends SimState {
         String configPath = cli.getOptionValue("c", "config.json");
         String folderName = cli.getOptionValue("f", expName + "_" + timeRun);
         boolean verbose = Boolean.parseBoolean(cli.getOptionValue("v", "false"));
+        Event.Provenance provenance = Event.Provenance.parse(cli.getOptionValue("p"), verbose);
+        boolean quiet = Boolean.parseBoolean(cli.getOptionValue("q", "false"));
+        int parallelism = Integer.parseInt(cli.getOptionValue("t", "0"));
+        long timeoutMinutes = Long.parseLong(cli.getOptionValue("o", "0"));
+        Sampling sampling = Sampling.parse(cli.getOptionValue("m"));
+        boolean presample = Boolean.parseBoolean(cli.getOptionValue("r", "false"));
+        RandomStreams streams = RandomStreams.parse(cli.getOptionValue("g"));
+        LogFormat logFormat = LogFormat.parse(cli.getOptionValue("w"));
 
         MlFlowManager mlFlowManager = new MlFlowManager("simulation");
         mlFlowManager.setParentRunName(expName);
@@ -286,7 +374,8 @@ public class CathLabSim extends SimState {
         }
 
         runSim(iterations, scheduleRunId, startSeed, folderName, expName, extraDays, description, addonBucketFile,
-                mlFlowManager, null, configPath, verbose, scheduleRunName);
+                mlFlowManager, null, configPath, verbose, scheduleRunName, provenance, quiet,
+                parallelism, timeoutMinutes, sampling, presample, streams, logFormat, new RunProgress());
     }
 
     /** Runs the simulation for the specified number of iterations,
@@ -305,112 +394,116 @@ public class CathLabSim extends SimState {
      * @param configPath possible path to a config file to read from
      * @param verbose boolean whether to save full suite of metrics, artifacts, and logs, or only a smaller set
      * @param scheduleRunName name of the schedule being simulated
+     * @param provenance how the provenance of scheduled events is captured
+     * @param quiet whether to suppress INFO simulation logging of each iteration
+     * @param parallelism maximum number of iterations run in parallel, available processors if not positive
+     * @param timeoutMinutes per-iteration timeout in minutes, no timeout if not positive
+     * @param sampling how the distributions draw their samples
+     * @param presample whether the frequently sampled distributions are presampled in blocks
+     * @param streams how the random number streams are created
+     * @param logFormat format of the verbose logs
+     * @param progress progress of the run, updated as iterations complete
      */
     public static void runSim(int iterations, String parentScheduleId, int startSeed, String folderName,
                               String expName, int extraDays, String description, String addonBucketFile,
                               MlFlowManager mlFlowManager, JsonObject configData, String configPath, boolean verbose,
-                              String scheduleRunName) throws IOException {
+                              String scheduleRunName, Event.Provenance provenance, boolean quiet, int parallelism,
+                              long timeoutMinutes, Sampling sampling, boolean presample, RandomStreams streams,
+                              LogFormat logFormat, RunProgress progress)
+            throws IOException {
         mlFlowManager.startNestedRun();
-        SLOGGER.info("args: n: {}, s: {}, d: {}, f: {}, e: {}, b: {}, l: {}, c: {}, v: {}", iterations,
-                parentScheduleId, startSeed, folderName, expName, addonBucketFile, extraDays, configPath, verbose);
+        SLOGGER.info("args: n: {}, s: {}, d: {}, f: {}, e: {}, b: {}, l: {}, c: {}, v: {}, p: {}, q: {}, t: {}, o: {}, m: {}, r: {}, g: {}, w: {}",
+                iterations, parentScheduleId, startSeed, folderName, expName, addonBucketFile, extraDays, configPath,
+                verbose, provenance, quiet, parallelism, timeoutMinutes, sampling, presample, streams, logFormat);
         SLOGGER.info("available processors: {}", Runtime.getRuntime().availableProcessors());
 
         mlFlowManager.client.logParam(mlFlowManager.parentRunId, "iterations", String.valueOf(iterations));
         mlFlowManager.client.logParam(mlFlowManager.parentRunId, "run_type", "simulation_aggregate");
+        mlFlowManager.client.logParam(mlFlowManager.parentRunId, "sampling", sampling.name().toLowerCase());
+        mlFlowManager.client.logParam(mlFlowManager.parentRunId, "presample", String.valueOf(presample));
+        mlFlowManager.client.logParam(mlFlowManager.parentRunId, "streams", streams.name().toLowerCase());
         SLOGGER.info("LOGGED PARAMS");
 
+        // parse and verify the config once, every iteration only instantiates its entities from the blueprint
+        SimulationBlueprint blueprint = configData == null ? Config.readBlueprint(configPath) :
+                Config.uploadBlueprint(configData);
+        if (blueprint == null) {
+            throw new VerificationException("Config failed verification");
+        }
+
 
         int startSeedNew = startSeed;
 
+        // a single work queue across every (child schedule, seed) pair, the artifacts of the next child schedule are
+        // downloaded while the iterations of the current one are submitted and run
         List<String> childScheduleIDs = getChildScheduleIDs(mlFlowManager, parentScheduleId);
-        for (String scheduleRunId : childScheduleIDs) {
-            List<Config.Schedule> addonBucket = getAddonBucket(mlFlowManager, scheduleRunId, addonBucketFile);
-            String scheduleFilepath = getScheduleFilepath(mlFlowManager, scheduleRunName, scheduleRunId);
-            List<Config.Schedule> configSchedule = getConfigSchedule(scheduleFilepath, scheduleRunId);
-
-            List<CompletableFuture<Void>> simIterations = IntStream.range(startSeedNew, iterations + startSeedNew).boxed().map(n ->
-                    CompletableFuture.runAsync(() -> fakeMain(n, scheduleRunId, folderName, extraDays, configSchedule,
-                                    addonBucket, addonBucketFile, mlFlowManager, configData, configPath, verbose, scheduleRunName))
-                            .thenRun(() -> SLOGGER.info("CathLabSim - ({}) completed", n))
-                            .exceptionally(
-                                    e -> {
-                                        SLOGGER.info("CathLabSim - ({}) Failed", n);
-                                        e.printStackTrace();
-                                        throw new RuntimeException(e);
-                                    })
-            ).toList();
-
-            CompletableFuture
-                    .allOf(simIterations.toArray(CompletableFuture[]::new))
-                    .join();
-
-            startSeedNew += iterations;
-        }
-
-        List<String> aggMetrics = new ArrayList<>();
-        if (verbose) {
-            aggMetrics.addAll(Arrays.asList("Days", "Total_High_pAE_Risk_Lab_Minutes",
-                    "Total_Medium_pAE_Risk_Lab_Minutes", "Total_Low_pAE_Risk_Lab_Minutes",
-                    "Total_High_pICU_Risk_Lab_Minutes", "Total_Medium_pICU_Risk_Lab_Minutes",
-                    "Total_Low_pICU_Risk_Lab_Minutes", "MED_AE_Level_Count", "HIGH_AE_Level_Count",
-                    "Total_AE_Count", "Days_With_Over_1_AEs_Count", "Days_With_Over_1_New_ICU_Admissions_Count",
-                    "Bumped_Case_Count", "All_Cases_Sent_to_ICU_Count", "New_Cases_Sent_to_ICU_Count",
-                    "Mult_Cases_Sent_to_ICU_Day_Count", "Weekdays_With_After_EOD_Count",
-                    "After_Mondays_Count", "After_Tuesdays_Count", "After_Wednesdays_Count", "After_Thursdays_Count",
-                    "After_Fridays_Count", "Addon_Time_After_Count", "Elective_Time_After_Count",
-                    "Scheduled_Cases_Started_After_EOD_Count", "EMERGENCY_Addon_Cases_Started_After_EOD_Count",
-                    "URGENT_Addon_Cases_Started_After_EOD_Count", "NORMAL_Addon_Cases_Started_After_EOD_Count",
-                    "Total_Case_Count", "Total_Addon_Count", "Badly_Balanced_Weeks_Version_One_Count",
-                    "Badly_Balanced_Weeks_Version_Two_Count", "Badly_Balanced_Weeks_Version_TwoPointOne",
-                    "System_Avg_Daily_Cumulative_Time", "System_Avg_Daily_Time_After_EOD",
-                    "System_Avg_Daily_Time_After_EOD_No_Zeros", "Bad_Week_Criteria_Counter_Time_After_Over2",
-                    "Bad_Week_Criteria_Counter_Time_After_Over3",
-                    "Bad_Week_Criteria_Counter_Min_High_Over400", "Bad_Week_Criteria_Counter_Min_High_Over600",
-                    "Bad_Week_Criteria_Counter_Min_High_Over800", "Bad_Week_Criteria_Counter_Mult_ICU_Over0",
-                    "Bad_Week_Criteria_Counter_Mult_ICU_Over1", "Bad_Week_Criteria_Counter_Mult_ICU_Over2",
-                    "Bad_Week_Criteria_Counter_Early_End_Over0", "Bad_Week_Criteria_Counter_Early_End_Over1",
-                    "Bad_Week_Criteria_Counter_Early_End_Over2", "Bad_Week_Criteria_Counter_Start_After_Over0",
-                    "Bad_Week_Criteria_Counter_Start_After_Over1", "Bad_Week_Criteria_Counter_Start_After_Over2",
-                    "Bad_Week_Criteria_Counter_Start_And_Run_Hour_Over_0",
-                    "Bad_Week_Criteria_Counter_Start_And_Run_Hour_Over_1",
-                    "Bad_Week_Criteria_Counter_Start_And_Run_Hour_Over_2",
-                    "Bad_Week_Criteria_Counter_Ran_Half_Hour_Past_Over_1",
-                    "Bad_Week_Criteria_Counter_Ran_Half_Hour_Past_Over_2",
-                    "Bad_Week_Criteria_Counter_Ran_Hour_Past_Over_1",
-                    "Bad_Week_Criteria_Counter_Ran_Hour_Past_Over_2"
-            ));
+        progress.setTotal(iterations * childScheduleIDs.size());
+        ReplicationAggregator aggregator = new ReplicationAggregator(aggregateMetricNames(verbose));
+        // the verbose logs of every iteration go to one binary file of the run, or to csv files per iteration
+        ColumnarLogWriter logWriter = verbose && logFormat == LogFormat.BINARY ? new ColumnarLogWriter(
+                Path.of(String.format("logs/metrics_%s/logs_%s.cathcol", folderName, folderName))) : null;
+        ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "schedule-prefetch");
+            t.setDaemon(true);
+            return t;
+        });
+        try (logWriter; ReplicationExecutor executor = new ReplicationExecutor(parallelism, 0, timeoutMinutes,
+                progress::iterationKilled)) {
+            CompletableFuture<ScheduleArtifacts> next = childScheduleIDs.isEmpty() ? null :
+                    prefetchScheduleArtifacts(mlFlowManager, scheduleRunName, childScheduleIDs.get(0),
+                            addonBucketFile, prefetcher);
+            for (int i = 0; i < childScheduleIDs.size(); i++) {
+                String scheduleRunId = childScheduleIDs.get(i);
+                ScheduleArtifacts artifacts = next.join();
+                next = i + 1 < childScheduleIDs.size() ?
+                        prefetchScheduleArtifacts(mlFlowManager, scheduleRunName, childScheduleIDs.get(i + 1),
+                                addonBucketFile, prefetcher) : null;
+                progress.startChildSchedule(scheduleRunId, i + 1, childScheduleIDs.size());
+
+                for (int n = startSeedNew; n < iterations + startSeedNew; n++) {
+                    int seed = n;
+                    executor.submit(String.format("CathLabSim - (%d)", seed), () -> {
+                        fakeMain(seed, scheduleRunId, folderName, extraDays, artifacts.configSchedule(),
+                                artifacts.addonBucket(), addonBucketFile, mlFlowManager, blueprint, verbose,
+                                scheduleRunName, provenance, quiet, sampling, presample, streams,
+                                aggregator, logWriter);
+                        progress.iterationCompleted();
+                    });
+                }
 
-            // can't get labs without a CathLabSim model, which isn't created at this point
-            //      so this has to be hardcoded for now
-            for (String l : new ArrayList<>(List.of("A", "B", "C", "D"))) {
-                aggMetrics.add("Lab_" + l + "_Avg_Daily_Cumulative_Time");
-                aggMetrics.add("Lab_" + l + "_Avg_Daily_Time_After_EOD");
-                aggMetrics.add("After_Time_Lab_" + l + "_Mon_Count");
-                aggMetrics.add("After_Time_Lab_" + l + "_Tues_Count");
-                aggMetrics.add("After_Time_Lab_" + l + "_Wed_Count");
-                aggMetrics.add("After_Time_Lab_" + l + "_Thurs_Count");
-                aggMetrics.add("After_Time_Lab_" + l + "_Fri_Count");
+                startSeedNew += iterations;
             }
-        } else {
-            aggMetrics.addAll(Arrays.asList("Total_High_pAE_Risk_Lab_Minutes",
-                    "Total_Medium_pAE_Risk_Lab_Minutes", "Total_Low_pAE_Risk_Lab_Minutes",
-                    "Total_High_pICU_Risk_Lab_Minutes", "Total_Medium_pICU_Risk_Lab_Minutes",
-                    "Total_Low_pICU_Risk_Lab_Minutes", "Total_AE_Count", "Bumped_Case_Count",
-                    "Weekdays_With_After_EOD_Count", "Total_Case_Count", "Total_Addon_Count",
-                    "System_Avg_Daily_Time_After_EOD", "New_Cases_Sent_to_ICU_Count"
-            ));
+            executor.awaitAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while submitting simulation iterations");
+        } finally {
+            prefetcher.shutdownNow();
         }
 
-        logAggregate(mlFlowManager, aggMetrics, parentScheduleId, scheduleRunName);
+        logAggregate(mlFlowManager, aggregator, parentScheduleId, scheduleRunName, folderName, extraDays, blueprint);
+        if (logWriter != null) {
+            mlFlowManager.client.logArtifact(mlFlowManager.parentRunId, logWriter.path.toFile());
+        }
         mlFlowManager.client.setTag(mlFlowManager.parentRunId, "description", description);
         mlFlowManager.client.logArtifacts(mlFlowManager.parentRunId, new File("src/main/resources/prob_dist"));
         if (configData != null) {
-            // Overwrite config file with uploaded config data
-            FileWriter file = new FileWriter("src/main/resources/config.json");
-            file.write(String.valueOf(configData));
-            file.close();
+            // log the uploaded config data from a folder of this run, as runs of other jobs may upload theirs at the
+            // same time
+            Path configFolder = Files.createTempDirectory("config_");
+            Path configFile = configFolder.resolve("config.json");
+            try (FileWriter file = new FileWriter(configFile.toFile())) {
+                file.write(String.valueOf(configData));
+            }
+            try {
+                mlFlowManager.client.logArtifact(mlFlowManager.parentRunId, configFile.toFile());
+            } finally {
+                Files.delete(configFile);
+                Files.delete(configFolder);
+            }
+        } else {
+            mlFlowManager.client.logArtifact(mlFlowManager.parentRunId, new File("src/main/resources/config.json"));
         }
-        mlFlowManager.client.logArtifact(mlFlowManager.parentRunId, new File("src/main/resources/config.json"));
         mlFlowManager.client.setTerminated(mlFlowManager.parentRunId, Service.RunStatus.FINISHED);
     }
 
@@ -423,30 +516,45 @@ public class CathLabSim extends SimState {
      * @param addonBucket list of Config.Schedule objects, the add-on cases
      * @param addonBucketFile source of add-on cases
      * @param mlFlowManager mlFlowManager object for managing Mlflow interactions
-     * @param configData possible uploaded config file as an object
-     * @param configPath possible path to a config file to read from
+     * @param blueprint verified simulation blueprint built from the config file
      * @param verbose boolean whether to save full suite of metrics, artifacts, and logs, or only a smaller set
+     * @param scheduleName name of the schedule being simulated
+     * @param provenance how the provenance of scheduled events is captured
+     * @param quiet whether to suppress INFO simulation logging
+     * @param sampling how the distributions draw their samples
+     * @param presample whether the frequently sampled distributions are presampled in blocks
+     * @param streams how the random number streams are created
+     * @param aggregator aggregator the summary metrics of the iteration are recorded into
+     * @param logWriter writer of the binary log file of the run, null to write the verbose logs to csv files
      */
     private static void fakeMain(int seed, String scheduleRunId, String folderName, Integer extraDays,
                                  List<Config.Schedule> configSchedule, List<Config.Schedule> addonBucket,
-                                 String addonBucketFile, MlFlowManager mlFlowManager, JsonObject configData,
-                                 String configPath, boolean verbose, String scheduleName) {
+                                 String addonBucketFile, MlFlowManager mlFlowManager, SimulationBlueprint blueprint,
+                                 boolean verbose, String scheduleName,
+                                 Event.Provenance provenance, boolean quiet, Sampling sampling,
+                                 boolean presample, RandomStreams streams, ReplicationAggregator aggregator,
+                                 ColumnarLogWriter logWriter) {
         CathLabSim model = new CathLabSim(seed, scheduleRunId, folderName, extraDays, configSchedule, addonBucket,
-                mlFlowManager, configData, configPath, scheduleName);
+                mlFlowManager, blueprint, scheduleName, provenance, quiet, sampling, presample, streams);
+        model.aggregator = aggregator;
+        model.logWriter = logWriter;
+        model.metrics.recordTimeSeries = verbose; // only the verbose timeseries log reads the series
         Metrics.logAllParams(model.mlflowClient, false, addonBucketFile, String.valueOf(model.earlyEndTime),
                 String.valueOf(model.endTime), String.valueOf(extraDays), folderName, String.valueOf(model.pushCases),
                 model.mlflowRunId, model.scheduleRunId, model.scheduleRunName, String.valueOf(seed),
                 String.valueOf(model.startDate), String.valueOf(model.startTime));
         model.start();
         do {
+            if (Thread.currentThread().isInterrupted()) {
+                model.mlflowClient.setTerminated(model.mlflowRunId, RunStatus.KILLED);
+                throw new CancellationException(String.format("CathLabSim - (%d) interrupted", seed));
+            }
             model.metrics.recordPoint(model);
             if (!model.schedule.step(model)) {
                 break;
             }
         } while (!model.schedule.scheduleComplete());
-        model.LOGGER.info("Day of last scheduled case was day {}", model.cathSchedule.allPatients.stream().filter(p ->
-                !p.addon).mapToInt(patient -> patient.day == null ? patient.addonDay : patient.day).max()
-                .orElseThrow(NoSuchElementException::new));
+        model.LOGGER.info("Day of last scheduled case was day {}", model.cathSchedule.getLastElectiveDay());
         model.LOGGER.info("Simulation ran to day {}", model.simLastDay);
         model.writeLogs(verbose);
         model.verify();
@@ -502,6 +610,34 @@ public class CathLabSim extends SimState {
         return childScheduleIDs;
     }
 
+    /** Asynchronously get the schedule and add-on case bucket of a child schedule
+     * @param mlFlowManager mlFlowManager instance that manages interactions with Mlflow
+     * @param scheduleName name of the local schedule file, if applicable
+     * @param scheduleRunId run id of the schedule to pull, if applicable
+     * @param addonBucketFile name of local add-on bucket file
+     * @param prefetcher executor to download the artifacts on
+     * @return future of the schedule and add-on case bucket
+     */
+    private static CompletableFuture<ScheduleArtifacts> prefetchScheduleArtifacts(MlFlowManager mlFlowManager,
+                                                                                  String scheduleName,
+                                                                                  String scheduleRunId,
+                                                                                  String addonBucketFile,
+                                                                                  ExecutorService prefetcher) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<Config.Schedule> addonBucket = getAddonBucket(mlFlowManager, scheduleRunId, addonBucketFile);
+            String scheduleFilepath = getScheduleFilepath(mlFlowManager, scheduleName, scheduleRunId);
+            List<Config.Schedule> configSchedule = getConfigSchedule(scheduleFilepath, scheduleRunId);
+            SLOGGER.info("Fetched schedule {}", scheduleRunId);
+            return new ScheduleArtifacts(configSchedule, addonBucket);
+        }, prefetcher);
+    }
+
+    /** Schedule and add-on case bucket of a child schedule
+     * @param configSchedule the elective case schedule
+     * @param addonBucket the add-on case bucket
+     */
+    private record ScheduleArtifacts(List<Config.Schedule> configSchedule, List<Config.Schedule> addonBucket) {}
+
     /** Get the filepath to a schedule, either locally or in Mlflow.
      * Tries to pull from Mlflow first before pulling from local.
      * @param mlFlowManager mlFlowManager instance that manages interactions with Mlflow
@@ -584,50 +720,81 @@ public class CathLabSim extends SimState {
         return addonCaseBucket;
     }
 
-    /** Pull metrics from all runs performed under a parentRunID and aggregate metrics into averages.
-     * Also logs identifying params for the parent run.
+    /** Names of the iteration metrics aggregated on the parent run
+     * @param verbose boolean whether the full suite of metrics is saved, or only a smaller set
+     * @return list of metric names
+     */
+    private static List<String> aggregateMetricNames(boolean verbose) {
+        List<String> aggMetrics = new ArrayList<>();
+        if (verbose) {
+            aggMetrics.addAll(Arrays.asList("Days", "Total_High_pAE_Risk_Lab_Minutes",
+                    "Total_Medium_pAE_Risk_Lab_Minutes", "Total_Low_pAE_Risk_Lab_Minutes",
+                    "Total_High_pICU_Risk_Lab_Minutes", "Total_Medium_pICU_Risk_Lab_Minutes",
+                    "Total_Low_pICU_Risk_Lab_Minutes", "MED_AE_Level_Count", "HIGH_AE_Level_Count",
+                    "Total_AE_Count", "Days_With_Over_1_AEs_Count", "Days_With_Over_1_New_ICU_Admissions_Count",
+                    "Bumped_Case_Count", "All_Cases_Sent_to_ICU_Count", "New_Cases_Sent_to_ICU_Count",
+                    "Mult_Cases_Sent_to_ICU_Day_Count", "Weekdays_With_After_EOD_Count",
+                    "After_Mondays_Count", "After_Tuesdays_Count", "After_Wednesdays_Count", "After_Thursdays_Count",
+                    "After_Fridays_Count", "Addon_Time_After_Count", "Elective_Time_After_Count",
+                    "Scheduled_Cases_Started_After_EOD_Count", "EMERGENCY_Addon_Cases_Started_After_EOD_Count",
+                    "URGENT_Addon_Cases_Started_After_EOD_Count", "NORMAL_Addon_Cases_Started_After_EOD_Count",
+                    "Total_Case_Count", "Total_Addon_Count", "Badly_Balanced_Weeks_Version_One_Count",
+                    "Badly_Balanced_Weeks_Version_Two_Count", "Badly_Balanced_Weeks_Version_TwoPointOne",
+                    "System_Avg_Daily_Cumulative_Time", "System_Avg_Daily_Time_After_EOD",
+                    "System_Avg_Daily_Time_After_EOD_No_Zeros", "Bad_Week_Criteria_Counter_Time_After_Over2",
+                    "Bad_Week_Criteria_Counter_Time_After_Over3",
+                    "Bad_Week_Criteria_Counter_Min_High_Over400", "Bad_Week_Criteria_Counter_Min_High_Over600",
+                    "Bad_Week_Criteria_Counter_Min_High_Over800", "Bad_Week_Criteria_Counter_Mult_ICU_Over0",
+                    "Bad_Week_Criteria_Counter_Mult_ICU_Over1", "Bad_Week_Criteria_Counter_Mult_ICU_Over2",
+                    "Bad_Week_Criteria_Counter_Early_End_Over0", "Bad_Week_Criteria_Counter_Early_End_Over1",
+                    "Bad_Week_Criteria_Counter_Early_End_Over2", "Bad_Week_Criteria_Counter_Start_After_Over0",
+                    "Bad_Week_Criteria_Counter_Start_After_Over1", "Bad_Week_Criteria_Counter_Start_After_Over2",
+                    "Bad_Week_Criteria_Counter_Start_And_Run_Hour_Over_0",
+                    "Bad_Week_Criteria_Counter_Start_And_Run_Hour_Over_1",
+                    "Bad_Week_Criteria_Counter_Start_And_Run_Hour_Over_2",
+                    "Bad_Week_Criteria_Counter_Ran_Half_Hour_Past_Over_1",
+                    "Bad_Week_Criteria_Counter_Ran_Half_Hour_Past_Over_2",
+                    "Bad_Week_Criteria_Counter_Ran_Hour_Past_Over_1",
+                    "Bad_Week_Criteria_Counter_Ran_Hour_Past_Over_2"
+            ));
+
+            // can't get labs without a CathLabSim model, which isn't created at this point
+            //      so this has to be hardcoded for now
+            for (String l : new ArrayList<>(List.of("A", "B", "C", "D"))) {
+                aggMetrics.add("Lab_" + l + "_Avg_Daily_Cumulative_Time");
+                aggMetrics.add("Lab_" + l + "_Avg_Daily_Time_After_EOD");
+                aggMetrics.add("After_Time_Lab_" + l + "_Mon_Count");
+                aggMetrics.add("After_Time_Lab_" + l + "_Tues_Count");
+                aggMetrics.add("After_Time_Lab_" + l + "_Wed_Count");
+                aggMetrics.add("After_Time_Lab_" + l + "_Thurs_Count");
+                aggMetrics.add("After_Time_Lab_" + l + "_Fri_Count");
+            }
+        } else {
+            aggMetrics.addAll(Arrays.asList("Total_High_pAE_Risk_Lab_Minutes",
+                    "Total_Medium_pAE_Risk_Lab_Minutes", "Total_Low_pAE_Risk_Lab_Minutes",
+                    "Total_High_pICU_Risk_Lab_Minutes", "Total_Medium_pICU_Risk_Lab_Minutes",
+                    "Total_Low_pICU_Risk_Lab_Minutes", "Total_AE_Count", "Bumped_Case_Count",
+                    "Weekdays_With_After_EOD_Count", "Total_Case_Count", "Total_Addon_Count",
+                    "System_Avg_Daily_Time_After_EOD", "New_Cases_Sent_to_ICU_Count"
+            ));
+        }
+        return aggMetrics;
+    }
+
+    /** Log the aggregate metrics of all iterations performed under the parent run, which the iterations recorded into
+     * the aggregator as they finished. Also logs identifying params for the parent run.
      * @param mlFlowManager MlFlowManager that holds information like client and runIds
-     * @param aggMetrics List of strings for which metrics to aggregate
+     * @param aggregator aggregator holding the summary metrics of the iterations
      * @param parentScheduleId identifies the schedule in scheduler experiment
+     * @param scheduleRunName name of the schedule being simulated
+     * @param folderName local folder for log saving
+     * @param extraDays how many days each simulation ran past the last scheduled elective case
+     * @param blueprint verified simulation blueprint built from the config file
      */
-    public static void logAggregate(MlFlowManager mlFlowManager, List<String> aggMetrics,
-                                    String parentScheduleId, String scheduleRunName) {
-        List<Metric> metricList = new ArrayList<>();
-        String filter = "tags.mlflow.parentRunId = '" + mlFlowManager.parentRunId + "'";
-        List<Service.Run>  mlflowRunResults = mlFlowManager.client.searchRuns(
-                new ArrayList<>(List.of(mlFlowManager.expId)), filter, ViewType.ACTIVE_ONLY, 1000).getItems();
-        for (String met: aggMetrics) {
-            List<Double> metList = mlflowRunResults.stream().map(
-                            r -> r.getData().getMetricsList().stream().filter(
-                                            m -> m.getKey().equals(met))
-                                    .toList().get(0).getValue())
-                    .toList();
-            double meanMet = metList.stream().mapToDouble(v -> v).average().orElse(0.0);
-            double sdMet = Metrics.findStdDev(metList);
-            double minMet = metList.stream().mapToDouble(v -> v).min().orElse(0.0);
-            double maxMet = metList.stream().mapToDouble(v -> v).max().orElse(0.0);
-            double medMet = findMedian(metList);
-            List<Double> sorted = metList.stream().mapToDouble(v -> v).sorted().boxed().toList();
-            int len = sorted.size();
-            double q1Met = len == 1 ? medMet : findMedian(sorted.subList(0, len/2));
-            double q3Met = len == 1 ? medMet : len % 2 == 1 ? findMedian(sorted.subList((len/2)+1, len)) :
-                    findMedian(sorted.subList(len/2, len));
-
-            metricList.add(Metric.newBuilder().setKey(met+"_Mean").setValue(meanMet)
-                    .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-            metricList.add(Metric.newBuilder().setKey(met+"_SD").setValue(sdMet)
-                    .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-            metricList.add(Metric.newBuilder().setKey(met + "_Min").setValue(minMet)
-                    .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-            metricList.add(Metric.newBuilder().setKey(met + "_Max").setValue(maxMet)
-                    .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-            metricList.add(Metric.newBuilder().setKey(met+"_Median").setValue(medMet)
-                    .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-            metricList.add(Metric.newBuilder().setKey(met+"_Q1").setValue(q1Met)
-                    .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-            metricList.add(Metric.newBuilder().setKey(met+"_Q3").setValue(q3Met)
-                    .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-        }
+    public static void logAggregate(MlFlowManager mlFlowManager, ReplicationAggregator aggregator,
+                                    String parentScheduleId, String scheduleRunName, String folderName,
+                                    int extraDays, SimulationBlueprint blueprint) {
+        List<Metric> metricList = aggregator.toMetrics();
 
         int total = metricList.size();
         int batchMax = 1000;
@@ -650,18 +817,16 @@ public class CathLabSim extends SimState {
             }
         }
 
-        List<String> paramList = new ArrayList<>(Arrays.asList("addon_bucket", "early_end_time", "end_time",
-                "extra_days", "log_folder", "push_cases", "start_date", "start_time"));
+        // the same params each iteration logged, the add-on bucket file is not logged on the parent run
         Map<String, String> params = new HashMap<>();
-        for (String pa : paramList) {
-            List<Param> paramVal = mlflowRunResults.get(0).getData().getParamsList().stream().filter(p ->
-                    p.getKey().equals(pa)).toList();
-            if (paramVal.size() > 0) {
-                params.put(pa, paramVal.get(0).getValue());
-            } else {
-                params.put(pa, null);
-            }
-        }
+        params.put("addon_bucket", null);
+        params.put("early_end_time", String.valueOf(blueprint.earlyEndTime));
+        params.put("end_time", String.valueOf(blueprint.endTime));
+        params.put("extra_days", String.valueOf(extraDays));
+        params.put("log_folder", folderName);
+        params.put("push_cases", String.valueOf(blueprint.pushCases));
+        params.put("start_date", String.valueOf(blueprint.startDate));
+        params.put("start_time", String.valueOf(blueprint.startTime));
         params.put("schedule_run_id", parentScheduleId);
         params.put("schedule", scheduleRunName == null ? getScheduleRunName(mlFlowManager,
                 parentScheduleId) : scheduleRunName);
@@ -669,22 +834,7 @@ public class CathLabSim extends SimState {
         Metrics.logAllParams(mlFlowManager.client, true, params.get("addon_bucket"), params.get("early_end_time"),
                 params.get("end_time"), params.get("extra_days"), params.get("log_folder"), params.get("push_cases"),
                 mlFlowManager.parentRunId, params.get("schedule_run_id"), params.get("schedule"),
-                String.valueOf(mlflowRunResults.size()), params.get("start_date"), params.get("start_time"));
-    }
-
-    /** Find the median for a list of values.
-     * @param valueList list of values for which to compute the median.
-     * @return double for the median of the values
-     */
-    public static Double findMedian(List<Double> valueList) {
-        double median;
-        if (valueList.size() % 2 == 1) {
-            median = valueList.stream().mapToDouble(v -> v).sorted().toArray()[valueList.size() / 2];
-        } else {
-            median = (valueList.stream().mapToDouble(v -> v).sorted().toArray()[valueList.size() / 2] +
-                    valueList.stream().mapToDouble(v -> v).sorted().toArray()[(valueList.size() / 2) - 1]) / 2;
-        }
-        return median;
+                String.valueOf(aggregator.getCount()), params.get("start_date"), params.get("start_time"));
     }
 
     @Override
@@ -709,12 +859,17 @@ public class CathLabSim extends SimState {
      */
     public void writeLogs(boolean verbose) {
         try {
-            if (verbose) {
+            if (verbose && logWriter != null) {
+                metrics.writeToColumnar(logWriter);
+            } else if (verbose) {
                 metrics.writeToCSV();
                 List<String> artifs = Arrays.asList("days", "patientLog", "patients");
                 metrics.writeArifacts(artifs);
             }
-            metrics.writeToMlflow(verbose);
+            List<Metric> metricList = metrics.writeToMlflow(verbose);
+            if (aggregator != null) {
+                aggregator.record(metricList);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -809,69 +964,87 @@ public class CathLabSim extends SimState {
             });
     }
 
+    /** Create the ledger Event for a steppable, capturing its provenance according to the provenance mode.
+     * @param event the steppable to be put on the schedule
+     * @param time the scheduled time
+     * @param tag compile-time tag of the call site, used with Provenance.CALL_SITE
+     * @return the Event
+     */
+    private Event newEvent(Steppable event, double time, String tag) {
+        return switch (provenance) {
+            case OFF -> new Event(event, time, (String) null);
+            case CALL_SITE -> new Event(event, time, tag);
+            case STACK -> new Event(event, time, Event.callerFrame(CathLabSim.class));
+        };
+    }
+
     /** Overriding sim.engine.Schedule.scheduleOnce with additional logging
+     * @param tag compile-time tag of the call site, recorded as the event's provenance with Provenance.CALL_SITE
      * @see sim.engine.Schedule#scheduleOnce(double, Steppable)
      */
-    public void scheduleOnce(double time, Steppable event) {
-        LOGGER.info(5, "Scheduling {} @ {} ({})", event.toString(), time, LoggerHelper.toTime(time));
-        String scheduledBy = String.format("%s.%s (%d)", LOGGER.getClassMethodStack(3, false));
-        Event evt = new Event(event, time, scheduledBy);
-        if (eventQueue.contains(evt)) {
+    public void scheduleOnce(double time, Steppable event, String tag) {
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(5, "Scheduling {} @ {} ({})", event.toString(), time, LoggerHelper.toTime(time));
+        }
+        Event evt = newEvent(event, time, tag);
+        if (!eventLedger.add(evt)) {
             LOGGER.info("*** Event Queue already contains this event {}! ***", evt);
         }
         else {
-            eventQueue.add(evt);
             this.schedule.scheduleOnce(time, event);
         }
     }
 
     /** Overriding sim.engine.Schedule.scheduleOnce with additional logging
+     * @param tag compile-time tag of the call site, recorded as the event's provenance with Provenance.CALL_SITE
      * @see sim.engine.Schedule#scheduleOnce(Steppable)
      */
-    public void scheduleOnce(double time, Steppable event, boolean printStack) {
-        LOGGER.info(5, "Scheduling {} @ {} ({})", event.toString(), time, LoggerHelper.toTime(time));
-        String scheduledBy = String.format("%s.%s (%d)", LOGGER.getClassMethodStack(3, false));
-        Event evt = new Event(event, time, scheduledBy);
-        if (eventQueue.contains(evt)) {
+    public void scheduleOnce(double time, Steppable event, String tag, boolean printStack) {
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(5, "Scheduling {} @ {} ({})", event.toString(), time, LoggerHelper.toTime(time));
+        }
+        Event evt = newEvent(event, time, tag);
+        if (!eventLedger.add(evt)) {
             LOGGER.info("*** Event Queue already contains this event {}! ***", evt);
         }
         else {
-            eventQueue.add(evt);
             this.schedule.scheduleOnce(time, event);
         }
         if (printStack) LOGGER.stack();
     }
 
     /** Overriding sim.engine.Schedule.scheduleOnce with additional logging
+     * @param tag compile-time tag of the call site, recorded as the event's provenance with Provenance.CALL_SITE
      * @see sim.engine.Schedule#scheduleOnce(Steppable)
      */
-    public void scheduleOnce(Steppable event) {
-        LOGGER.info(5, "Scheduling {} in +1.0 @ {} ({})", event.toString(),
-                this.schedule.getTime() + 1.0, LoggerHelper.toTime(this.schedule.getTime() + 1.0));
-        String scheduledBy = String.format("%s.%s (%d)", LOGGER.getClassMethodStack(3, false));
-        Event evt = new Event(event, this.schedule.getTime() + 1.0, scheduledBy);
-        if (eventQueue.contains(evt)) {
+    public void scheduleOnce(Steppable event, String tag) {
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(5, "Scheduling {} in +1.0 @ {} ({})", event.toString(),
+                    this.schedule.getTime() + 1.0, LoggerHelper.toTime(this.schedule.getTime() + 1.0));
+        }
+        Event evt = newEvent(event, this.schedule.getTime() + 1.0, tag);
+        if (!eventLedger.add(evt)) {
             LOGGER.info("*** Event Queue already contains this event {}! ***", evt);
         }
         else {
-            eventQueue.add(evt);
             this.schedule.scheduleOnce(event);
         }
     }
 
-    /** Overriding sim.engine.Schedule.scheduleOnce with additional logging
+    /** Overriding sim.engine.Schedule.scheduleOnceIn with additional logging
+     * @param tag compile-time tag of the call site, recorded as the event's provenance with Provenance.CALL_SITE
      * @see sim.engine.Schedule#scheduleOnceIn(double, Steppable)
      */
-    public void scheduleOnceIn(double delta, Steppable event) {
-        LOGGER.info(5, "Scheduling {} in {} @ {} ({})", event.toString(), delta,
-                this.schedule.getTime() + delta, LoggerHelper.toTime(this.schedule.getTime() + delta));
-        String scheduledBy = String.format("%s.%s (%d)", LOGGER.getClassMethodStack(3, false));
-        Event evt = new Event(event, this.schedule.getTime() + delta, scheduledBy);
-        if (eventQueue.contains(evt)) {
+    public void scheduleOnceIn(double delta, Steppable event, String tag) {
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(5, "Scheduling {} in {} @ {} ({})", event.toString(), delta,
+                    this.schedule.getTime() + delta, LoggerHelper.toTime(this.schedule.getTime() + delta));
+        }
+        Event evt = newEvent(event, this.schedule.getTime() + delta, tag);
+        if (!eventLedger.add(evt)) {
             LOGGER.info("*** Event Queue already contains this event {}! ***", evt);
         }
         else {
-            eventQueue.add(evt);
             this.schedule.scheduleOnceIn(delta, event);
         }
     }
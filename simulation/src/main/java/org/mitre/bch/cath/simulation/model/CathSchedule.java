@@ -12,7 +12,10 @@ import sim.engine.SimState;
 import sim.engine.Steppable;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.time.*;
 
@@ -31,6 +34,19 @@ public class CathSchedule implements Steppable {
     /** List of all patients in the simulation */
     public final List<Patient> allPatients = new ArrayList<>();
 
+    /** Patients scheduled to each day, by lab, in the order of allPatients. Labs are keyed by identity, each lab is a
+     * single instance and Lab.hashCode builds a string */
+    private final Map<Integer, Map<Lab, LabDay>> labDays = new HashMap<>();
+
+    /** Add-on patients by the day they are observed, in the order of allPatients */
+    private final Map<Integer, List<Patient>> addonDays = new HashMap<>();
+
+    /** Last day with a scheduled (non add-on) case, null if there is none */
+    private Integer lastElectiveDay = null;
+
+    /** Risk and AE counters used by the push criteria */
+    public final DayRiskState dayRiskState;
+
     //===== Constructors ======//
     /** Constructor of the CathSchedule.
      * This method parses the schedule input file and creates a list of patients.
@@ -38,12 +54,26 @@ public class CathSchedule implements Steppable {
      * @param configSchedule the schedule input file (list of Config.Schedule objects)
      */
     public CathSchedule(CathLabSim cathLabSim, List<Config.Schedule> configSchedule){
-        for (Config.Schedule s: configSchedule){
-            allPatients.add(new Patient(cathLabSim, s.procedure, s.adverseScore, s.riskScore, s.durationScore,
-                    s.pICU, s.addon, s.priorLocation, s.lab, configSchedule.indexOf(s), s.day)); }
+        this.dayRiskState = new DayRiskState(maxRecencyWindow(cathLabSim));
+        for (int i = 0; i < configSchedule.size(); i++){
+            Config.Schedule s = configSchedule.get(i);
+            addPatient(new Patient(cathLabSim, s.procedure, s.adverseScore, s.riskScore, s.durationScore,
+                    s.pICU, s.addon, s.priorLocation, s.lab, i, s.day)); }
     }
 
     //===== Methods ======//
+    /** Get the largest recency window (hourRecency) of the push criteria, the start times of cases that started
+     * before it are never needed again.
+     * @param cathLabSim the CathLabSim instance of the simulation, with its push criteria set
+     * @return the largest window in minutes, 0 if no push criterion has a recency window
+     */
+    private static double maxRecencyWindow(CathLabSim cathLabSim) {
+        return cathLabSim.pushCriteriaValues.values().stream()
+                .filter(values -> values.containsKey("hourRecency"))
+                .mapToDouble(values -> values.get("hourRecency") * 60)
+                .max().orElse(0);
+    }
+
     /** Step function for the CathSchedule. Only called by MASON.
      * This step function is responsible for iterating schedules across days.
      * @param simState the CathLabSim instance of the simulation
@@ -63,6 +93,7 @@ public class CathSchedule implements Steppable {
         model.metrics.addDayRecord(day, model);
 
         DayOfWeek weekday = model.startDate.plusDays(day).getDayOfWeek();
+        cathDistribution.forDay(day); // the add-on count and selection of the day
         int addonCount = (int) cathDistribution.cAddon.get(weekday.getValue() - 1).nextDouble();
         LOGGER.info("day of week is: {} - {}", weekday.getValue() - 1, weekday.getValue());
         LOGGER.info("day {}: number of add-on patients is: {}", day, addonCount);
@@ -74,29 +105,33 @@ public class CathSchedule implements Steppable {
             Config.Schedule c = model.addonBucket.get(addonIndex);
             // change schedule day entry to current day and add to schedule
             int patientIndex = allPatients.size();
-            allPatients.add(new Patient(model, c.procedure, c.adverseScore, c.riskScore, c.durationScore, c.pICU,
+            addPatient(new Patient(model, c.procedure, c.adverseScore, c.riskScore, c.durationScore, c.pICU,
                     c.addon, c.priorLocation, c.lab, patientIndex, day));
         }
 
         // get patients of each day, put in labs, assign start time, put lab on schedule
-        List<Patient> dayPatient = allPatients.stream().filter(p -> p.day != null && p.day == day).toList();
-        List<Patient> dayAddonPatient = allPatients.stream().filter(p -> p.addon && p.addonDay == day).toList();
+        List<Patient> dayAddonPatient = addonDays.getOrDefault(day, List.of());
 
-        LOGGER.info("day {} patients are: {}, in labs {}", day, dayPatient.stream().map(p->p.pid).toList(),
-                dayPatient.stream().map(p->p.lab.name).toList());
-        LOGGER.info("day {} add-on patients are: {}, labs to be determined", day,
-                dayAddonPatient.stream().map(p -> p.pid).toList());
+        LOGGER.info("day {} patients are: {}, in labs {}", () -> day,
+                () -> entityManager.labMap.values().stream().flatMap(l -> getLabDayPatients(day, l).stream())
+                        .map(p -> p.pid).toList(),
+                () -> entityManager.labMap.values().stream().flatMap(l -> getLabDayPatients(day, l).stream())
+                        .map(p -> p.lab.name).toList());
+        LOGGER.info("day {} add-on patients are: {}, labs to be determined", () -> day,
+                () -> dayAddonPatient.stream().map(p -> p.pid).toList());
 
         for (Patient p: dayAddonPatient) {
+            cathDistribution.forPatient(p.pid);
             p.addonObserved = cathDistribution.tAddonObserved.nextDouble() + day * MIN_PER_DAY;
-           model.scheduleOnce(p.addonObserved, p);
+           model.scheduleOnce(p.addonObserved, p, "CathSchedule.step");
         }
         LOGGER.info("day {} add-on patients are: {}, to be observed at {}",
-                day, dayAddonPatient.stream().map(p->p.pid).toList(),
-                dayAddonPatient.stream().map(p->p.addonObserved).toList());
+                () -> day, () -> dayAddonPatient.stream().map(p->p.pid).toList(),
+                () -> dayAddonPatient.stream().map(p->p.addonObserved).toList());
         for (Lab l: entityManager.labMap.values()) {
-            List<Patient> labPatient = dayPatient.stream().filter(p -> p.lab == l).toList();
+            List<Patient> labPatient = List.copyOf(getLabDayPatients(day, l));
             if (!labPatient.isEmpty()){ // have patients in lab l on the new day
+                cathDistribution.forLabDay(l.id, day); // the start time of the lab's day
                 // check if another case still to start from prior day or if current case still going.
                 //      If so, set originaltStart as temp starting time
                 if (l.hasNextPatient()) { // still another case(s) to start from prior day
@@ -107,7 +142,7 @@ public class CathSchedule implements Steppable {
                                     "from prior day which has not started. Setting tentative tStart " +
                                     "for new day's first case ({}) as {}",
                             l.name, l.getNextPatient().pid, labPatient.get(0).pid, labPatient.get(0).originaltStart);
-                    model.scheduleOnce(labPatient.get(0).originaltStart, labPatient.get(0));
+                    model.scheduleOnce(labPatient.get(0).originaltStart, labPatient.get(0), "CathSchedule.step");
                 } else if (l.currentPatient != null) {
                     // no more cases, but current case ran past midnight and is not done yet
                     double tstart = cathDistribution.tStart.get(l.id).nextDouble();
@@ -116,29 +151,28 @@ public class CathSchedule implements Steppable {
                     LOGGER.info("Warning -- Day stars, but current case ({}) in {} running past midnight and " +
                                     "not finished. Setting tentative tStart for new day's first case ({}) as {}",
                             l.currentPatient.pid, l.name, labPatient.get(0).pid, labPatient.get(0).originaltStart);
-                    model.scheduleOnce(labPatient.get(0).originaltStart, labPatient.get(0));
+                    model.scheduleOnce(labPatient.get(0).originaltStart, labPatient.get(0), "CathSchedule.step");
                 } else { // set tStart for first new day case in the lab
                     double tstart = cathDistribution.tStart.get(l.id).nextDouble();
                     labPatient.get(0).tStart = day * MIN_PER_DAY + tstart;
                     LOGGER.info("Setting patient ({}) in {} to start @ {} on day {} with tstart of {}",
                             labPatient.get(0).pid, labPatient.get(0).lab.name, labPatient.get(0).tStart, day, tstart);
-                    model.scheduleOnce(labPatient.get(0).tStart, labPatient.get(0));
+                    model.scheduleOnce(labPatient.get(0).tStart, labPatient.get(0), "CathSchedule.step");
                 }
             }
             l.addPatientsToLab(labPatient);
-            model.scheduleOnce(l);
+            model.scheduleOnce(l, "CathSchedule.step");
             // also add lab to schedule at end of d to check on add-ons
-            model.scheduleOnce(day * MIN_PER_DAY + model.endTime, l);
+            model.scheduleOnce(day * MIN_PER_DAY + model.endTime, l, "CathSchedule.step");
             LOGGER.info("Scheduling {} start day @ {}", l.name, tnow + 1);
-            LOGGER.info("{} on day {} has patients: {}", l.name, day, labPatient.stream().map(p -> p.pid).toList());
+            LOGGER.info("{} on day {} has patients: {}", () -> l.name, () -> day,
+                    () -> labPatient.stream().map(p -> p.pid).toList());
         }
 
         // schedule cathSchedule in a day if we haven't scheduled the last patient
-        int lastDay = allPatients.stream().filter(p -> !p.addon)
-                .mapToInt(patient -> patient.day == null ? patient.addonDay : patient.day).max()
-                .orElseThrow(NoSuchElementException::new);
+        int lastDay = getLastElectiveDay();
         if (day < lastDay + model.extraDays) {
-            model.scheduleOnceIn(MIN_PER_DAY, this);
+            model.scheduleOnceIn(MIN_PER_DAY, this, "CathSchedule.step");
             LOGGER.info("Scheduling CathSchedule, @ {}", tnow + MIN_PER_DAY);
         }
     }
@@ -149,10 +183,107 @@ public class CathSchedule implements Steppable {
      * @return expected end time
      */
     public double getExpectedLabDayEnd(int day, Lab lab) {
-        return allPatients
-                .stream()
-                .filter(p -> p.day != null && p.lab != null && p.day == day && p.lab == lab)
-                .map(p -> p.tExpectedDuration)
-                .reduce(0.0, Double::sum);
+        LabDay labDay = labDays.getOrDefault(day, Map.of()).get(lab);
+        return labDay == null ? 0.0 : labDay.getExpectedDuration();
+    }
+
+    /** Add a new patient to the end of the schedule, and index it by its day and lab, or add-on day.
+     * @param patient the new patient
+     */
+    public void addPatient(Patient patient) {
+        allPatients.add(patient);
+        dayRiskState.patientAdded(patient);
+        if (patient.addon) {
+            addonDays.computeIfAbsent(patient.addonDay, d -> new ArrayList<>()).add(patient);
+        } else {
+            int day = patient.day == null ? patient.addonDay : patient.day;
+            lastElectiveDay = lastElectiveDay == null ? day : Math.max(lastElectiveDay, day);
+        }
+        if (patient.day != null && patient.lab != null) {
+            labDays.computeIfAbsent(patient.day, d -> new IdentityHashMap<>())
+                    .computeIfAbsent(patient.lab, l -> new LabDay()).add(patient, true);
+        }
+    }
+
+    /** Move a patient that has been assigned a new day and lab in the day and lab index. The patient becomes the last
+     * or first case of its new day and lab, matching its new place in allPatients.
+     * @param patient the patient, with its new day and lab already set
+     * @param oldDay the day the patient was scheduled to before, or null
+     * @param oldLab the lab the patient was assigned to before, or null
+     * @param last whether the patient becomes the last case of the day and lab, otherwise the first
+     */
+    public void reassignPatient(Patient patient, Integer oldDay, Lab oldLab, boolean last) {
+        dayRiskState.patientMoved(patient, oldDay);
+        if (oldDay != null && oldLab != null) {
+            LabDay oldLabDay = labDays.getOrDefault(oldDay, Map.of()).get(oldLab);
+            if (oldLabDay != null) {
+                oldLabDay.remove(patient);
+            }
+        }
+        if (patient.day != null && patient.lab != null) {
+            labDays.computeIfAbsent(patient.day, d -> new IdentityHashMap<>())
+                    .computeIfAbsent(patient.lab, l -> new LabDay()).add(patient, last);
+        }
+        if (!patient.addon) {
+            lastElectiveDay = allPatients.stream().filter(p -> !p.addon)
+                    .mapToInt(p -> p.day == null ? p.addonDay : p.day).boxed().max(Integer::compare).orElse(null);
+        }
+    }
+
+    /** Get the patients scheduled to a day in a lab.
+     * @param day day
+     * @param lab lab
+     * @return the patients, in the order of allPatients. Must not be modified.
+     */
+    public List<Patient> getLabDayPatients(int day, Lab lab) {
+        LabDay labDay = labDays.getOrDefault(day, Map.of()).get(lab);
+        return labDay == null ? List.of() : labDay.patients;
+    }
+
+    /** Get the last day with a scheduled (non add-on) case.
+     * @return last day with a scheduled case
+     * @throws NoSuchElementException if there are no scheduled cases
+     */
+    public int getLastElectiveDay() {
+        if (lastElectiveDay == null) {
+            throw new NoSuchElementException();
+        }
+        return lastElectiveDay;
+    }
+
+    //===== SubClass ======//
+    /** Patients scheduled to a day in a lab, with their summed expected duration */
+    private static class LabDay {
+        /** patients, in the order of allPatients */
+        final List<Patient> patients = new ArrayList<>();
+        /** summed expected duration of the patients, null if it needs to be recomputed */
+        Double expectedDuration = 0.0;
+
+        /** Add a patient
+         * @param patient the patient
+         * @param last whether to add it as the last patient, otherwise the first
+         */
+        void add(Patient patient, boolean last) {
+            patients.add(last ? patients.size() : 0, patient);
+            expectedDuration = null;
+        }
+
+        /** Remove a patient
+         * @param patient the patient
+         */
+        void remove(Patient patient) {
+            patients.remove(patient);
+            expectedDuration = null;
+        }
+
+        /** Get the summed expected duration, summed in order so it matches summing over allPatients
+         * @return summed expected duration
+         */
+        double getExpectedDuration() {
+            if (expectedDuration == null) {
+                expectedDuration = patients.stream().map(p -> p.tExpectedDuration).reduce(0.0, Double::sum);
+            }
+            return expectedDuration;
+        }
     }
 }
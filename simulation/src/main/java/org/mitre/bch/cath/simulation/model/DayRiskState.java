@@ -0,0 +1,255 @@
+package org.mitre.bch.cath.simulation.model;
+
+import org.mitre.bch.cath.simulation.entity.Patient;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Day Risk State class
+ * Live counters of the risk and adverse event (AE) quantities used by the push criteria, updated as patients are
+ * scheduled, start, have an AE, and change status, so the push criteria don't need to scan all patients.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public class DayRiskState {
+    //===== Attributes ======//
+    /** Counters of the patients scheduled to each day */
+    private final Map<Integer, DayCounts> days = new HashMap<>();
+
+    /** Number of patients in a case (status DURING) that had an AE, by AE level */
+    private final Map<Patient.AELevel, Integer> activeAE = new EnumMap<>(Patient.AELevel.class);
+
+    /** Start times of the started cases, by risk level, within the largest window */
+    private final Map<Patient.RiskLevel, StartLog> starts = new EnumMap<>(Patient.RiskLevel.class);
+
+    /** Largest window of getRecentStartCount, in minutes, older start times are dropped */
+    private final double maxWindow;
+
+    //===== Constructors ======//
+    /** Constructor for DayRiskState, with no patients, keeping every start time */
+    public DayRiskState() {
+        this(Double.POSITIVE_INFINITY);
+    }
+
+    /** Constructor for DayRiskState, with no patients
+     * @param maxWindow largest window of getRecentStartCount, in minutes
+     */
+    public DayRiskState(double maxWindow) {
+        this.maxWindow = maxWindow;
+        for (Patient.AELevel level : Patient.AELevel.values()) {
+            activeAE.put(level, 0);
+        }
+        for (Patient.RiskLevel level : Patient.RiskLevel.values()) {
+            starts.put(level, new StartLog());
+        }
+    }
+
+    //===== Methods ======//
+    /** Record a new patient
+     * @param patient the patient
+     */
+    public void patientAdded(Patient patient) {
+        count(patient, patient.day, 1);
+    }
+
+    /** Record a patient moved to another day
+     * @param patient the patient, with its new day already set
+     * @param oldDay the day the patient was scheduled to before, or null
+     */
+    public void patientMoved(Patient patient, Integer oldDay) {
+        count(patient, oldDay, -1);
+        count(patient, patient.day, 1);
+    }
+
+    /** Record the start of a case
+     * @param patient the patient, with its start time set
+     */
+    public void caseStarted(Patient patient) {
+        starts.get(patient.riskLevel).add(patient.tStart);
+    }
+
+    /** Record an AE, after the patient's AE level is set
+     * @param patient the patient
+     */
+    public void aeObserved(Patient patient) {
+        if (patient.day != null) {
+            days.computeIfAbsent(patient.day, d -> new DayCounts()).add(patient.aeLevel, 1);
+        }
+        if (patient.status == Patient.Status.DURING) {
+            activeAE.merge(patient.aeLevel, 1, Integer::sum);
+        }
+    }
+
+    /** Record a change of a patient's status, after the status is set
+     * @param patient the patient
+     * @param oldStatus the status before
+     */
+    public void statusChanged(Patient patient, Patient.Status oldStatus) {
+        if (patient.aeLevel == null || oldStatus == patient.status) {
+            return;
+        }
+        if (oldStatus == Patient.Status.DURING) {
+            activeAE.merge(patient.aeLevel, -1, Integer::sum);
+        } else if (patient.status == Patient.Status.DURING) {
+            activeAE.merge(patient.aeLevel, 1, Integer::sum);
+        }
+    }
+
+    /** Get the number of patients scheduled to a day with a risk level
+     * @param day day
+     * @param level risk level
+     * @return number of patients
+     */
+    public int getRiskCount(int day, Patient.RiskLevel level) {
+        DayCounts counts = days.get(day);
+        return counts == null ? 0 : counts.risk[level.ordinal()];
+    }
+
+    /** Get the number of patients scheduled to a day that had an AE of a level
+     * @param day day
+     * @param level AE level
+     * @return number of patients
+     */
+    public int getAECount(int day, Patient.AELevel level) {
+        DayCounts counts = days.get(day);
+        return counts == null ? 0 : counts.ae[level.ordinal()];
+    }
+
+    /** Get the number of patients in a case (status DURING) that had an AE of a level
+     * @param level AE level
+     * @return number of patients
+     */
+    public int getActiveAECount(Patient.AELevel level) {
+        return activeAE.get(level);
+    }
+
+    /** Get the number of cases of a risk level started within a time window before now. Start times older than the
+     * largest window are dropped, so the current time must not go backwards between calls.
+     * @param level risk level
+     * @param tnow current time
+     * @param window length of the window in minutes, at most the largest window
+     * @return number of cases with tnow - tStart <= window
+     * @throws IllegalArgumentException if the window is larger than the largest window
+     */
+    public int getRecentStartCount(Patient.RiskLevel level, double tnow, double window) {
+        if (window > maxWindow) {
+            throw new IllegalArgumentException(String.format("Window %f is larger than the largest window %f",
+                    window, maxWindow));
+        }
+        StartLog log = starts.get(level);
+        log.dropOutside(tnow, maxWindow);
+        return log.countSince(tnow, window);
+    }
+
+    /** Add a patient's risk and AE level to the counters of a day
+     * @param patient the patient
+     * @param day the day, nothing is counted if null
+     * @param delta 1 to add, -1 to remove
+     */
+    private void count(Patient patient, Integer day, int delta) {
+        if (day == null) {
+            return;
+        }
+        DayCounts counts = days.computeIfAbsent(day, d -> new DayCounts());
+        counts.risk[patient.riskLevel.ordinal()] += delta;
+        if (patient.aeLevel != null) {
+            counts.add(patient.aeLevel, delta);
+        }
+    }
+
+    //===== SubClasses ======//
+    /** Counters of the patients scheduled to a day */
+    private static class DayCounts {
+        /** number of patients by risk level */
+        final int[] risk = new int[Patient.RiskLevel.values().length];
+        /** number of patients that had an AE, by AE level */
+        final int[] ae = new int[Patient.AELevel.values().length];
+
+        /** Add to the AE counter of a level
+         * @param level AE level
+         * @param delta amount to add
+         */
+        void add(Patient.AELevel level, int delta) {
+            ae[level.ordinal()] += delta;
+        }
+    }
+
+    /** Start times of cases, kept sorted, from which the ones that fell out of the largest window are dropped */
+    private static class StartLog {
+        /** start times, sorted from head to n */
+        double[] times = new double[16];
+        /** index of the first start time kept, the ones before it were dropped */
+        int head = 0;
+        /** index after the last start time */
+        int n = 0;
+
+        /** Add a start time. Cases start in time order, so this is nearly always an append.
+         * @param t start time
+         */
+        void add(double t) {
+            if (n == times.length) {
+                if (head >= n / 2) { // reuse the space of the dropped start times
+                    System.arraycopy(times, head, times, 0, n - head);
+                    n -= head;
+                    head = 0;
+                } else {
+                    times = Arrays.copyOf(times, 2 * n);
+                }
+            }
+            int i = n;
+            while (i > head && times[i - 1] > t) {
+                times[i] = times[i - 1];
+                i--;
+            }
+            times[i] = t;
+            n++;
+        }
+
+        /** Drop the start times t with tnow - t > window, which stay out of the window as time goes on
+         * @param tnow current time
+         * @param window length of the largest window
+         */
+        void dropOutside(double tnow, double window) {
+            while (head < n && tnow - times[head] > window) {
+                head++;
+            }
+            if (head == n) {
+                head = 0;
+                n = 0;
+            }
+        }
+
+        /** Count the start times t with t <= tnow and tnow - t <= window
+         * @param tnow current time
+         * @param window length of the window
+         * @return number of start times
+         */
+        int countSince(double tnow, double window) {
+            // first index with tnow - t <= window, which holds from there on as the times are sorted
+            int lo = head;
+            int hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (tnow - times[mid] <= window) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            int from = lo;
+            // last index with t <= tnow
+            hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] <= tnow) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo - from;
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package org.mitre.bch.cath.simulation.utils;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import org.mitre.bch.cath.simulation.distributions.*;
 import org.mitre.bch.cath.simulation.model.CathSchedule;
 import org.slf4j.Logger;
@@ -10,13 +7,11 @@ import org.slf4j.LoggerFactory;
 import smile.stat.distribution.GammaDistribution;
 import smile.stat.distribution.LogNormalDistribution;
 
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static org.mitre.bch.cath.simulation.utils.FileHandler.fileToString;
-
 /** Cath Distribution class
  * Stores the various probability distributions used in the simulation
  *
@@ -34,6 +29,8 @@ public final class CathDistribution {
     public Distribution tTurnover;
     /** Probability distributions for case time */
     public TwoWayMap<Integer, String, Distribution> tCase; // function of durationScore, step
+    /** Probability distributions for case time, by durationScore and step ordinal of the catalog, null where none */
+    public Distribution[][] tCaseTable;
     /** Distribution for Rescue time */
     public Distribution tRescue;
     /** Distribution for Addon count time */
@@ -55,148 +52,195 @@ public final class CathDistribution {
     /** Random number generator for ICU logic */
     public RandomNumberGenerator ICURandom;
 
-    private static final Gson gson = new Gson();
+    /** Shared parameters of the distributions */
+    public final DistributionCatalog catalog;
+
+    /** How the distributions draw their samples */
+    public final Sampling sampling;
+
+    /** Whether the case time, start time, turnover time and add-on distributions are presampled in blocks */
+    public final boolean presample;
+
+    /** How the random number streams are created */
+    public final RandomStreams streams;
+
+    /** Streams drawn from for a patient, switched to the patient's substream in the common random numbers mode */
+    private final List<SplittableRandomNumberGenerator> patientStreams = new ArrayList<>();
+
+    /** Streams drawn from for a day, switched to the day's substream in the common random numbers mode */
+    private final List<SplittableRandomNumberGenerator> dayStreams = new ArrayList<>();
+
+    /** Streams drawn from for a lab and day, switched to their substream in the common random numbers mode */
+    private final List<SplittableRandomNumberGenerator> labDayStreams = new ArrayList<>();
 
     //===== Constructors ======//
 
     /**
-     * Constructor for CathDistribution using a random number generator seed
+     * Constructor for CathDistribution using a random number generator seed and the shared DistributionCatalog
      * @param seed random number generator seed
+     * @param addonBucket add-on cases to pull from for arriving add-ons
      */
     public CathDistribution(int seed, List<Config.Schedule> addonBucket) {
+        this(seed, addonBucket, DistributionCatalog.getInstance(), Sampling.STANDARD, false,
+                RandomStreams.SEEDED);
+    }
+
+    /**
+     * Constructor for CathDistribution using a random number generator seed and the shared DistributionCatalog
+     * @param seed random number generator seed
+     * @param addonBucket add-on cases to pull from for arriving add-ons
+     * @param sampling how the distributions draw their samples
+     * @param presample whether the frequently sampled distributions are presampled in blocks
+     * @param streams how the random number streams are created
+     */
+    public CathDistribution(int seed, List<Config.Schedule> addonBucket, Sampling sampling, boolean presample,
+                            RandomStreams streams) {
+        this(seed, addonBucket, DistributionCatalog.getInstance(), sampling, presample, streams);
+    }
+
+    /**
+     * Constructor for CathDistribution using a random number generator seed
+     * @param seed random number generator seed
+     * @param addonBucket add-on cases to pull from for arriving add-ons
+     * @param catalog shared parameters of the distributions
+     * @param sampling how the distributions draw their samples
+     * @param presample whether the frequently sampled distributions are presampled in blocks
+     * @param streams how the random number streams are created
+     */
+    public CathDistribution(int seed, List<Config.Schedule> addonBucket, DistributionCatalog catalog,
+                            Sampling sampling, boolean presample, RandomStreams streams) {
         this.seed = seed;
-        this.UrgencyRandom = new RandomNumberGenerator(seed);
-        this.AERandom = new RandomNumberGenerator(seed);
+        this.catalog = catalog;
+        this.sampling = sampling;
+        this.streams = streams;
+        if (presample && streams == RandomStreams.COMMON) {
+            // a presampled block would mix the substreams of different patients and days
+            SLOGGER.warn("Presampling is not used with common random numbers");
+        }
+        this.presample = presample && streams != RandomStreams.COMMON;
+        this.UrgencyRandom = stream("urgency", patientStreams);
+        this.AERandom = stream("ae", patientStreams);
 
         this.addonBucket = addonBucket;
-        this.ICURandom = new RandomNumberGenerator(seed);
+        this.ICURandom = stream("icu", patientStreams);
     }
     //===== Methods =====//
 
     /**
-     * Read probability distribution config files to populate the Distribution objects
+     * Bind the probability distributions of the shared DistributionCatalog to the random number generators of
+     * this iteration, populating the Distribution objects
      */
     public void populateDistributions() {
-        try {
-            /* prob_ae */
-            JsonArray pae = gson.fromJson(fileToString("prob_dist/p_ae.json"), JsonArray.class);
-
-            pAE = new ThreeWayMap<>();
-            for (JsonElement p: pae) {
-                int proc = p.getAsJsonObject().get("procedure").getAsInt();
-                int adverseScore = p.getAsJsonObject().get("adverseScore").getAsInt();
-                String step = p.getAsJsonObject().get("step").getAsString();
-                float prob = p.getAsJsonObject().get("prob").getAsFloat();
-                pAE.set(proc, adverseScore, step, prob);
-            }
+        /* prob_ae */
+        pAE = catalog.getPAE();
 
-            /* time_case */
-            DistributionParameters[] tCaseJson = gson.fromJson(fileToString("prob_dist/time_case.json"), DistributionParameters[].class);
-            tCase = new TwoWayMap<>();
-            RandomNumberGenerator tCaseRandom = new RandomNumberGenerator(seed);
-            for (DistributionParameters p: tCaseJson) {
-                int durationScore = ((Double) p.segment.get("durationScore")).intValue();
-                String step = (String) p.segment.get("step");
-                Distribution dist = createDistribution(p.distribution, p.params, tCaseRandom);
-                tCase.set(durationScore, step, dist);
+        /* time_case */
+        tCase = new TwoWayMap<>();
+        tCaseTable = new Distribution[catalog.getDurationScoreCount()][catalog.getStepCount()];
+        RandomNumberGenerator tCaseRandom = stream("time_case", patientStreams);
+        for (DistributionCatalog.Segment s: catalog.getTCase()) {
+            Distribution dist = presampled(s.spec.bind(tCaseRandom, sampling));
+            tCase.set(s.key, s.step, dist);
+            if (s.key >= 0) { // in file order, so the last segment of a key wins, as in tCase
+                tCaseTable[s.key][catalog.getStepOrdinal(s.step)] = dist;
             }
+        }
 
-            /* time_start */
-            DistributionParameters[] tStartJson = gson.fromJson(fileToString("prob_dist/time_start.json"), DistributionParameters[].class);
-            tStart = new HashMap<>();
-            RandomNumberGenerator tStartRandom = new RandomNumberGenerator(seed);
-            for (DistributionParameters p: tStartJson) {
-                int lab = ((Double) p.segment.get("lab")).intValue();
-                Distribution dist = createDistribution(p.distribution, p.params, tStartRandom);
-                tStart.put(lab, dist);
-            }
+        /* time_start */
+        tStart = new HashMap<>();
+        RandomNumberGenerator tStartRandom = stream("time_start", labDayStreams);
+        for (DistributionCatalog.Segment s: catalog.getTStart()) {
+            tStart.put(s.key, presampled(s.spec.bind(tStartRandom, sampling)));
+        }
 
-            /* time_turnover */
-            DistributionParameters tTurnoverJson = gson.fromJson(fileToString("prob_dist/time_turnover.json"), DistributionParameters[].class)[0];
-            RandomNumberGenerator tTurnoverRandom = new RandomNumberGenerator(seed);
-            tTurnover = createDistribution(tTurnoverJson.distribution, tTurnoverJson.params, tTurnoverRandom);
-
-            /* prob_icu */
-            RandomNumberGenerator pICURandom = new RandomNumberGenerator(seed);
-            pICU = new Uniform(pICURandom);
-
-            /* time_rescue */
-            RandomNumberGenerator tRescueRandom = new RandomNumberGenerator(seed);
-            tRescue = new Uniform(60,120,tRescueRandom);
-
-            /* add on first observed time */
-            RandomNumberGenerator tAddonObservedRandom = new RandomNumberGenerator(seed);
-            tAddonObserved = new Uniform(0, CathSchedule.MIN_PER_DAY, tAddonObservedRandom);
-
-            /* addon_count */
-            DistributionParameters[] cAddonJson = gson.fromJson(fileToString("prob_dist/addon.json"), DistributionParameters[].class);
-            cAddon = new HashMap<>();
-            RandomNumberGenerator cAddonRandom = new RandomNumberGenerator(seed);
-            for (DistributionParameters p: cAddonJson) {
-                int weekday = ((Double) p.segment.get("weekday")).intValue();
-                Distribution dist = createDistribution(p.distribution, p.params, cAddonRandom);
-                cAddon.put(weekday, dist);
-            }
+        /* time_turnover */
+        RandomNumberGenerator tTurnoverRandom = stream("time_turnover", patientStreams);
+        tTurnover = presampled(catalog.getTTurnover().bind(tTurnoverRandom, sampling));
 
-            /* addon from bucket */
-            int bucketSize = this.addonBucket.size();
-            RandomNumberGenerator nAddonRandom = new RandomNumberGenerator(seed);
-            nAddon = new Uniform(0,bucketSize,nAddonRandom);
+        /* prob_icu */
+        RandomNumberGenerator pICURandom = stream("prob_icu", patientStreams);
+        pICU = new Uniform(pICURandom, sampling);
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        /* time_rescue */
+        RandomNumberGenerator tRescueRandom = stream("time_rescue", patientStreams);
+        tRescue = new Uniform(60,120,tRescueRandom,sampling);
+
+        /* add on first observed time */
+        RandomNumberGenerator tAddonObservedRandom = stream("addon_observed", patientStreams);
+        tAddonObserved = presampled(new Uniform(0, CathSchedule.MIN_PER_DAY, tAddonObservedRandom, sampling));
+
+        /* addon_count */
+        cAddon = new HashMap<>();
+        RandomNumberGenerator cAddonRandom = stream("addon_count", dayStreams);
+        for (DistributionCatalog.Segment s: catalog.getCAddon()) {
+            cAddon.put(s.key, presampled(s.spec.bind(cAddonRandom, sampling)));
         }
+
+        /* addon from bucket */
+        int bucketSize = this.addonBucket.size();
+        RandomNumberGenerator nAddonRandom = stream("addon_bucket", dayStreams);
+        nAddon = new Uniform(0,bucketSize,nAddonRandom,sampling);
     }
 
+    /**
+     * Switch the streams drawn from for a patient (urgency, AE, ICU, case, rescue, turnover and add-on observed times)
+     * to the patient's substreams, in the common random numbers mode. Called right before drawing for the patient.
+     * Patients are keyed by pid, their index in the schedule, then add-ons in the order they arrive, so paired
+     * schedules should list the same cases in the same order.
+     * @param pid the patient's pid
+     */
+    public void forPatient(int pid) {
+        for (SplittableRandomNumberGenerator s : patientStreams) {
+            s.select(pid);
+        }
+    }
 
     /**
-     * The createDistribution method takes a string array of the form [Distribution name, param1, param2, ...]
-     * and creates the appropriate distribution and returns it.
-     * @param name distribution name
-     * @param params distribution parameters
-     * @param random appropriate RandomNumberGenerator
-     * @return Distribution dist
+     * Switch the streams drawn from for a day (add-on count and add-on selection) to the day's substreams, in the
+     * common random numbers mode. Called right before drawing for the day.
+     * @param day the day
      */
-    private Distribution createDistribution(String name, Map<String, Float> params, RandomNumberGenerator random) {
-        Distribution dist;
-        switch(name) {
-            case "Gamma":
-                if (params.containsKey("param3")) {
-                    dist = new Gamma(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), Double.valueOf(params.get("param3")), random);
-                } else {
-                    dist = new Gamma(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random);
-                }
-                break;
-            case "Lognormal":
-                dist = new Lognormal(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random);
-                break;
-            case "Poisson":
-                dist = new Poisson(Double.valueOf(params.get("param1")), random);
-                break;
-            case "Beta":
-                if (params.containsKey("param3") && params.containsKey("param4")) {
-                    dist = new Beta(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), Double.valueOf(params.get("param3")), Double.valueOf(params.get("param4")), random);
-                } else {
-                    dist = new Beta(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random);
-                }
-                break;
-            case "Normal":
-                dist = new Normal(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random);
-                break;
-            case "Uniform":
-                if (params.containsKey("param1") && params.containsKey("param2")) {
-                    dist = new Uniform(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random);
-                } else {
-                    dist = new Uniform(random);
-                }
-                break;
-            default:
-                dist = new Uniform(random);
-        }//end switch
-
-        return dist;
-
-    }//end createDistribution
+    public void forDay(int day) {
+        for (SplittableRandomNumberGenerator s : dayStreams) {
+            s.select(day);
+        }
+    }
+
+    /**
+     * Switch the streams drawn from for a lab on a day (start time) to their substreams, in the common random numbers
+     * mode. Called right before drawing for the lab.
+     * @param lab the lab's id
+     * @param day the day
+     */
+    public void forLabDay(int lab, int day) {
+        for (SplittableRandomNumberGenerator s : labDayStreams) {
+            s.select(((long) lab << 32) | (day & 0xffffffffL));
+        }
+    }
+
+    /**
+     * Create a random number stream, registering it to be switched between substreams in the common random numbers
+     * mode
+     * @param name stream name
+     * @param group the streams it is switched with
+     * @return the stream
+     */
+    private RandomNumberGenerator stream(String name, List<SplittableRandomNumberGenerator> group) {
+        RandomNumberGenerator random = streams.create(seed, name);
+        if (streams == RandomStreams.COMMON) {
+            group.add((SplittableRandomNumberGenerator) random);
+        }
+        return random;
+    }
+
+    /**
+     * Wrap a distribution to be presampled in blocks, if presampling is on
+     * @param dist the distribution
+     * @return the presampled distribution, or dist itself
+     */
+    private Distribution presampled(Distribution dist) {
+        return presample ? new PresampledDistribution(dist) : dist;
+    }
 
     /**
      * Fit data to distribution
@@ -223,10 +267,4 @@ public final class CathDistribution {
     }
 
     //===== Getters/Setters ======//
-
-    private static class DistributionParameters {
-        public String distribution;
-        public Map<String, Float> params;
-        public Map<String, ?> segment;
-    }
 }
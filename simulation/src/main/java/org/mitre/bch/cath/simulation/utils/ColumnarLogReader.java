@@ -0,0 +1,296 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Columnar Log Reader class
+ * Reads the binary log files written by ColumnarLogWriter, and exports them to the csv files a run writes without
+ * them, one per log per seed, e.g. patients/patients_12.csv, so existing tools keep working.
+ * Run as a program to export a file: ColumnarLogReader &lt;file&gt; [folder], the folder defaulting to the file's.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public class ColumnarLogReader {
+    //===== Constructors ======//
+    private ColumnarLogReader() {}
+
+    //===== Methods ======//
+    /** Export a binary log file to csv files
+     *
+     * @param args the file, and optionally the folder to export to
+     * @throws IOException if the file can't be read or the csv files written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: ColumnarLogReader <file> [folder]");
+            System.exit(1);
+        }
+        Path file = Path.of(args[0]);
+        Path folder = args.length > 1 ? Path.of(args[1]) : file.toAbsolutePath().getParent();
+        exportCsv(file, folder);
+    }
+
+    /** Read every chunk of a file
+     *
+     * @param file the file
+     * @return chunks, in the order they were written
+     * @throws IOException if the file can't be read or is not a binary log file
+     */
+    public static List<Chunk> read(Path file) throws IOException {
+        return read(file, null);
+    }
+
+    /** Read the chunks of one log of a file, one per seed, skipping the other logs
+     *
+     * @param file the file
+     * @param log name of the log, e.g. patients, or null for all logs
+     * @return chunks, in the order they were written
+     * @throws IOException if the file can't be read or is not a binary log file
+     */
+    public static List<Chunk> read(Path file, String log) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        read(file, log, chunks::add);
+        return chunks;
+    }
+
+    /** Read the chunks of one log of a file one at a time, using their length prefix, so only one chunk is in memory
+     * at a time and the chunks of other logs are skipped without being read
+     *
+     * @param file the file
+     * @param log name of the log, e.g. patients, or null for all logs
+     * @param consumer called with each chunk, in the order they were written
+     * @throws IOException if the file can't be read or is not a binary log file, or the consumer fails
+     */
+    public static void read(Path file, String log, ChunkConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(ColumnarLogWriter.MAGIC.length);
+            if (!readFully(channel, magic) || !Arrays.equals(magic.array(), ColumnarLogWriter.MAGIC)) {
+                throw new IOException(file + " is not a columnar log file");
+            }
+            ByteBuffer prefix = ByteBuffer.allocate(Integer.BYTES);
+            while (readFully(channel, prefix.clear())) {
+                int length = prefix.getInt();
+                long end = channel.position() + length;
+                if (length < Integer.BYTES || end > channel.size() || !readFully(channel, prefix.clear())) {
+                    throw new IOException(file + " is truncated or corrupt");
+                }
+                // the log name first, to skip the rest of the chunks of other logs
+                int nameLength = prefix.getInt();
+                if (nameLength > length - Integer.BYTES) {
+                    throw new IOException(file + " is truncated or corrupt");
+                }
+                String name = null;
+                if (nameLength >= 0) {
+                    ByteBuffer utf8 = ByteBuffer.allocate(nameLength);
+                    readFully(channel, utf8);
+                    name = new String(utf8.array(), StandardCharsets.UTF_8);
+                }
+                if (log != null && !log.equals(name)) {
+                    channel.position(end);
+                    continue;
+                }
+                ByteBuffer chunk = ByteBuffer.allocate((int) (end - channel.position()));
+                readFully(channel, chunk);
+                Chunk decoded;
+                try {
+                    decoded = readChunk(name, chunk);
+                } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                    throw new IOException(file + " is truncated or corrupt", e);
+                }
+                consumer.accept(decoded);
+            }
+        }
+    }
+
+    /** Fill a buffer from a channel, and flip it for reading
+     *
+     * @param channel the channel
+     * @param buffer the buffer, filled from its position up to its limit
+     * @return false if the channel was at its end, before anything was read
+     * @throws IOException if the channel can't be read, or ends before the buffer is full
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (buffer.position() == start) {
+                    return false;
+                }
+                throw new IOException("Unexpected end of file after " + channel.position() + " bytes");
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /** Decode a chunk after its log name
+     *
+     * @param log name of the log
+     * @param buffer the chunk, positioned after the log name
+     * @return the chunk
+     */
+    private static Chunk readChunk(String log, ByteBuffer buffer) {
+        long seed = buffer.getLong();
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        List<String> names = new ArrayList<>(columns);
+        Object[] values = new Object[columns];
+        for (int c = 0; c < columns; c++) {
+            names.add(readString(buffer));
+            byte type = buffer.get();
+            if (type == ColumnarLogWriter.DOUBLE) {
+                double[] column = new double[rows];
+                buffer.asDoubleBuffer().get(column);
+                buffer.position(buffer.position() + rows * Double.BYTES);
+                values[c] = column;
+            } else if (type == ColumnarLogWriter.STRING) {
+                String[] dictionary = new String[buffer.getInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = readString(buffer);
+                }
+                int width = ColumnarLogWriter.codeWidth(dictionary.length);
+                String[] column = new String[rows];
+                for (int r = 0; r < rows; r++) {
+                    int code = switch (width) {
+                        case 1 -> Byte.toUnsignedInt(buffer.get());
+                        case 2 -> Short.toUnsignedInt(buffer.getShort());
+                        default -> buffer.getInt();
+                    };
+                    column[r] = dictionary[code];
+                }
+                values[c] = column;
+            } else {
+                throw new IllegalArgumentException(String.format("Unknown type %d of column %s of %s", type,
+                        names.get(c), log));
+            }
+        }
+        return new Chunk(log, seed, rows, names, values);
+    }
+
+    /** Read a string written by ColumnarLogWriter
+     *
+     * @param buffer the buffer, positioned at the string
+     * @return the string, may be null
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /** Export a binary log file to csv files, each chunk to folder/log/log_seed.csv
+     *
+     * @param file the file
+     * @param folder folder to export to
+     * @throws IOException if the file can't be read or the csv files written
+     */
+    public static void exportCsv(Path file, Path folder) throws IOException {
+        read(file, null, chunk -> {
+            Path logFolder = Files.createDirectories(folder.resolve(chunk.log));
+            Path csv = logFolder.resolve(String.format("%s_%d.csv", chunk.log, chunk.seed));
+            try (CSVPrinter printer = new CSVPrinter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8),
+                    CSVFormat.DEFAULT)) {
+                printer.printRecord(chunk.names);
+                for (int r = 0; r < chunk.rows; r++) {
+                    for (int c = 0; c < chunk.names.size(); c++) {
+                        printer.print(chunk.get(r, c));
+                    }
+                    printer.println();
+                }
+            }
+        });
+    }
+
+    //===== SubClasses ======//
+    /** Receives the chunks of a file as they are read */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        /** Receive a chunk
+         * @param chunk the chunk
+         * @throws IOException if the chunk can't be processed
+         */
+        void accept(Chunk chunk) throws IOException;
+    }
+
+    /** The rows of one log of one iteration, by column */
+    public static class Chunk {
+        /** name of the log */
+        public final String log;
+        /** seed of the iteration, the partition of the log */
+        public final long seed;
+        /** number of rows */
+        public final int rows;
+        /** column names */
+        public final List<String> names;
+        /** values of each column, double[] or String[] */
+        private final Object[] values;
+
+        Chunk(String log, long seed, int rows, List<String> names, Object[] values) {
+            this.log = log;
+            this.seed = seed;
+            this.rows = rows;
+            this.names = List.copyOf(names);
+            this.values = values;
+        }
+
+        /** Whether a column holds numbers
+         * @param column index of the column
+         * @return true for a column of doubles, false for a column of strings
+         */
+        public boolean isNumeric(int column) {
+            return values[column] instanceof double[];
+        }
+
+        /** Get a column of numbers
+         * @param column index of the column
+         * @return values of the column
+         */
+        public double[] getNumbers(int column) {
+            if (!isNumeric(column)) {
+                throw new IllegalArgumentException(String.format("Column %s of %s is not numeric", names.get(column), log));
+            }
+            return (double[]) values[column];
+        }
+
+        /** Get a column as strings, numbers formatted as the csv files have them
+         * @param column index of the column
+         * @return values of the column
+         */
+        public String[] getStrings(int column) {
+            if (!isNumeric(column)) {
+                return (String[]) values[column];
+            }
+            double[] numbers = (double[]) values[column];
+            String[] strings = new String[rows];
+            for (int r = 0; r < rows; r++) {
+                strings[r] = Double.toString(numbers[r]);
+            }
+            return strings;
+        }
+
+        /** Get a value as a string, a number formatted as the csv files have it
+         * @param row index of the row
+         * @param column index of the column
+         * @return the value, may be null
+         */
+        public String get(int row, int column) {
+            return isNumeric(column) ? Double.toString(((double[]) values[column])[row]) : ((String[]) values[column])[row];
+        }
+    }
+}
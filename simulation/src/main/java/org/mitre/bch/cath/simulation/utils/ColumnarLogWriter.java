@@ -0,0 +1,297 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Columnar Log Writer class
+ * Writes the per-iteration logs of a whole run (timeseries, insuffResource, patientLog, patients, days, events) into
+ * one compact binary file, instead of a csv file per log per iteration. Each iteration appends a chunk per log, stored
+ * column by column and partitioned by the iteration's seed. Number columns are stored as doubles, text columns are
+ * dictionary encoded. An iteration encodes the chunks of all its logs in a Batch first and appends them in one write,
+ * so an iteration stopped part-way leaves none of its logs in the file, and iterations running in parallel never
+ * interleave.
+ * See ColumnarLogReader for reading the file back and exporting it to the csv files.
+ *
+ * File layout, big-endian: the MAGIC bytes, then chunks of
+ * [int length of the rest of the chunk][string log name][long seed][int rows][int columns], and for each column
+ * [string name][byte type], followed by rows doubles for DOUBLE, or for STRING the [int dictionary size], the
+ * dictionary strings and a code per row of 1, 2 or 4 bytes, the fewest that fit the dictionary.
+ * A string is [int length of its UTF-8 bytes, -1 for null][bytes].
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public class ColumnarLogWriter implements Closeable {
+    //===== Static Attributes ======//
+    /** First bytes of the file, identifying the format and its version */
+    static final byte[] MAGIC = "CATHCOL1".getBytes(StandardCharsets.US_ASCII);
+
+    /** Type of a column of doubles */
+    static final byte DOUBLE = 1;
+
+    /** Type of a dictionary encoded column of strings */
+    static final byte STRING = 2;
+
+    //===== Attributes ======//
+    /** Path of the file */
+    public final Path path;
+
+    /** Stream the chunks are appended to. Not a FileChannel: an interrupt during a channel write, e.g. by the timeout
+     * of an iteration, closes the channel for every iteration of the run, while a stream write ignores interrupts */
+    private final FileOutputStream out;
+
+    /** Whether the file has been closed */
+    private boolean closed = false;
+
+    //===== Constructors ======//
+    /** Constructor for ColumnarLogWriter, creating or replacing the file
+     *
+     * @param path path of the file
+     * @throws IOException if the file can't be created
+     */
+    public ColumnarLogWriter(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.out = new FileOutputStream(path.toFile());
+        out.write(MAGIC);
+    }
+
+    //===== Methods ======//
+    /** Append a log of number columns
+     *
+     * @param log name of the log, e.g. timeseries
+     * @param seed seed of the iteration
+     * @param names column names
+     * @param columns values of each column, all of the same length
+     * @throws IOException if the chunk can't be written
+     */
+    public void writeNumbers(String log, long seed, List<String> names, List<double[]> columns) throws IOException {
+        append(new Batch(seed).writeNumbers(log, names, columns));
+    }
+
+    /** Append a log of text rows, as written to its csv file
+     *
+     * @param log name of the log, e.g. patients
+     * @param seed seed of the iteration
+     * @param header column names
+     * @param rows values of each row, in the order of the header
+     * @throws IOException if the chunk can't be written
+     */
+    public void writeRows(String log, long seed, List<String> header, List<String[]> rows) throws IOException {
+        append(new Batch(seed).writeRows(log, header, rows));
+    }
+
+    /** Append the chunks of a batch, in one write
+     *
+     * @param batch the batch
+     * @throws IOException if the chunks can't be written, InterruptedIOException if the thread was interrupted
+     */
+    public synchronized void append(Batch batch) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            // a cancelled or timed out iteration writes nothing
+            throw new InterruptedIOException("Iteration of seed " + batch.seed + " cancelled before its logs were written");
+        }
+        batch.bytes.writeTo(out);
+    }
+
+    /** Encode a log of number columns
+     *
+     * @param log name of the log
+     * @param seed seed of the iteration
+     * @param names column names
+     * @param columns values of each column, all of the same length
+     * @return the chunk
+     * @throws IOException never, for a byte array
+     */
+    private static Chunk encodeNumbers(String log, long seed, List<String> names, List<double[]> columns)
+            throws IOException {
+        int rows = columns.isEmpty() ? 0 : columns.get(0).length;
+        Chunk chunk = new Chunk(log, seed, rows, names.size());
+        for (int c = 0; c < names.size(); c++) {
+            if (columns.get(c).length != rows) {
+                throw new IllegalArgumentException(String.format("Column %s of %s has %d rows, expected %d",
+                        names.get(c), log, columns.get(c).length, rows));
+            }
+            chunk.out.writeUTF8(names.get(c));
+            chunk.out.writeByte(DOUBLE);
+            for (double v : columns.get(c)) {
+                chunk.out.writeDouble(v);
+            }
+        }
+        return chunk;
+    }
+
+    /** Encode a log of text rows
+     *
+     * @param log name of the log
+     * @param seed seed of the iteration
+     * @param header column names
+     * @param rows values of each row, in the order of the header
+     * @return the chunk
+     * @throws IOException never, for a byte array
+     */
+    private static Chunk encodeRows(String log, long seed, List<String> header, List<String[]> rows)
+            throws IOException {
+        Chunk chunk = new Chunk(log, seed, rows.size(), header.size());
+        int[] codes = new int[rows.size()];
+        for (int c = 0; c < header.size(); c++) {
+            Map<String, Integer> dictionary = new HashMap<>();
+            List<String> entries = new ArrayList<>();
+            int nullCode = -1;
+            for (int r = 0; r < codes.length; r++) {
+                String value = rows.get(r)[c];
+                if (value == null) {
+                    if (nullCode < 0) {
+                        nullCode = entries.size();
+                        entries.add(null);
+                    }
+                    codes[r] = nullCode;
+                } else {
+                    codes[r] = dictionary.computeIfAbsent(value, k -> {
+                        entries.add(k);
+                        return entries.size() - 1;
+                    });
+                }
+            }
+            chunk.out.writeUTF8(header.get(c));
+            chunk.out.writeByte(STRING);
+            chunk.out.writeInt(entries.size());
+            for (String entry : entries) {
+                chunk.out.writeUTF8(entry);
+            }
+            int width = codeWidth(entries.size());
+            for (int code : codes) {
+                switch (width) {
+                    case 1 -> chunk.out.writeByte(code);
+                    case 2 -> chunk.out.writeShort(code);
+                    default -> chunk.out.writeInt(code);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    /** Get the bytes per code of a dictionary
+     *
+     * @param size number of dictionary entries
+     * @return 1, 2 or 4
+     */
+    static int codeWidth(int size) {
+        return size <= 1 << 8 ? 1 : size <= 1 << 16 ? 2 : 4;
+    }
+
+    /** Close the file, forcing its content to the disk */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try (out) {
+                out.getFD().sync();
+            }
+        }
+    }
+
+    //===== SubClasses ======//
+    /** The chunks of the logs of one iteration, encoded before they are appended together */
+    public static class Batch {
+        /** seed of the iteration */
+        public final long seed;
+        /** encoded chunks, each with its length */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        /** output into bytes */
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        /** Constructor for Batch
+         *
+         * @param seed seed of the iteration
+         */
+        public Batch(long seed) {
+            this.seed = seed;
+        }
+
+        /** Add a log of number columns
+         *
+         * @param log name of the log, e.g. timeseries
+         * @param names column names
+         * @param columns values of each column, all of the same length
+         * @return this batch
+         * @throws IOException never, for a byte array
+         */
+        public Batch writeNumbers(String log, List<String> names, List<double[]> columns) throws IOException {
+            add(encodeNumbers(log, seed, names, columns));
+            return this;
+        }
+
+        /** Add a log of text rows, as written to its csv file
+         *
+         * @param log name of the log, e.g. patients
+         * @param header column names
+         * @param rows values of each row, in the order of the header
+         * @return this batch
+         * @throws IOException never, for a byte array
+         */
+        public Batch writeRows(String log, List<String> header, List<String[]> rows) throws IOException {
+            add(encodeRows(log, seed, header, rows));
+            return this;
+        }
+
+        /** Add a chunk, with its length
+         *
+         * @param chunk the chunk
+         * @throws IOException never, for a byte array
+         */
+        private void add(Chunk chunk) throws IOException {
+            chunk.out.flush();
+            out.writeInt(chunk.bytes.size());
+            chunk.bytes.writeTo(out);
+        }
+    }
+
+    /** A chunk being encoded, starting with its log name, seed, and row and column counts */
+    private static class Chunk {
+        /** encoded bytes */
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        /** output into bytes */
+        final ChunkOutput out = new ChunkOutput(bytes);
+
+        Chunk(String log, long seed, int rows, int columns) throws IOException {
+            out.writeUTF8(log);
+            out.writeLong(seed);
+            out.writeInt(rows);
+            out.writeInt(columns);
+        }
+    }
+
+    /** Data output that also writes length-prefixed UTF-8 strings of any length, and null */
+    private static class ChunkOutput extends DataOutputStream {
+        ChunkOutput(ByteArrayOutputStream out) {
+            super(out);
+        }
+
+        /** Write a string, as [int byte length, -1 for null][UTF-8 bytes]
+         * @param value the string, may be null
+         * @throws IOException never, for a byte array
+         */
+        void writeUTF8(String value) throws IOException {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(utf8.length);
+            write(utf8);
+        }
+    }
+}
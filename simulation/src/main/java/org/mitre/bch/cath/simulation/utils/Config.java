@@ -4,8 +4,6 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import org.apache.commons.lang3.EnumUtils;
 import org.jetbrains.annotations.Nullable;
-import org.mitre.bch.cath.simulation.model.CathLabSim;
-import org.mitre.bch.cath.simulation.model.CathSchedule;
 import org.mitre.bch.cath.simulation.entity.Patient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +12,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,14 +48,13 @@ public class Config implements Serializable {
 
     //===== Methods ======//
 
-    /** Read config from file
+    /** Read config from file, verify it, and build the SimulationBlueprint
      *
      * @param fileName name of config file
-     * @param cathLabSim CathLabSim instance of the simulation
-     * @return the config object
+     * @return the blueprint, or null if the config could not be read or verified
      */
     @Nullable
-    public static Config readConfig(String fileName, CathLabSim cathLabSim)  {
+    public static SimulationBlueprint readBlueprint(String fileName)  {
 
         Config config = null;
         try {
@@ -64,106 +62,66 @@ public class Config implements Serializable {
         } catch (IOException e) {
             e.printStackTrace();
         }
-        if (!verifier(config)){
+        if (config == null || !verifier(config)){
 
             return null;
         }
-        fromConfig(config, cathLabSim);
-        return config;
+        return toBlueprint(config);
     }
 
-    public static Config uploadConfig(JsonObject configData, CathLabSim cathLabSim) {
+    /** Verify an uploaded config and build the SimulationBlueprint
+     *
+     * @param configData the uploaded config file as an object
+     * @return the blueprint, or null if the config could not be verified
+     */
+    @Nullable
+    public static SimulationBlueprint uploadBlueprint(JsonObject configData) {
 
         Config config = null;
         config = gson.fromJson(configData, Config.class);
-        if (!verifier(config)){
+        if (config == null || !verifier(config)){
 
             return null;
         }
-        fromConfig(config, cathLabSim);
-        return config;
+        return toBlueprint(config);
     }
 
-    /** Populate simulation objects from config file
+    /** Build the immutable SimulationBlueprint from a verified config
      *
-     * @param config the Config object to populate simulation objects with
-     * @param cathLabSim the CathLabSim instance of the simulation
+     * @param config the Config object to build the blueprint from
+     * @return the blueprint
      */
-    private static void fromConfig(Config config, CathLabSim cathLabSim) {
-        // set start date, lab times, and other simulation attributes
+    private static SimulationBlueprint toBlueprint(Config config) {
+        // start date, lab times, and other simulation attributes
         DateTimeFormatter dateFormat = DateTimeFormatter.ISO_LOCAL_DATE;
-        cathLabSim.startDate = LocalDate.parse(config.startDate, dateFormat);
-        LOGGER.info("Sim start date is {}", cathLabSim.startDate);
-        cathLabSim.startTime = 60 * config.startTime;
-        cathLabSim.endTime = 60 * config.endTime;
-        cathLabSim.earlyEndTime = 60 * config.earlyEndTime;
-        cathLabSim.pushCases = config.pushCases;
-        cathLabSim.pAEThresholds.putAll(config.pAEThresholds);
-        cathLabSim.pICUThresholds.putAll(config.pICUThresholds);
-
-        // instantiate labs
-        for (Lab lab: config.labs) {
-            cathLabSim.entityManager.labMap.put(lab.id, new org.mitre.bch.cath.simulation.entity.Lab(lab));
-        }
+        LocalDate startDate = LocalDate.parse(config.startDate, dateFormat);
+        LOGGER.info("Sim start date is {}", startDate);
 
-        // instantiate resources
-        for (Resource resource: config.resources){
-            org.mitre.bch.cath.simulation.entity.Resource r = new org.mitre.bch.cath.simulation.entity.Resource(resource.name, resource.type);
-            cathLabSim.entityManager.resourceMap.put(resource.name, r);
-
-            if (resource.instances != null){ // with schedule
-                for (ResourceInstance ri: resource.instances) {
-                    org.mitre.bch.cath.simulation.entity.Resource.ResourceInstance resourceInstance = r.new ResourceInstance(ri.name);
-                    r.resourceInstances.add(resourceInstance);
-                    for (ResourceInstanceSchedule ris: ri.schedule) {
-                        if (ris.lab > -1) {
-                            resourceInstance.addSchedule(ris.dayOfWeek, cathLabSim.entityManager.labMap.get(ris.lab), ris.startTime, ris.endTime);
-                        } else {
-                            resourceInstance.addSchedule(ris.dayOfWeek, ris.startTime, ris.endTime);
-                        }
-                    }
-
-                    cathLabSim.scheduleOnce(resourceInstance.nextScheduledTime(cathLabSim, 0), resourceInstance);
-                }
-            } else if (resource.total > 0) { // with simple total
-                for (int i = 0; i < resource.total; i++) {
-                    String resourceName = resource.name + " " + i;
-                    org.mitre.bch.cath.simulation.entity.Resource.ResourceInstance resourceInstance = r.new ResourceInstance(resourceName);
-                    r.resourceInstances.add(resourceInstance);
-                    for (int j = 0; j < 7; j++) {
-                        resourceInstance.addSchedule(j, 0, CathSchedule.MIN_PER_DAY);
-                    }
-                }
-            } else {
-                //TODO fail
-            }
-        }
-
-        // instantiate procedures
-        for (Procedure procedure: config.procedures) {
-            cathLabSim.entityManager.procedureMap.put(procedure.id, new org.mitre.bch.cath.simulation.entity.Procedure(cathLabSim, procedure, config.steps));
-        }
-
-        // set pushing parameters for urgency levels
+        // pushing parameters for urgency levels
+        Map<Patient.Urgency, Integer> pushBumpMap = new HashMap<>();
+        Map<Patient.Urgency, Map<String, Boolean>> pushBooleansMap = new HashMap<>();
         for (PushParam pushParam: config.pushing) {
-            cathLabSim.pushBumpMap.put(Patient.Urgency.valueOf(pushParam.urgency), pushParam.bumpThresh);
-            Map<String, Boolean> tempPushMap = new HashMap<>();
-            for (String key: pushParam.pushBooleans.keySet()) {
-                tempPushMap.put(key, pushParam.pushBooleans.get(key));
-            }
-            cathLabSim.pushBooleansMap.put(Patient.Urgency.valueOf(pushParam.urgency), tempPushMap);
+            pushBumpMap.put(Patient.Urgency.valueOf(pushParam.urgency), pushParam.bumpThresh);
+            pushBooleansMap.put(Patient.Urgency.valueOf(pushParam.urgency), Collections.unmodifiableMap(new HashMap<>(pushParam.pushBooleans)));
         }
 
-        // Read push criteria
+        // push criteria
+        Map<String, Boolean> pushCriteriaActive = new HashMap<>();
+        Map<String, List<String>> pushCriteriaUrgencies = new HashMap<>();
+        Map<String, Map<String, Double>> pushCriteriaValues = new HashMap<>();
         for (PushCriterion criterion: config.pushCriteria) {
-            cathLabSim.pushCriteriaActive.put(criterion.name, criterion.active);
-            cathLabSim.pushCriteriaUrgencies.put(criterion.name, criterion.caseLevels);
-            Map<String, Double> tempThresholds = new HashMap<>();
-            for (String key: criterion.thresholds.keySet()) {
-                tempThresholds.put(key, criterion.thresholds.get(key));
-            }
-            cathLabSim.pushCriteriaValues.put(criterion.name, tempThresholds);
+            pushCriteriaActive.put(criterion.name, criterion.active);
+            pushCriteriaUrgencies.put(criterion.name, criterion.caseLevels == null ? null : List.copyOf(criterion.caseLevels));
+            pushCriteriaValues.put(criterion.name, Collections.unmodifiableMap(new HashMap<>(criterion.thresholds)));
         }
+
+        return new SimulationBlueprint(startDate, 60 * config.startTime, 60 * config.endTime,
+                60 * config.earlyEndTime, config.pushCases,
+                Collections.unmodifiableMap(config.pAEThresholds), Collections.unmodifiableMap(config.pICUThresholds),
+                Collections.unmodifiableMap(pushBumpMap), Collections.unmodifiableMap(pushBooleansMap),
+                Collections.unmodifiableMap(pushCriteriaActive), Collections.unmodifiableMap(pushCriteriaUrgencies),
+                Collections.unmodifiableMap(pushCriteriaValues), List.copyOf(config.labs),
+                List.copyOf(config.resources), List.copyOf(config.procedures), List.copyOf(config.steps));
     }
 
     /** Printing error in config reading
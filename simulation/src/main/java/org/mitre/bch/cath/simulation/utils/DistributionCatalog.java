@@ -0,0 +1,368 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import org.mitre.bch.cath.simulation.distributions.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.mitre.bch.cath.simulation.utils.FileHandler.fileToString;
+
+/** Distribution Catalog class
+ * Immutable parameters of the probability distributions read from the prob_dist config files. The files are read
+ * once and the catalog is shared by all simulation iterations, which only bind their own random number generators
+ * to it, see CathDistribution.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public final class DistributionCatalog {
+    /** Static Logger object */
+    private static final Logger SLOGGER = LoggerFactory.getLogger(DistributionCatalog.class);
+
+    /** Gson reader instance */
+    private static final Gson gson = new Gson();
+
+    /** The shared catalog, loaded on first use */
+    private static volatile DistributionCatalog instance;
+
+    //===== Attributes ======//
+    /** Probability of AE, function of procedure, adverseScore, step. Read only once loaded. */
+    private final ThreeWayMap<Integer, Integer, String, Float> pAE = new ThreeWayMap<>();
+    /** Case time distributions, in file order */
+    private final List<Segment> tCase;
+    /** Mean case time, function of durationScore, step */
+    private final TwoWayMap<Integer, String, Double> tCaseMean = new TwoWayMap<>();
+    /** Start time distributions, in file order */
+    private final List<Segment> tStart;
+    /** Turnover time distribution */
+    private final DistributionSpec tTurnover;
+    /** Add-on count distributions, in file order */
+    private final List<Segment> cAddon;
+    /** Names of the steps in the pAE and case time files, their position is the step ordinal of the dense tables */
+    private final List<String> stepNames = new ArrayList<>();
+    /** Probability of AE, by procedure, adverseScore and step ordinal, NaN where there is none */
+    private final float[][][] pAETable;
+    /** Case time distributions, by durationScore and step ordinal, null where there is none */
+    private final DistributionSpec[][] tCaseTable;
+
+    //===== Constructors ======//
+    /**
+     * Constructor for DistributionCatalog, reading the prob_dist config files
+     * @throws IOException if a config file cannot be read
+     */
+    private DistributionCatalog() throws IOException {
+        /* prob_ae */
+        JsonArray pae = gson.fromJson(fileToString("prob_dist/p_ae.json"), JsonArray.class);
+        int procCount = 0;
+        int adverseScoreCount = 0;
+        for (JsonElement p: pae) {
+            int proc = p.getAsJsonObject().get("procedure").getAsInt();
+            int adverseScore = p.getAsJsonObject().get("adverseScore").getAsInt();
+            String step = p.getAsJsonObject().get("step").getAsString();
+            float prob = p.getAsJsonObject().get("prob").getAsFloat();
+            pAE.set(proc, adverseScore, step, prob);
+            addStepName(step);
+            procCount = Math.max(procCount, proc + 1);
+            adverseScoreCount = Math.max(adverseScoreCount, adverseScore + 1);
+        }
+
+        /* time_case */
+        List<Segment> tCaseList = new ArrayList<>();
+        for (DistributionParameters p: gson.fromJson(fileToString("prob_dist/time_case.json"), DistributionParameters[].class)) {
+            Segment segment = new Segment(((Double) p.segment.get("durationScore")).intValue(),
+                    (String) p.segment.get("step"), new DistributionSpec(p.distribution, p.params));
+            tCaseList.add(segment);
+            tCaseMean.set(segment.key, segment.step, segment.spec.mean);
+        }
+        tCase = Collections.unmodifiableList(tCaseList);
+        tCaseList.forEach(s -> addStepName(s.step));
+
+        /* dense tables, negative keys are only in the maps */
+        pAETable = new float[procCount][adverseScoreCount][stepNames.size()];
+        for (float[][] byScore : pAETable) {
+            for (float[] byStep : byScore) {
+                Arrays.fill(byStep, Float.NaN);
+            }
+        }
+        for (JsonElement p: pae) {
+            int proc = p.getAsJsonObject().get("procedure").getAsInt();
+            int adverseScore = p.getAsJsonObject().get("adverseScore").getAsInt();
+            if (proc >= 0 && adverseScore >= 0) {
+                String step = p.getAsJsonObject().get("step").getAsString();
+                pAETable[proc][adverseScore][getStepOrdinal(step)] = pAE.get(proc, adverseScore, step);
+            }
+        }
+        tCaseTable = new DistributionSpec[tCaseList.stream().mapToInt(s -> s.key + 1).max().orElse(0)][stepNames.size()];
+        for (Segment s : tCaseList) {
+            if (s.key >= 0) {
+                tCaseTable[s.key][getStepOrdinal(s.step)] = s.spec;
+            }
+        }
+
+        /* time_start */
+        List<Segment> tStartList = new ArrayList<>();
+        for (DistributionParameters p: gson.fromJson(fileToString("prob_dist/time_start.json"), DistributionParameters[].class)) {
+            tStartList.add(new Segment(((Double) p.segment.get("lab")).intValue(), null,
+                    new DistributionSpec(p.distribution, p.params)));
+        }
+        tStart = Collections.unmodifiableList(tStartList);
+
+        /* time_turnover */
+        DistributionParameters tTurnoverJson = gson.fromJson(fileToString("prob_dist/time_turnover.json"), DistributionParameters[].class)[0];
+        tTurnover = new DistributionSpec(tTurnoverJson.distribution, tTurnoverJson.params);
+
+        /* addon_count */
+        List<Segment> cAddonList = new ArrayList<>();
+        for (DistributionParameters p: gson.fromJson(fileToString("prob_dist/addon.json"), DistributionParameters[].class)) {
+            cAddonList.add(new Segment(((Double) p.segment.get("weekday")).intValue(), null,
+                    new DistributionSpec(p.distribution, p.params)));
+        }
+        cAddon = Collections.unmodifiableList(cAddonList);
+    }
+
+    //===== Methods =====//
+    /**
+     * Give a step name an ordinal in the dense tables, if it doesn't have one yet
+     * @param step step name
+     */
+    private void addStepName(String step) {
+        if (!stepNames.contains(step)) {
+            stepNames.add(step);
+        }
+    }
+
+    /**
+     * Get the shared catalog, reading the prob_dist config files on first use
+     * @return the DistributionCatalog
+     */
+    public static DistributionCatalog getInstance() {
+        DistributionCatalog catalog = instance;
+        if (catalog == null) {
+            synchronized (DistributionCatalog.class) {
+                catalog = instance;
+                if (catalog == null) {
+                    try {
+                        catalog = new DistributionCatalog();
+                    } catch (IOException e) {
+                        SLOGGER.error("Could not read probability distribution config files", e);
+                        throw new RuntimeException(e);
+                    }
+                    instance = catalog;
+                }
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * The createDistribution method takes a distribution name and parameters of the form {param1, param2, ...}
+     * and creates the appropriate distribution and returns it.
+     * @param name distribution name
+     * @param params distribution parameters
+     * @param random appropriate RandomNumberGenerator
+     * @param sampling how the distribution draws its samples
+     * @return Distribution dist
+     */
+    private static Distribution createDistribution(String name, Map<String, Float> params, RandomNumberGenerator random,
+                                                   Sampling sampling) {
+        Distribution dist;
+        switch(name) {
+            case "Gamma":
+                if (params.containsKey("param3")) {
+                    dist = new Gamma(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), Double.valueOf(params.get("param3")), random, sampling);
+                } else {
+                    dist = new Gamma(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random, sampling);
+                }
+                break;
+            case "Lognormal":
+                dist = new Lognormal(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random, sampling);
+                break;
+            case "Poisson":
+                dist = new Poisson(Double.valueOf(params.get("param1")), random, sampling);
+                break;
+            case "Beta":
+                if (params.containsKey("param3") && params.containsKey("param4")) {
+                    dist = new Beta(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), Double.valueOf(params.get("param3")), Double.valueOf(params.get("param4")), random, sampling);
+                } else {
+                    dist = new Beta(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random, sampling);
+                }
+                break;
+            case "Normal":
+                dist = new Normal(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random, sampling);
+                break;
+            case "Uniform":
+                if (params.containsKey("param1") && params.containsKey("param2")) {
+                    dist = new Uniform(Double.valueOf(params.get("param1")), Double.valueOf(params.get("param2")), random, sampling);
+                } else {
+                    dist = new Uniform(random, sampling);
+                }
+                break;
+            default:
+                dist = new Uniform(random, sampling);
+        }//end switch
+
+        return dist;
+
+    }//end createDistribution
+
+    //===== Getters/Setters ======//
+    /** Get the probability of AE table, function of procedure, adverseScore, step. Must not be modified.
+     * @return the pAE table
+     */
+    public ThreeWayMap<Integer, Integer, String, Float> getPAE() {
+        return pAE;
+    }
+
+    /** Get the ordinal of a step in the dense pAE and case time tables
+     * @param step name of the step
+     * @return step ordinal, -1 if the step isn't in the pAE or case time files
+     */
+    public int getStepOrdinal(String step) {
+        return stepNames.indexOf(step);
+    }
+
+    /** Get the probability of AE from the dense table
+     * @param procedure procedure id
+     * @param adverseScore adverse score of the case
+     * @param stepOrdinal ordinal of the step, see getStepOrdinal
+     * @return probability of AE, NaN if there is none
+     */
+    public float getPAE(int procedure, int adverseScore, int stepOrdinal) {
+        if (procedure < 0 || procedure >= pAETable.length || adverseScore < 0 || adverseScore >= pAETable[procedure].length
+                || stepOrdinal < 0) {
+            return Float.NaN;
+        }
+        return pAETable[procedure][adverseScore][stepOrdinal];
+    }
+
+    /** Get the number of step ordinals of the dense tables
+     * @return number of steps
+     */
+    public int getStepCount() {
+        return stepNames.size();
+    }
+
+    /** Get the number of adverseScores of the dense pAE table, one more than the highest adverseScore
+     * @return number of adverseScores
+     */
+    public int getAdverseScoreCount() {
+        return pAETable.length == 0 ? 0 : pAETable[0].length;
+    }
+
+    /** Get the number of rows of the dense case time table, one more than the highest durationScore
+     * @return number of durationScores
+     */
+    public int getDurationScoreCount() {
+        return tCaseTable.length;
+    }
+
+    /** Get a case time distribution from the dense table
+     * @param durationScore duration score of the case
+     * @param stepOrdinal ordinal of the step, see getStepOrdinal
+     * @return the distribution, null if there is none
+     */
+    public DistributionSpec getTCaseSpec(int durationScore, int stepOrdinal) {
+        if (durationScore < 0 || durationScore >= tCaseTable.length || stepOrdinal < 0) {
+            return null;
+        }
+        return tCaseTable[durationScore][stepOrdinal];
+    }
+
+    /** Get the case time distributions, in file order
+     * @return case time segments, keyed on durationScore and step
+     */
+    public List<Segment> getTCase() {
+        return tCase;
+    }
+
+    /** Get the precomputed mean case time of a step
+     * @param durationScore duration score of the case
+     * @param step name of the step
+     * @return mean case time
+     */
+    public Double getTCaseMean(int durationScore, String step) {
+        return tCaseMean.get(durationScore, step);
+    }
+
+    /** Get the start time distributions, in file order
+     * @return start time segments, keyed on lab
+     */
+    public List<Segment> getTStart() {
+        return tStart;
+    }
+
+    /** Get the turnover time distribution
+     * @return turnover time distribution
+     */
+    public DistributionSpec getTTurnover() {
+        return tTurnover;
+    }
+
+    /** Get the add-on count distributions, in file order
+     * @return add-on count segments, keyed on weekday
+     */
+    public List<Segment> getCAddon() {
+        return cAddon;
+    }
+
+    //===== SubClasses ======//
+    /** Immutable name and parameters of a distribution, with its precomputed mean */
+    public static final class DistributionSpec {
+        /** distribution name */
+        public final String name;
+        /** distribution parameters */
+        public final Map<String, Float> params;
+        /** distribution mean */
+        public final double mean;
+
+        /** Constructor
+         * @param name distribution name
+         * @param params distribution parameters
+         */
+        private DistributionSpec(String name, Map<String, Float> params) {
+            this.name = name;
+            this.params = Collections.unmodifiableMap(new HashMap<>(params));
+            this.mean = createDistribution(name, this.params, new RandomNumberGenerator(0), Sampling.STANDARD).getMean();
+        }
+
+        /** Create a Distribution of this spec drawing from the given random number generator
+         * @param random random number generator of the simulation iteration
+         * @param sampling how the distribution draws its samples
+         * @return Distribution dist
+         */
+        public Distribution bind(RandomNumberGenerator random, Sampling sampling) {
+            return createDistribution(name, params, random, sampling);
+        }
+    }
+
+    /** A distribution for one segment of the population, e.g. a lab or a durationScore and step */
+    public static final class Segment {
+        /** integer segment key, e.g. lab, weekday or durationScore */
+        public final int key;
+        /** step name, or null if the segment isn't step dependent */
+        public final String step;
+        /** distribution of the segment */
+        public final DistributionSpec spec;
+
+        /** Constructor
+         * @param key integer segment key
+         * @param step step name
+         * @param spec distribution of the segment
+         */
+        private Segment(int key, String step, DistributionSpec spec) {
+            this.key = key;
+            this.step = step;
+            this.spec = spec;
+        }
+    }
+
+    private static class DistributionParameters {
+        public String distribution;
+        public Map<String, Float> params;
+        public Map<String, ?> segment;
+    }
+}
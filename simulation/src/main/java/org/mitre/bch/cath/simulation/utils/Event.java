@@ -6,7 +6,6 @@
 
 package org.mitre.bch.cath.simulation.utils;
 
-import com.google.common.base.Objects;
 import sim.engine.Steppable;
 
 public class Event {
@@ -16,8 +15,35 @@ public class Event {
     /** the scheduled time */
     private final double time;
 
-    /** the class/method/line that scheduled the event */
-    private final String scheduledBy;
+    /** the class/method/line that scheduled the event, resolved lazily when captured as a stack frame */
+    private String scheduledBy;
+
+    /** the stack frame that scheduled the event, if captured with Provenance.STACK */
+    private StackWalker.StackFrame frame;
+
+    /** StackWalker used to capture the frame that scheduled an event */
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    /** How the "scheduled by" provenance of an event is captured.
+     * OFF captures nothing, CALL_SITE uses the tag passed in by the call site, and STACK captures the calling stack
+     * frame, which is only resolved to a class/method/line when the event is written out.
+     */
+    public enum Provenance {
+        OFF, CALL_SITE, STACK;
+
+        /** Parse a provenance mode from a string, falling back to a default dependent on verbosity
+         *
+         * @param value provenance mode name, case-insensitive, may be null
+         * @param verbose whether the full suite of logs is saved, in which case the events log is written
+         * @return the provenance mode
+         */
+        public static Provenance parse(String value, boolean verbose) {
+            if (value == null || value.isBlank()) {
+                return verbose ? STACK : OFF;
+            }
+            return Provenance.valueOf(value.trim().toUpperCase());
+        }
+    }
 
     /** Constructor
      *
@@ -31,6 +57,59 @@ public class Event {
         this.scheduledBy = scheduledBy;
     }
 
+    /** Constructor
+     *
+     * @param event the event to be put on the schedule
+     * @param time the scheduled time
+     * @param frame the stack frame that scheduled the event
+     */
+    public Event(Steppable event, double time, StackWalker.StackFrame frame) {
+        this.event = event;
+        this.time = time;
+        this.frame = frame;
+    }
+
+    /** Capture the first stack frame outside of the given class, i.e. the caller that scheduled an event.
+     * Only the frames up to the caller are walked, and the frame is not resolved to a StackTraceElement.
+     *
+     * @param skip the class whose frames are skipped
+     * @return the calling stack frame, or null if there is none
+     */
+    public static StackWalker.StackFrame callerFrame(Class<?> skip) {
+        return WALKER.walk(s -> s.dropWhile(f -> f.getDeclaringClass() == Event.class || f.getDeclaringClass() == skip)
+                .findFirst().orElse(null));
+    }
+
+    /** Get the event to be put on the schedule
+     *
+     * @return the steppable
+     */
+    public Steppable getEvent() {
+        return event;
+    }
+
+    /** Get the scheduled time
+     *
+     * @return the scheduled time
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /** Get the class/method/line that scheduled the event. A captured stack frame is resolved on first call.
+     *
+     * @return the thing that scheduled the event, or null if provenance was not captured
+     */
+    public String getScheduledBy() {
+        if (scheduledBy == null && frame != null) {
+            String[] classNameParts = frame.getClassName().split("\\.");
+            scheduledBy = String.format("%s.%s (%d)", classNameParts[classNameParts.length - 1],
+                    frame.getMethodName(), frame.getLineNumber());
+            frame = null;
+        }
+        return scheduledBy;
+    }
+
     /** Get CSV headers. Correspond to the csvRow() method.
      *
      * @return CSV header
@@ -51,29 +130,16 @@ public class Event {
                 LoggerHelper.toTime(time),
                 event.getClass().getName(),
                 event.toString(),
-                scheduledBy
+                getScheduledBy() == null ? "" : getScheduledBy()
         };
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Event event1 = (Event) o;
-        return Double.compare(event1.time, time) == 0 && event.toString().equals(event1.event.toString()) && Objects.equal(scheduledBy, event1.scheduledBy);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hashCode(event, time, scheduledBy);
-    }
-
     @Override
     public String toString() {
         return "Event{" +
                 "event=" + event +
                 ", time=" + time +
-                ", scheduledBy='" + scheduledBy + '\'' +
+                ", scheduledBy='" + getScheduledBy() + '\'' +
                 '}';
     }
 }
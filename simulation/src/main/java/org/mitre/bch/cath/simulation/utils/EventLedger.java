@@ -0,0 +1,50 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import sim.engine.Steppable;
+
+import java.util.*;
+
+/** EventLedger keeps track of every event put on the schedule. Duplicate detection is done through a hash index keyed
+ * on the identity of the steppable and the scheduled time, while the full history is kept in a separate append-only
+ * log that is only read when the events csv is written.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public class EventLedger {
+    //===== Attributes ======//
+    /** Scheduled times of each steppable, keyed on the steppable's identity */
+    private final Map<Steppable, Set<Double>> index = new IdentityHashMap<>();
+
+    /** Append-only log of all events, in the order they were scheduled */
+    private final List<Event> log = new ArrayList<>();
+
+    //===== Methods ======//
+    /** Record an event in the ledger if the same steppable has not already been scheduled for the same time.
+     *
+     * @param evt the event to record
+     * @return true if the event was recorded, false if it is a duplicate
+     */
+    public boolean add(Event evt) {
+        if (!index.computeIfAbsent(evt.getEvent(), k -> new HashSet<>()).add(evt.getTime())) {
+            return false;
+        }
+        log.add(evt);
+        return true;
+    }
+
+    /** Get the events in the order they were scheduled
+     *
+     * @return unmodifiable view of the event log
+     */
+    public List<Event> getLog() {
+        return Collections.unmodifiableList(log);
+    }
+
+    /** Get the number of events recorded
+     *
+     * @return number of events in the log
+     */
+    public int size() {
+        return log.size();
+    }
+}
@@ -0,0 +1,25 @@
+package org.mitre.bch.cath.simulation.utils;
+
+/**
+ * Format of the per-iteration logs written by a verbose run.
+ * CSV writes a csv file per log per iteration, each saved as an Mlflow artifact of its iteration, as the simulation
+ * always has. BINARY writes the logs of every iteration into one columnar file per run (see ColumnarLogWriter), saved
+ * as an artifact of the parent run, which ColumnarLogReader reads back or exports to the same csv files.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public enum LogFormat {
+    CSV, BINARY;
+
+    /** Parse a log format from a string, falling back to CSV
+     *
+     * @param value log format name, case-insensitive, may be null
+     * @return the log format
+     */
+    public static LogFormat parse(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        return LogFormat.valueOf(value.trim().toUpperCase());
+    }
+}
@@ -9,8 +9,7 @@ import org.mitre.bch.cath.simulation.model.CathSchedule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
-import java.util.stream.Stream;
+import java.util.function.Supplier;
 
 /** Helper function for logger
  *
@@ -24,6 +23,9 @@ public class LoggerHelper {
     /** Base Format string */
     private String baseFormat = "{}({}) - {}({}) - ";
 
+    /** Whether INFO messages of this simulation run are suppressed, e.g. for batch replication */
+    private boolean quiet = false;
+
     /** Constructor of the LoggerHelper
      *
      * @param model CathLabSim instance of the simulation
@@ -32,17 +34,28 @@ public class LoggerHelper {
         this.model = model;
     }
 
+    /** Set whether INFO messages of this simulation run are suppressed
+     * @param quiet true to suppress INFO messages
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /** Whether INFO messages are logged. Call sites that build expensive arguments should check this first.
+     * @return true if the run is not quiet and the INFO level is enabled
+     */
+    public boolean isInfoEnabled() {
+        return !quiet && LOGGER.isInfoEnabled();
+    }
+
     /** Log message of INFO level
      * This appends simulation time to the logging message, otherwise mirrors the Logger.info signature
      * @param format Logger format string
      * @param arguments Logger vararg arguments
      */
     public void info(int stackIndex, String format, Object... arguments) {
-        String fmt = baseFormat + format;
-        Object[] firstPart = getClassMethodStack(stackIndex);
-        Object[] combArgs = Stream.concat(Arrays.stream(firstPart), Arrays.stream(arguments)).toArray(Object[]::new);
-        LOGGER.info(fmt, combArgs);
-
+        if (!isInfoEnabled()) return;
+        LOGGER.info(baseFormat + format, concat(getClassMethodStack(stackIndex), arguments));
     }
 
     /** Log message of INFO level
@@ -54,6 +67,20 @@ public class LoggerHelper {
         this.info(5, format, arguments);
     }
 
+    /** Log message of INFO level, with arguments that are only evaluated if the message is logged
+     * This appends simulation time to the logging message, otherwise mirrors the Logger.info signature
+     * @param format Logger format string
+     * @param arguments suppliers of the Logger arguments
+     */
+    public void info(String format, Supplier<?>... arguments) {
+        if (!isInfoEnabled()) return;
+        Object[] args = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            args[i] = arguments[i].get();
+        }
+        this.info(5, format, args);
+    }
+
     /**
      * Get Class name, method name, line number of an element in the stacktrace
      * as well as the time in the simulation
@@ -91,6 +118,7 @@ public class LoggerHelper {
      * @param arguments Logger vararg arguments
      */
     public void error(String format, Object... arguments) {
+        if (!LOGGER.isErrorEnabled()) return;
         StackTraceElement el = Thread.currentThread().getStackTrace()[2];
         String fmt = baseFormat + format;
         String[] classNameParts = el.getClassName().split("\\.");
@@ -99,8 +127,19 @@ public class LoggerHelper {
         String methodName = el.getMethodName().startsWith("lambda$") ? el.getMethodName().substring(7, el.getMethodName().length() - 2) : el.getMethodName();
         String classMethod = String.format("%s.%s",className, methodName);
         Object[] firstPart = {String.format("%-22s", classMethod), String.format("%3s", String.valueOf(el.getLineNumber())), String.format("% 6d", (int) time), toTime(time)};
-        Object[] combArgs = Stream.concat(Arrays.stream(firstPart), Arrays.stream(arguments)).toArray(Object[]::new);
-        LOGGER.error(fmt, combArgs);
+        LOGGER.error(fmt, concat(firstPart, arguments));
+    }
+
+    /** Concatenate the stack/time arguments with the message arguments
+     * @param firstPart stack and time arguments
+     * @param arguments message arguments
+     * @return combined arguments
+     */
+    private static Object[] concat(Object[] firstPart, Object[] arguments) {
+        Object[] combArgs = new Object[firstPart.length + arguments.length];
+        System.arraycopy(firstPart, 0, combArgs, 0, firstPart.length);
+        System.arraycopy(arguments, 0, combArgs, firstPart.length, arguments.length);
+        return combArgs;
     }
 
     public static class CustomException extends Exception {
@@ -113,6 +152,7 @@ public class LoggerHelper {
      * Print stack from a function
      */
     public void stack(){
+        if (!isInfoEnabled()) return;
         for (StackTraceElement el : Thread.currentThread().getStackTrace()) {
             LOGGER.info("{} {} {}", el.getClassName(), el.getMethodName(), el.getLineNumber());
         }
@@ -2,7 +2,6 @@ package org.mitre.bch.cath.simulation.utils;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
-import org.jfree.data.xy.XYSeries;
 import org.mitre.bch.cath.simulation.entity.Lab;
 import org.mitre.bch.cath.simulation.entity.Patient;
 import org.mitre.bch.cath.simulation.entity.Procedure;
@@ -14,6 +13,7 @@ import org.mlflow.tracking.MlflowClient;
 import org.mlflow.api.proto.Service.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -26,11 +26,62 @@ public class Metrics implements Serializable {
 
     //===== Attributes ======//
     private static final long serialVersionUID = 1L;
-    /** # of patients */
-    private final XYSeries patients = new XYSeries("Patient Count", true, false);
+    /** Column names of the insuffResource log */
+    private static final List<String> INSUFF_RESOURCE_HEADER = List.of("patient", "resource", "time", "count",
+            "proceedWithout");
+    /** Column names of the patientLog log */
+    private static final List<String> PATIENT_LOG_HEADER = List.of("patient", "event", "time");
+    /** Time series of the # of patients, aggregate pAE and pICU, and # of each resource in use */
+    private final TimeSeriesRecorder timeSeries;
 
-    /** # of each resource */
-    private final Map<String, XYSeries> resources = new HashMap<>();
+    /** Column of the # of patients */
+    private final int patientsColumn;
+
+    /** Column of the aggregate pAE */
+    private final int pAEColumn;
+
+    /** Column of the aggregate pICU */
+    private final int pICUColumn;
+
+    /** Column of the # of each resource in use */
+    private final Map<String, Integer> resources = new HashMap<>();
+
+    /** Values of the last recorded point, by column, NaN before the first point */
+    private final double[] lastPoint;
+
+    /** Day of the last recorded point */
+    private int lastDay = Integer.MIN_VALUE;
+
+    /** Whether the current patients, or their pAE, pICU or AE, may have changed since the last point */
+    private boolean patientsChanged = true;
+
+    /** Whether the # of resources in use may have changed since the last point */
+    private boolean resourcesChanged = true;
+
+    /** Whether to keep the time series of points, only needed for the timeseries log. The risk band lab minutes are
+     * integrated from the points either way. */
+    public boolean recordTimeSeries = true;
+
+    /** Lab minutes at each risk band, by day, integrated online up to the point in progress */
+    private final Map<Integer, RiskLabMinutes> riskLabMinutes = new HashMap<>();
+
+    /** Number of points integrated or in progress; the first point is not integrated */
+    private int riskPoints = 0;
+
+    /** Time of the point in progress, its lab minutes are added when the next point starts or the run ends */
+    private double riskPointTime;
+
+    /** # of patients of the point in progress */
+    private double riskPointPatients;
+
+    /** Aggregate pAE of the point in progress */
+    private double riskPointPAE;
+
+    /** Aggregate pICU of the point in progress */
+    private double riskPointPICU;
+
+    /** Whether the point in progress was added at the end of the run */
+    private boolean riskLabMinutesClosed = false;
 
     /** time + resource + patient + count when resource is not available */
     private final List<InsuffResource> insuffResources = new ArrayList<>();
@@ -41,12 +92,6 @@ public class Metrics implements Serializable {
     /** log of days with accompanying data */
     private final Map<Integer, DayRecord> dayLog = new LinkedHashMap<>();
 
-    /** aggregate pAE */
-    private final XYSeries pAE = new XYSeries("System Probability of Adverse Event", true, false);
-
-    /** aggregate pICU */
-    private final XYSeries pICU = new XYSeries("System Probability of ICU Admission", true, false);
-
     /** seed, for appending to log files */
     private final long seed;
 
@@ -60,16 +105,24 @@ public class Metrics implements Serializable {
 
     /** Constructor of the Metrics class.
      *
-     * @param resourceNames list of resources to create the XYSeries for each resource
+     * @param resourceNames list of resources to create the time series for each resource
      * @param seed random number generator seed
      * @param model CathLabSim instance of the simulation
      */
     public Metrics(List<String> resourceNames, long seed, CathLabSim model) {
         this.model = model;
         this.seed = seed;
+        List<String> columns = new ArrayList<>(List.of("patients", "pAE", "pICU"));
+        columns.addAll(resourceNames);
+        this.timeSeries = new TimeSeriesRecorder(columns);
+        this.patientsColumn = timeSeries.column("patients");
+        this.pAEColumn = timeSeries.column("pAE");
+        this.pICUColumn = timeSeries.column("pICU");
         for (String r : resourceNames) {
-            resources.put(r, new XYSeries(r, true, false));
+            resources.put(r, timeSeries.column(r));
         }
+        this.lastPoint = new double[columns.size()];
+        Arrays.fill(lastPoint, Double.NaN);
 
         Date date = Calendar.getInstance().getTime();
         DateFormat dateFormat = new SimpleDateFormat("yyyyMMdd-kkmmss");
@@ -89,29 +142,132 @@ public class Metrics implements Serializable {
                 .toList();
     }
 
-    /** Record a point in the various XYSeries.
+    /** Note that a patient entered or left DURING/RESCUE, or that the pAE, pICU or AE of a patient changed, so the
+     * next point recomputes the patient series.
+     */
+    public void markPatientsChanged() {
+        patientsChanged = true;
+    }
+
+    /** Note that a resource was seized or released, so the next point rereads the resources in use. */
+    public void markResourcesChanged() {
+        resourcesChanged = true;
+    }
+
+    /** Record a point in the time series, if a value changed since the last point or a new day started. Only the
+     * series marked changed are recomputed, so a step that changes nothing costs nothing. A point is kept at the
+     * first step of each day, so lab minutes are attributed to the same days as when every step was recorded.
      *
      * @param model CathLabSim instance of the simulation
      */
     public void recordPoint(CathLabSim model) {
         double minute = model.schedule.getTime();
-        List<Patient> patientList = getCurrentPatients(model.entityManager);
-        model.LOGGER.info("Patient list is {}", patientList);
+        int day = (int) minute / CathSchedule.MIN_PER_DAY;
+        if (!patientsChanged && !resourcesChanged && day == lastDay) {
+            return;
+        }
+        boolean changed = day != lastDay;
+
+        if (patientsChanged) {
+            List<Patient> patientList = getCurrentPatients(model.entityManager);
+            model.LOGGER.info("Patient list is {}", patientList);
+            changed |= update(patientsColumn, patientList.size());
+            changed |= update(pAEColumn, computePAE(patientList));
+            changed |= update(pICUColumn, computePICU(patientList));
+            patientsChanged = false;
+        }
+        if (resourcesChanged) {
+            for (Resource r: model.entityManager.resourceMap.values()) {
+                changed |= update(resources.get(r.name), r.numInUse());
+            }
+            resourcesChanged = false;
+        }
+
+        if (changed) {
+            startRiskPoint(minute);
+            if (recordTimeSeries) {
+                timeSeries.startRow(minute);
+                for (int c = 0; c < lastPoint.length; c++) {
+                    timeSeries.set(c, lastPoint[c]);
+                }
+            }
+            lastDay = day;
+        }
+    }
 
+    /** Start a point of the risk band integrator, adding the lab minutes of the point in progress up to its time.
+     * A point at the time of the one in progress replaces it.
+     *
+     * @param minute time of the point
+     */
+    private void startRiskPoint(double minute) {
+        if (riskPoints == 0 || minute != riskPointTime) {
+            if (riskPoints > 1) {
+                addRiskLabMinutes(minute - riskPointTime);
+            }
+            riskPoints++;
+        }
+        riskPointTime = minute;
+        riskPointPatients = lastPoint[patientsColumn];
+        riskPointPAE = lastPoint[pAEColumn];
+        riskPointPICU = lastPoint[pICUColumn];
+    }
 
-        patients.addOrUpdate(minute, patientList.size());
-        pAE.addOrUpdate(minute, computePAE(patientList));
-        pICU.addOrUpdate(minute, computePICU(patientList));
+    /** Add the lab minutes of the point in progress, over a duration, to its day and risk bands
+     *
+     * @param delta duration of the point, in minutes
+     */
+    private void addRiskLabMinutes(double delta) {
+        int day = (int) (riskPointTime / CathSchedule.MIN_PER_DAY);
+        RiskLabMinutes today = riskLabMinutes.computeIfAbsent(day, k -> new RiskLabMinutes());
+        double labMinutes = delta * riskPointPatients; // if all labs empty, won't count minutes
+        today.total += labMinutes;
+        today.pAEWeighted += labMinutes * riskPointPAE;
+        today.pICUWeighted += labMinutes * riskPointPICU;
+        if (riskPointPAE < model.pAEThresholds.get("medium")) {
+            today.lowpAE += labMinutes;
+        } else if (riskPointPAE >= model.pAEThresholds.get("high")) {
+            today.highpAE += labMinutes;
+        } else {
+            today.mediumpAE += labMinutes;
+        }
+        if (riskPointPICU < model.pICUThresholds.get("medium")) {
+            today.lowpICU += labMinutes;
+        } else if (riskPointPICU >= model.pICUThresholds.get("high")) {
+            today.highpICU += labMinutes;
+        } else {
+            today.mediumpICU += labMinutes;
+        }
+    }
 
+    /** Get the lab minutes at each risk band by day, up to the start of the point in progress. Can be read at any
+     * time during the run; after closeRiskLabMinutes it covers the whole run.
+     *
+     * @return lab minutes at each risk band, by day
+     */
+    public Map<Integer, RiskLabMinutes> getRiskLabMinutes() {
+        return Collections.unmodifiableMap(riskLabMinutes);
+    }
 
-        for (Resource r: model.entityManager.resourceMap.values()) {
-            resources
-                    .get(r.name)
-                    .addOrUpdate(minute,
-                            r.resourceInstances.stream()
-                                    .filter(i-> i.inUse).count()
-                    );
+    /** Add the point in progress at the end of the run, running to the end of its day. Later calls do nothing. */
+    public void closeRiskLabMinutes() {
+        if (!riskLabMinutesClosed && riskPoints > 1) {
+            int day = (int) (riskPointTime / CathSchedule.MIN_PER_DAY);
+            addRiskLabMinutes(((day + 1) * CathSchedule.MIN_PER_DAY) - riskPointTime);
         }
+        riskLabMinutesClosed = true;
+    }
+
+    /** Update a value of the next point
+     *
+     * @param column index of the column
+     * @param value the value
+     * @return whether the value differs from the last point
+     */
+    private boolean update(int column, double value) {
+        boolean changed = Double.compare(lastPoint[column], value) != 0;
+        lastPoint[column] = value;
+        return changed;
     }
 
     /** Add a record for insufficient resources to its log.
@@ -155,6 +311,18 @@ public class Metrics implements Serializable {
         this.dayLog.put(day, new DayRecord(model));
     }
 
+    /** Record the end of a case, keeping the latest end time of its lab and of the system on the case's day.
+     *
+     * @param day Integer day of the case
+     * @param lab name of the lab of the case
+     * @param tEnd end time of the case
+     */
+    public void addCaseEnd(Integer day, String lab, double tEnd) {
+        DayRecord today = dayLog.get(day);
+        today.labLatestEnd.merge(lab, tEnd, Math::max);
+        today.labLatestEnd.merge("System", tEnd, Math::max);
+    }
+
     /** Count an instance of a non-null AE level.
      *
      * @param day Integer day for accessing the DayRecord on which to record the AE occurrence
@@ -450,6 +618,18 @@ public class Metrics implements Serializable {
         return Math.sqrt(var);
     }
 
+    /** Find the median of the given sorted values
+     * @param sortedValues values, in ascending order
+     * @return median of the values, 0.0 if there are none
+     */
+    public static double findMedian(double[] sortedValues) {
+        if (sortedValues.length == 0) {
+            return 0.0;
+        }
+        int mid = sortedValues.length / 2;
+        return sortedValues.length % 2 == 1 ? sortedValues[mid] : (sortedValues[mid] + sortedValues[mid - 1]) / 2;
+    }
+
     /**
      * Write desired summary run-level metrics to Mlflow.
      * Writes counts, averages, and medians for day metrics.
@@ -457,16 +637,15 @@ public class Metrics implements Serializable {
      * Writes total lab minutes at each risk level for the run, while also tracking the lab minutes at each level from day to day.
      * Writes various daily metrics, which have a value for each simulation day, and various weekly metrics, which have a value for each full work week.
      * @param verbose If true, write full suite of metrics. If false, write just the metrics used in API.java.
+     * @return the metrics written
      */
-    public void writeToMlflow(boolean verbose) {
+    public List<Metric> writeToMlflow(boolean verbose) {
         double dayStart = model.startTime;
         double dayEnd = model.endTime;
         double dayEarly = model.earlyEndTime;
-        double pAEMed = model.pAEThresholds.get("medium");
-        double pAEHigh = model.pAEThresholds.get("high");
-        double pICUMed = model.pICUThresholds.get("medium");
-        double pICUHigh = model.pICUThresholds.get("high");
         List<Metric> metricList = new ArrayList<>();
+        List<DayRecord> weekdayRecords = dayLog.values().stream()
+                .filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).toList();
 
         // Summary Day Metrics
         metricList.add(Metric.newBuilder().setKey("Total_AE_Count").setValue(dayLog.values().stream()
@@ -484,17 +663,16 @@ public class Metrics implements Serializable {
         for (Map.Entry<String, Double> m : dayLog.get(0).labTimeAfterEOD.entrySet()) {
             if (m.getKey().equals("System")) {
                 metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Avg_Daily_Time_After_EOD")
-                        .setValue(dayLog.values().stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).
+                        .setValue(weekdayRecords.stream().
                                 mapToDouble(dr -> dr.labTimeAfterEOD.get(m.getKey())).average().orElse(0.0))
                         .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
             } else if (verbose) {
                 metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Avg_Daily_Time_After_EOD")
-                        .setValue(dayLog.values().stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).
+                        .setValue(weekdayRecords.stream().
                                 mapToDouble(dr -> dr.labTimeAfterEOD.get(m.getKey())).average().orElse(0.0))
                         .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
                 metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Avg_Daily_Time_After_EOD_No_Zeros")
-                        .setValue(dayLog.values().stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY
-                                        && dr.labTimeAfterEOD.get(m.getKey()) != 0.0).
+                        .setValue(weekdayRecords.stream().filter(dr -> dr.labTimeAfterEOD.get(m.getKey()) != 0.0).
                                 mapToDouble(dr -> dr.labTimeAfterEOD.get(m.getKey())).average().orElse(0.0))
                         .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
             }
@@ -522,7 +700,7 @@ public class Metrics implements Serializable {
                     .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
             for (Map.Entry<String, Double> m : dayLog.get(0).cumulativeLabTimes.entrySet()) {
                 metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Avg_Daily_Cumulative_Time")
-                        .setValue(dayLog.values().stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).
+                        .setValue(weekdayRecords.stream().
                                 mapToDouble(dr -> dr.cumulativeLabTimes.get(m.getKey())).average().orElse(0.0))
                         .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
             }
@@ -549,24 +727,15 @@ public class Metrics implements Serializable {
                     .mapToDouble(dr -> dr.NaddonsAfterEOD).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
             for (Map.Entry<String, Double> m : dayLog.get(0).labDelayTimes.entrySet()) {
                 metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Avg_Daily_Total_Delay_Time")
-                        .setValue(dayLog.values().stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).
+                        .setValue(weekdayRecords.stream().
                                 mapToDouble(dr -> dr.labDelayTimes.get(m.getKey())).average().orElse(0.0))
                         .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
             }
             for (Map.Entry<String, Double> m : dayLog.get(0).labTurnoverTimes.entrySet()) {
-                if (dayLog.values().stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).count() % 2 == 1) {
-                    metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Median_Daily_Total_Turnover_Time")
-                            .setValue(dayLog.values().stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).
-                                    mapToDouble(dr -> dr.labTurnoverTimes.get(m.getKey())).sorted().toArray()[dayLog.values().size() / 2])
-                            .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-                } else {
-                    metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Median_Daily_Total_Turnover_Time")
-                            .setValue((dayLog.values().stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).
-                                    mapToDouble(dr -> dr.labTurnoverTimes.get(m.getKey())).sorted().toArray()[dayLog.values().size() / 2] +
-                                    dayLog.values().stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).
-                                            mapToDouble(dr -> dr.labTurnoverTimes.get(m.getKey())).sorted().toArray()[(dayLog.values()
-                                            .size() / 2) - 1]) / 2).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-                }
+                double[] turnovers = weekdayRecords.stream().mapToDouble(dr -> dr.labTurnoverTimes.get(m.getKey())).sorted().toArray();
+                metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Median_Daily_Total_Turnover_Time")
+                        .setValue(findMedian(turnovers))
+                        .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
             }
             for (Map.Entry<String, Integer> m : dayLog.get(0).caseTypeCounts.entrySet()) {
                 metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Count").setValue(dayLog.values().stream().
@@ -579,8 +748,8 @@ public class Metrics implements Serializable {
             }
 
             for (Map.Entry<String, Double> m : dayLog.get(0).resourceUsage.entrySet()) {
-                metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Avg_Daily_Usage").setValue(dayLog.values()
-                                .stream().filter(dr -> dr.weekDay != DayOfWeek.SATURDAY && dr.weekDay != DayOfWeek.SUNDAY).
+                metricList.add(Metric.newBuilder().setKey(m.getKey().replace(" ", "_") + "_Avg_Daily_Usage").setValue(weekdayRecords
+                                .stream().
                                 mapToDouble(dr -> dr.resourceUsage.get(m.getKey())).average().orElse(0.0))
                         .setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
             }
@@ -607,81 +776,30 @@ public class Metrics implements Serializable {
         }
 
         // Daily Recorded Metrics
-        Map<String, List<Double>> timeSeriesMap = new HashMap<>();
-        timeSeriesMap.put("time", Arrays.stream(patients.toArray()[0]).boxed().toList());
-        timeSeriesMap.put("patients", Arrays.stream(patients.toArray()[1]).boxed().toList());
-        timeSeriesMap.put("pAE", Arrays.stream(pAE.toArray()[1]).boxed().toList());
-        timeSeriesMap.put("pICU", Arrays.stream(pICU.toArray()[1]).boxed().toList());
-        Map<Integer, Double> daysLowpAE = new HashMap<>();
-        Map<Integer, Double> daysMediumpAE = new HashMap<>();
-        Map<Integer, Double> daysHighpAE = new HashMap<>();
-        Map<Integer, Double> daysLowpICU = new HashMap<>();
-        Map<Integer, Double> daysMediumpICU = new HashMap<>();
-        Map<Integer, Double> daysHighpICU = new HashMap<>();
-        Map<Integer, Double> dayTotalLabMinutes = new HashMap<>();
-        Map<Integer, Double> daypAELabMinutes = new HashMap<>();
-        Map<Integer, Double> daypICULabMinutes = new HashMap<>();
+        closeRiskLabMinutes();
         Map<Integer, Double> daysAvgRiskpAE = new HashMap<>();
         Map<Integer, Double> daysAvgRiskpICU = new HashMap<>();
-
-        for (int i = 1; i < timeSeriesMap.get("time").size(); i++) {
-            int day = (int) (timeSeriesMap.get("time").get(i) / CathSchedule.MIN_PER_DAY);
-            double delta;
-            if (i != timeSeriesMap.get("time").size() - 1) {
-                delta = timeSeriesMap.get("time").get(i + 1) - timeSeriesMap.get("time").get(i);
-            } else {
-                delta = ((day + 1) * CathSchedule.MIN_PER_DAY) - timeSeriesMap.get("time").get(i);
-            }
-            double labMinutes = delta * timeSeriesMap.get("patients").get(i); // if all labs empty, won't count minutes
-            double pAElabMinutes = labMinutes * timeSeriesMap.get("pAE").get(i);
-            double pICUlabMinutes = labMinutes * timeSeriesMap.get("pICU").get(i);
-            daypAELabMinutes.merge(day, pAElabMinutes, Double::sum);
-            daypICULabMinutes.merge(day, pICUlabMinutes, Double::sum);
-            dayTotalLabMinutes.merge(day, labMinutes, Double::sum);
-            if (timeSeriesMap.get("pAE").get(i) < pAEMed) {
-                daysLowpAE.merge(day, labMinutes, Double::sum);
-            } else if (timeSeriesMap.get("pAE").get(i) >= pAEHigh) {
-                daysHighpAE.merge(day, labMinutes, Double::sum);
-            } else {
-                daysMediumpAE.merge(day, labMinutes, Double::sum);
-            }
-            if (timeSeriesMap.get("pICU").get(i) < pICUMed) {
-                daysLowpICU.merge(day, labMinutes, Double::sum);
-            } else if (timeSeriesMap.get("pICU").get(i) >= pICUHigh) {
-                daysHighpICU.merge(day, labMinutes, Double::sum);
-            } else {
-                daysMediumpICU.merge(day, labMinutes, Double::sum);
-            }
-        }
-        int numDays = dayLog.values().stream().mapToInt(dr -> dr.simDay).max().orElse(daysLowpAE.size() - 1);
+        int numDays = dayLog.values().stream().mapToInt(dr -> dr.simDay).max().orElse(riskLabMinutes.size() - 1);
 
         for (int d = 0; d <= numDays; d++) {
-            daysLowpAE.merge(d, 0.0, Double::sum);
-            daysMediumpAE.merge(d, 0.0, Double::sum);
-            daysHighpAE.merge(d, 0.0, Double::sum);
-            daypAELabMinutes.merge(d, 0.0, Double::sum);
-            dayTotalLabMinutes.merge(d, 0.0, Double::sum);
-            double avgpAE = dayTotalLabMinutes.get(d) != 0 ? daypAELabMinutes.get(d) / dayTotalLabMinutes.get(d) : 0.0000001;
+            RiskLabMinutes today = riskLabMinutes.computeIfAbsent(d, k -> new RiskLabMinutes());
+            double avgpAE = today.total != 0 ? today.pAEWeighted / today.total : 0.0000001;
 
             daysAvgRiskpAE.put(d, avgpAE);
             if (verbose) {
-                metricList.add(Metric.newBuilder().setKey("Daily_Low_pAE_Risk_Lab_Minutes").setValue(daysLowpAE.get(d)).setTimestamp(d).setStep(d).build());
-                metricList.add(Metric.newBuilder().setKey("Daily_Medium_pAE_Risk_Lab_Minutes").setValue(daysMediumpAE.get(d)).setTimestamp(d).setStep(d).build());
-                metricList.add(Metric.newBuilder().setKey("Daily_High_pAE_Risk_Lab_Minutes").setValue(daysHighpAE.get(d)).setTimestamp(d).setStep(d).build());
+                metricList.add(Metric.newBuilder().setKey("Daily_Low_pAE_Risk_Lab_Minutes").setValue(today.lowpAE).setTimestamp(d).setStep(d).build());
+                metricList.add(Metric.newBuilder().setKey("Daily_Medium_pAE_Risk_Lab_Minutes").setValue(today.mediumpAE).setTimestamp(d).setStep(d).build());
+                metricList.add(Metric.newBuilder().setKey("Daily_High_pAE_Risk_Lab_Minutes").setValue(today.highpAE).setTimestamp(d).setStep(d).build());
                 metricList.add(Metric.newBuilder().setKey("Daily_Weighted_Average_pAE").setValue(avgpAE).setTimestamp(d).setStep(d).build());
             }
 
-            daysLowpICU.merge(d, 0.0, Double::sum);
-            daysMediumpICU.merge(d, 0.0, Double::sum);
-            daysHighpICU.merge(d, 0.0, Double::sum);
-            daypICULabMinutes.merge(d, 0.0, Double::sum);
-            double avgpICU = dayTotalLabMinutes.get(d) != 0 ? daypICULabMinutes.get(d) / dayTotalLabMinutes.get(d) : 0.0000001;
+            double avgpICU = today.total != 0 ? today.pICUWeighted / today.total : 0.0000001;
 
             daysAvgRiskpICU.put(d, avgpICU);
             if (verbose) {
-                metricList.add(Metric.newBuilder().setKey("Daily_Low_pICU_Risk_Lab_Minutes").setValue(daysLowpICU.get(d)).setTimestamp(d).setStep(d).build());
-                metricList.add(Metric.newBuilder().setKey("Daily_Medium_pICU_Risk_Lab_Minutes").setValue(daysMediumpICU.get(d)).setTimestamp(d).setStep(d).build());
-                metricList.add(Metric.newBuilder().setKey("Daily_High_pICU_Risk_Lab_Minutes").setValue(daysHighpICU.get(d)).setTimestamp(d).setStep(d).build());
+                metricList.add(Metric.newBuilder().setKey("Daily_Low_pICU_Risk_Lab_Minutes").setValue(today.lowpICU).setTimestamp(d).setStep(d).build());
+                metricList.add(Metric.newBuilder().setKey("Daily_Medium_pICU_Risk_Lab_Minutes").setValue(today.mediumpICU).setTimestamp(d).setStep(d).build());
+                metricList.add(Metric.newBuilder().setKey("Daily_High_pICU_Risk_Lab_Minutes").setValue(today.highpICU).setTimestamp(d).setStep(d).build());
                 metricList.add(Metric.newBuilder().setKey("Daily_Weighted_Average_pICU").setValue(avgpICU).setTimestamp(d).setStep(d).build());
                 metricList.add(Metric.newBuilder().setKey("Daily_Cases_Sent_ICU").setValue(dayLog.get(d).newNumSentICU).setTimestamp(d).setStep(d).build());
             }
@@ -693,35 +811,34 @@ public class Metrics implements Serializable {
                 for (Lab l : model.entityManager.labMap.values()) {
                     metricList.add(Metric.newBuilder().setKey(l.name.replace(" ", "_") + "_Daily_Utilization_Rate")
                             .setValue(dayLog.get(d).cumulativeLabTimes.get(l.name) / (dayEnd - dayStart)).setTimestamp(d).setStep(d).build());
-                    timeRelativeToEOD = model.cathSchedule.allPatients.stream().filter(p -> p.day == currentDay && p.lab == l && p.tEnd != null).
-                            mapToDouble(p -> p.tEnd).max()
-                            .orElse(currentDay * CathSchedule.MIN_PER_DAY + dayEnd) - (d * CathSchedule.MIN_PER_DAY + dayEnd);
+                    timeRelativeToEOD = dayLog.get(d).labLatestEnd.getOrDefault(l.name, currentDay * CathSchedule.MIN_PER_DAY + dayEnd)
+                            - (d * CathSchedule.MIN_PER_DAY + dayEnd);
                     metricList.add(Metric.newBuilder().setKey(l.name.replace(" ", "_") + "_Daily_End_Time_Relative_To_EOD")
                             .setValue(timeRelativeToEOD).setTimestamp(d).setStep(d).build());
                 }
                 // System-level
                 metricList.add(Metric.newBuilder().setKey("System_Lab_Daily_Utilization_Rate")
                         .setValue(dayLog.get(d).cumulativeLabTimes.get("System") / (dayEnd - dayStart)).setTimestamp(d).setStep(d).build());
-                timeRelativeToEOD = model.cathSchedule.allPatients.stream().filter(p -> p.day == currentDay && p.tEnd != null).
-                        mapToDouble(p -> p.tEnd).max().orElse(currentDay * CathSchedule.MIN_PER_DAY + dayEnd) - (d * CathSchedule.MIN_PER_DAY + dayEnd);
+                timeRelativeToEOD = dayLog.get(d).labLatestEnd.getOrDefault("System", currentDay * CathSchedule.MIN_PER_DAY + dayEnd)
+                        - (d * CathSchedule.MIN_PER_DAY + dayEnd);
                 metricList.add(Metric.newBuilder().setKey("System_Daily_End_Time_Relative_To_EOD").setValue(timeRelativeToEOD)
                         .setTimestamp(d).setStep(d).build());
             }
         }
 
-        metricList.add(Metric.newBuilder().setKey("Total_Low_pAE_Risk_Lab_Minutes").setValue(daysLowpAE.values().stream()
-                .mapToDouble(d -> d).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-        metricList.add(Metric.newBuilder().setKey("Total_Medium_pAE_Risk_Lab_Minutes").setValue(daysMediumpAE.values().stream()
-                .mapToDouble(d -> d).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-        metricList.add(Metric.newBuilder().setKey("Total_High_pAE_Risk_Lab_Minutes").setValue(daysHighpAE.values().stream()
-                .mapToDouble(d -> d).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
+        metricList.add(Metric.newBuilder().setKey("Total_Low_pAE_Risk_Lab_Minutes").setValue(riskLabMinutes.values().stream()
+                .mapToDouble(r -> r.lowpAE).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
+        metricList.add(Metric.newBuilder().setKey("Total_Medium_pAE_Risk_Lab_Minutes").setValue(riskLabMinutes.values().stream()
+                .mapToDouble(r -> r.mediumpAE).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
+        metricList.add(Metric.newBuilder().setKey("Total_High_pAE_Risk_Lab_Minutes").setValue(riskLabMinutes.values().stream()
+                .mapToDouble(r -> r.highpAE).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
 
-        metricList.add(Metric.newBuilder().setKey("Total_Low_pICU_Risk_Lab_Minutes").setValue(daysLowpICU.values().stream()
-                .mapToDouble(d -> d).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-        metricList.add(Metric.newBuilder().setKey("Total_Medium_pICU_Risk_Lab_Minutes").setValue(daysMediumpICU.values().stream()
-                .mapToDouble(d -> d).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
-        metricList.add(Metric.newBuilder().setKey("Total_High_pICU_Risk_Lab_Minutes").setValue(daysHighpICU.values().stream()
-                .mapToDouble(d -> d).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
+        metricList.add(Metric.newBuilder().setKey("Total_Low_pICU_Risk_Lab_Minutes").setValue(riskLabMinutes.values().stream()
+                .mapToDouble(r -> r.lowpICU).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
+        metricList.add(Metric.newBuilder().setKey("Total_Medium_pICU_Risk_Lab_Minutes").setValue(riskLabMinutes.values().stream()
+                .mapToDouble(r -> r.mediumpICU).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
+        metricList.add(Metric.newBuilder().setKey("Total_High_pICU_Risk_Lab_Minutes").setValue(riskLabMinutes.values().stream()
+                .mapToDouble(r -> r.highpICU).sum()).setTimestamp(Instant.now().toEpochMilli()).setStep(0).build());
 
         // Weekly Recorded Metrics
         if (verbose) {
@@ -740,6 +857,13 @@ public class Metrics implements Serializable {
             OptionalInt lastFri = dayLog.values().stream().filter(dr -> dr.simDay >= 4 && dr.weekDay == DayOfWeek.FRIDAY).mapToInt(dr -> dr.simDay).max();
 
             if (firstMon.isPresent() && lastFri.isPresent()) { // sim long enough to calculate at least one week's weekly metrics
+                // latest start time of each lab on each day, in one pass as start times are tentative until cases start
+                Map<Integer, Map<String, Double>> labLatestStarts = new HashMap<>();
+                for (Patient p : model.cathSchedule.allPatients) {
+                    if (p.day != null && p.lab != null && p.tStart != null) {
+                        labLatestStarts.computeIfAbsent(p.day, k -> new HashMap<>()).merge(p.lab.name, p.tStart, Math::max);
+                    }
+                }
                 for (int d = firstMon.getAsInt(); d <= lastFri.getAsInt(); d++) {
                     if (dayLog.get(d).weekDay != DayOfWeek.SATURDAY && dayLog.get(d).weekDay != DayOfWeek.SUNDAY) {
                         int weekNum = (d - firstMon.getAsInt()) / 7;
@@ -752,32 +876,30 @@ public class Metrics implements Serializable {
                         int labsRanHalfHourLate = 0;
                         int labsRanHourLate = 0;
                         int currentDay = d;
+                        Map<String, Double> latestEnds = dayLog.get(d).labLatestEnd;
+                        Map<String, Double> latestStarts = labLatestStarts.getOrDefault(d, Map.of());
                         for (Lab l : model.entityManager.labMap.values()) {
-                            if (model.cathSchedule.allPatients.stream().filter(p -> p.day == currentDay && p.lab == l && p.tEnd != null).
-                                    mapToDouble(p -> p.tEnd).max().orElse(currentDay * CathSchedule.MIN_PER_DAY + dayEnd)
+                            Double latestEnd = latestEnds.get(l.name);
+                            Double latestStart = latestStarts.get(l.name);
+                            if ((latestEnd != null ? latestEnd : currentDay * CathSchedule.MIN_PER_DAY + dayEnd)
                                     <= currentDay * CathSchedule.MIN_PER_DAY + dayEarly) {
                                 labsEndedEarly += 1;
                             }
-                            if (model.cathSchedule.allPatients.stream().filter(p -> p.day == currentDay && p.lab == l && p.tStart != null).
-                                    mapToDouble(p -> p.tStart).max().orElse(currentDay * CathSchedule.MIN_PER_DAY + dayStart)
+                            if ((latestStart != null ? latestStart : currentDay * CathSchedule.MIN_PER_DAY + dayStart)
                                     >= currentDay * CathSchedule.MIN_PER_DAY + dayEnd) {
                                 labsStartedAfterEOD += 1;
                             }
-                            if (model.cathSchedule.allPatients.stream().filter(p -> p.day == currentDay && p.lab == l && p.tStart != null).
-                                    mapToDouble(p -> p.tStart).max().orElse(currentDay * CathSchedule.MIN_PER_DAY + dayStart - 60)
+                            if ((latestStart != null ? latestStart : currentDay * CathSchedule.MIN_PER_DAY + dayStart - 60)
                                     >= currentDay * CathSchedule.MIN_PER_DAY + dayEnd - 60
-                                    && model.cathSchedule.allPatients.stream().filter(p -> p.day == currentDay && p.lab == l && p.tEnd != null).
-                                    mapToDouble(p -> p.tEnd).max().orElse(currentDay * CathSchedule.MIN_PER_DAY + dayStart)
+                                    && (latestEnd != null ? latestEnd : currentDay * CathSchedule.MIN_PER_DAY + dayStart)
                                     >= currentDay * CathSchedule.MIN_PER_DAY + dayEnd) {
                                 labsStartedHourBeforeRanAfter += 1;
                             }
-                            if (model.cathSchedule.allPatients.stream().filter(p -> p.day == currentDay && p.lab == l && p.tEnd != null).
-                                    mapToDouble(p -> p.tEnd).max().orElse(currentDay * CathSchedule.MIN_PER_DAY + dayStart)
+                            if ((latestEnd != null ? latestEnd : currentDay * CathSchedule.MIN_PER_DAY + dayStart)
                                     >= currentDay * CathSchedule.MIN_PER_DAY + dayEnd + 30) {
                                 labsRanHalfHourLate += 1;
                             }
-                            if (model.cathSchedule.allPatients.stream().filter(p -> p.day == currentDay && p.lab == l && p.tEnd != null).
-                                    mapToDouble(p -> p.tEnd).max().orElse(currentDay * CathSchedule.MIN_PER_DAY + dayStart)
+                            if ((latestEnd != null ? latestEnd : currentDay * CathSchedule.MIN_PER_DAY + dayStart)
                                     >= currentDay * CathSchedule.MIN_PER_DAY + dayEnd + 60) {
                                 labsRanHourLate += 1;
                             }
@@ -793,7 +915,7 @@ public class Metrics implements Serializable {
                         weeklyLabsRanHourAfterMap.merge(weekNum, labsRanHourLate, Integer::sum);
                         weeklyMultipleSentToICUDailyMap.merge(weekNum, dayLog.get(d).newNumSentICU > 1 ? 1 : 0, Integer::sum);
                         weeklyDaysWithHighCumulativeProbAE.merge(weekNum, daysAvgRiskpAE.get(d) >= 0.15 ? 1 : 0, Integer::sum);
-                        weeklyMinAtHigh.merge(weekNum, daysHighpAE.get(d), Double::sum);
+                        weeklyMinAtHigh.merge(weekNum, riskLabMinutes.get(d).highpAE, Double::sum);
                     }
                 }
                 int numWeeks = ((lastFri.getAsInt() - firstMon.getAsInt() - 4) / 7) + 1;
@@ -981,6 +1103,7 @@ public class Metrics implements Serializable {
         for (List<Service.Metric> ml : metricLists) {
             model.mlflowClient.logBatch(model.mlflowRunId, ml, null, null);
         }
+        return metricList;
     }
 
     /** Log parameters to a run in mlflow
@@ -1035,63 +1158,117 @@ public class Metrics implements Serializable {
         String newFolder = String.format("logs/metrics_%s", model.logFolder);
         new File(newFolder).mkdirs();
 
-        Map<String, List<Double>> timeSeriesMap = new HashMap<>();
-
-        timeSeriesMap.put("time", Arrays.stream(patients.toArray()[0]).boxed().toList());
-        timeSeriesMap.put("patients", Arrays.stream(patients.toArray()[1]).boxed().toList());
-        timeSeriesMap.put("pAE", Arrays.stream(pAE.toArray()[1]).boxed().toList());
-        timeSeriesMap.put("pICU", Arrays.stream(pICU.toArray()[1]).boxed().toList());
-        for (Map.Entry<String, XYSeries> entry: resources.entrySet()) {
-            timeSeriesMap.put(entry.getKey(), Arrays.stream(entry.getValue().toArray()[1]).boxed().toList());
-        }
-        List<List<Double>> timeSeriesRecords = new ArrayList<>();
-        ListIterator<Double> timeseriesIter = timeSeriesMap.get("time").listIterator();
-        while (timeseriesIter.hasNext()) {
-            timeSeriesRecords.add(timeSeriesMap.entrySet().stream().map(entry -> entry.getValue().get(timeseriesIter.nextIndex())).toList());
-            timeseriesIter.next();
-        }
+        Map<String, double[]> timeSeriesMap = timeSeriesLog();
+        double[][] timeSeriesColumns = timeSeriesMap.values().toArray(new double[0][]);
 
         new File(newFolder+"/timeseries").mkdirs();
         FileWriter timeSeriesWriter = new FileWriter(String.format(newFolder+"/timeseries/timeseries_%d.csv", this.seed));
         CSVPrinter timeSeriesPrinter = new CSVPrinter(timeSeriesWriter, CSVFormat.DEFAULT);
         timeSeriesPrinter.printRecord(timeSeriesMap.keySet());
-        timeSeriesPrinter.printRecords(timeSeriesRecords);
+        for (int i = 0; i < timeSeries.size(); i++) {
+            for (double[] column : timeSeriesColumns) {
+                timeSeriesPrinter.print(Double.toString(column[i]));
+            }
+            timeSeriesPrinter.println();
+        }
         timeSeriesWriter.flush();
         timeSeriesWriter.close();
 
-        new File(newFolder+"/insuffResource").mkdirs();
-        FileWriter insuffresourceWriter = new FileWriter(String.format(newFolder+"/insuffResource/insuffResource_%d.csv", this.seed));
-        CSVPrinter insuffresourcePrinter = new CSVPrinter(insuffresourceWriter, CSVFormat.DEFAULT);
-        insuffresourcePrinter.printRecord("patient", "resource", "time", "count", "proceedWithout");
-        insuffresourcePrinter.printRecords(insuffResources.stream()
+        writeCSVLog(newFolder, "insuffResource", this.seed, INSUFF_RESOURCE_HEADER, insuffResourceRows());
+        writeCSVLog(newFolder, "patientLog", this.seed, PATIENT_LOG_HEADER, patientLogRows());
+        writeCSVLog(newFolder, "patients", this.seed, List.of(Patient.csvHeader()),
+                model.cathSchedule.allPatients.stream().map(Patient::csvRow).toList());
+        List<String> daysHeader = daysHeader();
+        writeCSVLog(newFolder, "days", this.seed, daysHeader, daysRows(daysHeader.size()));
+        writeCSVLog(newFolder, "events", this.seed, List.of(Event.csvHeader()),
+                model.eventLedger.getLog().stream().map(Event::csvRow).toList());
+    }
+
+    /**
+     * Write all metrics logged to CSV files by writeToCSV to a binary columnar file instead, as chunks of the seed.
+     *
+     * @param writer writer of the columnar file of the run
+     * @throws IOException if the chunks cannot be written
+     */
+    public void writeToColumnar(ColumnarLogWriter writer) throws IOException {
+        // all the logs of the seed are appended at once, so a file never holds only some of them
+        ColumnarLogWriter.Batch batch = new ColumnarLogWriter.Batch(this.seed);
+        Map<String, double[]> timeSeriesMap = timeSeriesLog();
+        batch.writeNumbers("timeseries", new ArrayList<>(timeSeriesMap.keySet()), new ArrayList<>(timeSeriesMap.values()));
+        batch.writeRows("insuffResource", INSUFF_RESOURCE_HEADER, insuffResourceRows());
+        batch.writeRows("patientLog", PATIENT_LOG_HEADER, patientLogRows());
+        batch.writeRows("patients", List.of(Patient.csvHeader()),
+                model.cathSchedule.allPatients.stream().map(Patient::csvRow).toList());
+        List<String> daysHeader = daysHeader();
+        batch.writeRows("days", daysHeader, daysRows(daysHeader.size()));
+        batch.writeRows("events", List.of(Event.csvHeader()),
+                model.eventLedger.getLog().stream().map(Event::csvRow).toList());
+        writer.append(batch);
+    }
+
+    /** Write a log to its CSV file, folder/log/log_seed.csv, in UTF-8 as ColumnarLogReader exports it
+     *
+     * @param folder metrics folder of the run
+     * @param log name of the log
+     * @param seed seed of the iteration
+     * @param header column names
+     * @param rows values of each row
+     * @throws IOException if the file cannot be written
+     */
+    static void writeCSVLog(String folder, String log, long seed, List<String> header, List<String[]> rows)
+            throws IOException {
+        new File(folder + "/" + log).mkdirs();
+        FileWriter writer = new FileWriter(String.format("%s/%s/%s_%d.csv", folder, log, log, seed), StandardCharsets.UTF_8);
+        CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT);
+        printer.printRecord(header);
+        printer.printRecords(rows);
+        writer.flush();
+        writer.close();
+    }
+
+    /** Get the columns of the timeseries log.
+     *
+     * @return values of each column, in the order of a hash map of their names, as the file has always had them
+     */
+    private Map<String, double[]> timeSeriesLog() {
+        Map<String, double[]> timeSeriesMap = new HashMap<>();
+        timeSeriesMap.put("time", timeSeries.getTimes());
+        timeSeriesMap.put("patients", timeSeries.getColumn("patients"));
+        timeSeriesMap.put("pAE", timeSeries.getColumn("pAE"));
+        timeSeriesMap.put("pICU", timeSeries.getColumn("pICU"));
+        for (String r: resources.keySet()) {
+            timeSeriesMap.put(r, timeSeries.getColumn(r));
+        }
+        return timeSeriesMap;
+    }
+
+    /** Get the rows of the insuffResource log.
+     *
+     * @return values of each row, in the order of INSUFF_RESOURCE_HEADER
+     */
+    private List<String[]> insuffResourceRows() {
+        return insuffResources.stream()
                 .map(ir -> new String[]{ir.patient.toString(), ir.resource.toString(), String.valueOf(ir.time),
-                        String.valueOf(ir.count), String.valueOf(ir.proceedWithout)}).toList());
-        insuffresourceWriter.flush();
-        insuffresourceWriter.close();
-
-        new File(newFolder+"/patientLog").mkdirs();
-        FileWriter patientLogWriter = new FileWriter(String.format(newFolder+"/patientLog/patientLog_%d.csv", this.seed));
-        CSVPrinter patientLogPrinter = new CSVPrinter(patientLogWriter, CSVFormat.DEFAULT);
-        patientLogPrinter.printRecord("patient", "event", "time");
-        patientLogPrinter.printRecords(patientLogs.stream().map(patientLog -> new String[]{
+                        String.valueOf(ir.count), String.valueOf(ir.proceedWithout)}).toList();
+    }
+
+    /** Get the rows of the patientLog log.
+     *
+     * @return values of each row, in the order of PATIENT_LOG_HEADER
+     */
+    private List<String[]> patientLogRows() {
+        return patientLogs.stream().map(patientLog -> new String[]{
                 patientLog.patient.toString(),
                 patientLog.event,
                 String.valueOf(patientLog.time)
-        }).toList());
-        patientLogWriter.flush();
-        patientLogWriter.close();
-
-        new File(newFolder+"/patients").mkdirs();
-        FileWriter patientsWriter = new FileWriter(String.format(newFolder+"/patients/patients_%d.csv", this.seed));
-        CSVPrinter patientsPrinter = new CSVPrinter(patientsWriter, CSVFormat.DEFAULT);
-        patientsPrinter.printRecord(List.of(Patient.csvHeader()));
-        patientsPrinter.printRecords(model.cathSchedule.allPatients.stream().map(Patient::csvRow).toList());
-        patientsWriter.flush();
-        patientsWriter.close();
-
-        new File(newFolder+"/days").mkdirs();
-        FileWriter daysWriter = new FileWriter(String.format(newFolder+"/days/days_%d.csv", this.seed));
-        CSVPrinter daysPrinter = new CSVPrinter(daysWriter, CSVFormat.DEFAULT);
+        }).toList();
+    }
+
+    /** Get the column names of the days log.
+     *
+     * @return column names
+     */
+    private List<String> daysHeader() {
         ArrayList<String> colNames = new ArrayList<>();
         colNames.add("Day");
         for (EnumMap.Entry<Patient.AELevel, Integer> m : dayLog.get(0).AELevelCounts.entrySet()) {
@@ -1130,9 +1307,16 @@ public class Metrics implements Serializable {
             colNames.add(m.getKey() + " Usage"); // (Resource Instance Name) Usage
         }
 
-        daysPrinter.printRecord(colNames);
-        int fields = colNames.size();
-        daysPrinter.printRecords(dayLog.values().stream().map(dr -> {
+        return colNames;
+    }
+
+    /** Get the rows of the days log.
+     *
+     * @param fields number of columns
+     * @return values of each row, in the order of daysHeader
+     */
+    private List<String[]> daysRows(int fields) {
+        return dayLog.values().stream().map(dr -> {
             String[] returnStr = new String[fields];
             ArrayList<String> tempArr = new ArrayList<>();
             tempArr.add(String.valueOf(dr.simDay));
@@ -1167,18 +1351,7 @@ public class Metrics implements Serializable {
                 returnStr[i] = tempArr.get(i);
             }
             return returnStr;
-        }).toList());
-        daysWriter.flush();
-        daysWriter.close();
-
-        new File(newFolder+"/events").mkdirs();
-        FileWriter eventsWriter = new FileWriter(String.format(newFolder+"/events/events_%d.csv", this.seed));
-        CSVPrinter eventsPrinter = new CSVPrinter(eventsWriter, CSVFormat.DEFAULT);
-        eventsPrinter.printRecord(List.of(Event.csvHeader()));
-        eventsPrinter.printRecords(model.eventQueue.stream().map(Event::csvRow).toList());
-        eventsWriter.flush();
-        eventsWriter.close();
-
+        }).toList();
     }
 
     /** Writes simulation output csv files as artifacts to Mlflow
@@ -1224,6 +1397,20 @@ public class Metrics implements Serializable {
         }
     }
 
+    /** Lab minutes of a day, weighted by and by band of the aggregate pAE and pICU */
+    public static class RiskLabMinutes implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public double total;
+        public double pAEWeighted;
+        public double pICUWeighted;
+        public double lowpAE;
+        public double mediumpAE;
+        public double highpAE;
+        public double lowpICU;
+        public double mediumpICU;
+        public double highpICU;
+    }
+
     public class DayRecord { // note all time values reported in minutes
         public CathLabSim model;
         public int simDay;
@@ -1256,6 +1443,7 @@ public class Metrics implements Serializable {
         public int addonTotalCount;
         public Map<String, Double> labTimeAfterEOD;
         public Map<String, Boolean> labDayHadAfterEOD;
+        public Map<String, Double> labLatestEnd;
         public int casesAfterEOD;
         public int EaddonsAfterEOD;
         public int UaddonsAfterEOD;
@@ -1342,6 +1530,8 @@ public class Metrics implements Serializable {
                 this.labDayHadAfterEOD.put(l.name.replace(" ", "_")+"_Fri", false);
             }
 
+            this.labLatestEnd = new HashMap<>(); // by lab name and "System", only for labs with a case that ended
+
             this.casesAfterEOD = 0;
             this.EaddonsAfterEOD = 0;
             this.UaddonsAfterEOD = 0;
@@ -9,7 +9,11 @@ package org.mitre.bch.cath.simulation.utils;
 import ec.util.MersenneTwisterFast;
 import org.apache.commons.math3.random.RandomGenerator;
 
+import java.io.Serial;
+
 public class RandomNumberGenerator extends MersenneTwisterFast implements RandomGenerator {
+    @Serial
+    private static final long serialVersionUID = 1L;
 
     /** random number generator seed */
     private int seed;
@@ -36,7 +40,7 @@ public class RandomNumberGenerator extends MersenneTwisterFast implements Random
      */
     @Override
     public void setSeed(int seed) {
-        super.setSeed(seed);
+        setSeed((long) seed);
         this.seed = seed;
     }
 
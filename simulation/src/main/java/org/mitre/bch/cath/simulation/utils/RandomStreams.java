@@ -0,0 +1,39 @@
+package org.mitre.bch.cath.simulation.utils;
+
+/**
+ * How the random number streams of a simulation iteration are created.
+ * SEEDED creates every stream as a Mersenne Twister seeded with the iteration seed, as the simulation always has, so
+ * results of a seed are reproducible across versions. SPLIT splits every stream off a counter-based
+ * SplittableRandomNumberGenerator by the seed and the stream's name, so the streams are small, cheap to create and
+ * independent of each other, but a seed gives different results.
+ * COMMON uses the same split streams, and draws for each patient, day, and lab and day from its own substream, so
+ * replications of alternative schedules or configs with the same seed see the same random numbers for the same
+ * patients and days (common random numbers), and their differences need fewer iterations to tell apart.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public enum RandomStreams {
+    SEEDED, SPLIT, COMMON;
+
+    /** Parse a random streams mode from a string, falling back to SEEDED
+     *
+     * @param value random streams mode name, case-insensitive, may be null
+     * @return the random streams mode
+     */
+    public static RandomStreams parse(String value) {
+        if (value == null || value.isBlank()) {
+            return SEEDED;
+        }
+        return RandomStreams.valueOf(value.trim().toUpperCase());
+    }
+
+    /** Create a random number stream of an iteration
+     *
+     * @param seed iteration seed
+     * @param name stream name, unique within the iteration
+     * @return the stream
+     */
+    public RandomNumberGenerator create(int seed, String name) {
+        return this == SEEDED ? new RandomNumberGenerator(seed) : SplittableRandomNumberGenerator.stream(seed, name);
+    }
+}
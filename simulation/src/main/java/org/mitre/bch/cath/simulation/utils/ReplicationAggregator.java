@@ -0,0 +1,150 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import org.mlflow.api.proto.Service.Metric;
+
+import java.time.Instant;
+import java.util.*;
+
+/** Replication Aggregator class
+ * Aggregates the summary metrics of the simulation iterations of a run in memory, as each iteration finishes, so the
+ * parent run's aggregate metrics don't need to be read back from Mlflow. Keeps a streaming mean, standard deviation,
+ * min and max of each metric, and its values for the exact median and quartiles.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public class ReplicationAggregator {
+    //===== Attributes ======//
+    /** Accumulator of each aggregated metric, in the order the metrics were given */
+    private final Map<String, Accumulator> accumulators = new LinkedHashMap<>();
+
+    /** Number of iterations recorded */
+    private int count = 0;
+
+    //===== Constructors ======//
+    /** Constructor for ReplicationAggregator
+     *
+     * @param aggMetrics names of the metrics to aggregate
+     */
+    public ReplicationAggregator(List<String> aggMetrics) {
+        for (String met : aggMetrics) {
+            accumulators.put(met, new Accumulator());
+        }
+    }
+
+    //===== Methods ======//
+    /** Record the summary metrics of an iteration. Metrics not being aggregated are ignored, and for a metric logged
+     * at several steps the value of the latest step is used, as Mlflow reports it on the run.
+     *
+     * @param metricList metrics written by the iteration
+     */
+    public synchronized void record(List<Metric> metricList) {
+        Map<String, Metric> latest = new HashMap<>();
+        for (Metric m : metricList) {
+            if (accumulators.containsKey(m.getKey())) {
+                latest.merge(m.getKey(), m, (a, b) -> b.getStep() >= a.getStep() ? b : a);
+            }
+        }
+        for (Map.Entry<String, Accumulator> e : accumulators.entrySet()) {
+            Metric m = latest.get(e.getKey());
+            if (m == null) {
+                throw new IllegalArgumentException("Iteration did not write metric " + e.getKey());
+            }
+            e.getValue().add(m.getValue());
+        }
+        count++;
+    }
+
+    /** Get the number of iterations recorded
+     *
+     * @return number of iterations
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /** Build the aggregate metrics, the mean, SD, min, max, median, Q1 and Q3 of each metric
+     *
+     * @return list of aggregate metrics
+     */
+    public synchronized List<Metric> toMetrics() {
+        List<Metric> metricList = new ArrayList<>();
+        for (Map.Entry<String, Accumulator> e : accumulators.entrySet()) {
+            String met = e.getKey();
+            Accumulator acc = e.getValue();
+            double[] sorted = Arrays.copyOf(acc.values, acc.n);
+            Arrays.sort(sorted);
+            int len = sorted.length;
+            double medMet = median(sorted, 0, len);
+            double q1Met = len == 1 ? medMet : median(sorted, 0, len / 2);
+            double q3Met = len == 1 ? medMet : len % 2 == 1 ? median(sorted, (len / 2) + 1, len) :
+                    median(sorted, len / 2, len);
+
+            metricList.add(metric(met + "_Mean", acc.n == 0 ? 0.0 : acc.mean));
+            metricList.add(metric(met + "_SD", acc.n == 0 ? Double.NaN : Math.sqrt(acc.m2 / acc.n)));
+            metricList.add(metric(met + "_Min", acc.n == 0 ? 0.0 : acc.min));
+            metricList.add(metric(met + "_Max", acc.n == 0 ? 0.0 : acc.max));
+            metricList.add(metric(met + "_Median", medMet));
+            metricList.add(metric(met + "_Q1", q1Met));
+            metricList.add(metric(met + "_Q3", q3Met));
+        }
+        return metricList;
+    }
+
+    /** Find the median of a range of sorted values
+     *
+     * @param sorted sorted values
+     * @param from start of the range, inclusive
+     * @param to end of the range, exclusive
+     * @return median of the range
+     */
+    private static double median(double[] sorted, int from, int to) {
+        int len = to - from;
+        if (len == 0) {
+            return Double.NaN;
+        }
+        return len % 2 == 1 ? sorted[from + len / 2] : (sorted[from + len / 2] + sorted[from + len / 2 - 1]) / 2;
+    }
+
+    /** Build a run-level metric
+     *
+     * @param key metric name
+     * @param value metric value
+     * @return the metric
+     */
+    private static Metric metric(String key, double value) {
+        return Metric.newBuilder().setKey(key).setValue(value).setTimestamp(Instant.now().toEpochMilli()).setStep(0)
+                .build();
+    }
+
+    //===== SubClasses ======//
+    /** Streaming (Welford) mean and variance, min, max, and the values of one metric */
+    private static class Accumulator {
+        /** number of values */
+        int n = 0;
+        /** running mean */
+        double mean = 0;
+        /** running sum of squared differences from the mean */
+        double m2 = 0;
+        /** minimum value */
+        double min = Double.POSITIVE_INFINITY;
+        /** maximum value */
+        double max = Double.NEGATIVE_INFINITY;
+        /** all values, for the quantiles */
+        double[] values = new double[16];
+
+        /** Add a value
+         * @param v the value
+         */
+        void add(double v) {
+            if (n == values.length) {
+                values = Arrays.copyOf(values, 2 * n);
+            }
+            values[n++] = v;
+            double delta = v - mean;
+            mean += delta / n;
+            m2 += delta * (v - mean);
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Replication Executor
+ * Dedicated, bounded executor for simulation iterations (replications). Caps the number of iterations running in
+ * parallel, blocks submission once too many iterations are in flight (so only a bounded number of CathLabSim
+ * instances and Mlflow runs are alive at a time), interrupts iterations that run longer than a timeout, which ends
+ * only that iteration, as KILLED, and cancels the outstanding iterations on the first failure or on request.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public class ReplicationExecutor implements AutoCloseable {
+    /** Static Logger object */
+    private static final Logger SLOGGER = LoggerFactory.getLogger(ReplicationExecutor.class);
+
+    //===== Attributes ======//
+    /** Worker pool running the iterations */
+    private final ExecutorService pool;
+
+    /** Timer interrupting iterations that run past the timeout, null if there is no timeout */
+    private final ScheduledExecutorService watchdog;
+
+    /** Permits for iterations submitted but not yet finished */
+    private final Semaphore inFlight;
+
+    /** Per-iteration timeout in milliseconds, 0 for none */
+    private final long timeoutMillis;
+
+    /** Futures of all submitted iterations */
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    /** First failure of an iteration */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /** Number of completed iterations */
+    private final AtomicInteger completed = new AtomicInteger();
+
+    /** Number of iterations KILLED by the timeout */
+    private final AtomicInteger timedOut = new AtomicInteger();
+
+    /** Called for each iteration KILLED by the timeout */
+    private final Runnable onTimedOut;
+
+    /** Whether the executor has been cancelled */
+    private volatile boolean cancelled = false;
+
+    //===== Constructors ======//
+    /** Constructor for a ReplicationExecutor
+     *
+     * @param parallelism maximum number of iterations running at the same time, available processors if not positive
+     * @param maxInFlight maximum number of iterations submitted but not finished, at least parallelism,
+     *                    twice the parallelism if not positive
+     * @param timeoutMinutes per-iteration timeout in minutes, no timeout if not positive
+     */
+    public ReplicationExecutor(int parallelism, int maxInFlight, long timeoutMinutes) {
+        this(parallelism, maxInFlight, timeoutMinutes, () -> { });
+    }
+
+    /** Constructor for a ReplicationExecutor
+     *
+     * @param parallelism maximum number of iterations running at the same time, available processors if not positive
+     * @param maxInFlight maximum number of iterations submitted but not finished, at least parallelism,
+     *                    twice the parallelism if not positive
+     * @param timeoutMinutes per-iteration timeout in minutes, no timeout if not positive
+     * @param onTimedOut called on the worker thread for each iteration KILLED by the timeout
+     */
+    public ReplicationExecutor(int parallelism, int maxInFlight, long timeoutMinutes, Runnable onTimedOut) {
+        this.onTimedOut = onTimedOut;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "replication-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.inFlight = new Semaphore(maxInFlight > 0 ? Math.max(threads, maxInFlight) : 2 * threads);
+        this.timeoutMillis = timeoutMinutes > 0 ? TimeUnit.MINUTES.toMillis(timeoutMinutes) : 0;
+        this.watchdog = timeoutMillis > 0 ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replication-watchdog");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        SLOGGER.info("Replication executor with {} threads, {} in flight, timeout {} min", threads,
+                inFlight.availablePermits(), timeoutMinutes > 0 ? timeoutMinutes : "none");
+    }
+
+    //===== Methods ======//
+    /** Submit an iteration. Blocks while the maximum number of iterations are in flight.
+     *
+     * @param name name of the iteration, for logging
+     * @param replication the iteration to run
+     * @throws InterruptedException if interrupted while waiting for an in-flight permit
+     * @throws RuntimeException the first failure of an iteration, if it cancelled the executor
+     * @throws CancellationException if the executor has been cancelled without a failure
+     */
+    public void submit(String name, Runnable replication) throws InterruptedException {
+        // the cancelled iterations release their permits as they exit, waking up a blocked submit
+        inFlight.acquire();
+        if (cancelled) {
+            inFlight.release();
+            // report the failure that cancelled the executor, as awaitAll would
+            awaitAll();
+            throw new CancellationException("Replication executor has been cancelled");
+        }
+        Token token = new Token();
+        // claimed by the iteration when it starts, or by done if it is cancelled before it started, so the permit is
+        // released exactly once, and only when the iteration is no longer running
+        AtomicBoolean claimed = new AtomicBoolean();
+        FutureTask<Void> future = new FutureTask<>(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                run(name, replication, token);
+            } catch (RuntimeException | Error e) {
+                if (token.isTimedOut()) {
+                    SLOGGER.error("{} KILLED after timing out", name, e);
+                    timedOut.incrementAndGet();
+                    onTimedOut.run();
+                } else if (!cancelled) {
+                    SLOGGER.error("{} Failed", name, e);
+                    if (failure.compareAndSet(null, e)) {
+                        cancel();
+                    }
+                }
+                throw e;
+            } finally {
+                inFlight.release();
+            }
+        }, null) {
+            /** Release the permit of an iteration cancelled before it started. A cancelled iteration that is running
+             * is only interrupted, and releases its permit once it exits. */
+            @Override
+            protected void done() {
+                if (claimed.compareAndSet(false, true)) {
+                    inFlight.release();
+                }
+            }
+        };
+        synchronized (futures) {
+            futures.add(future);
+        }
+        pool.execute(future);
+    }
+
+    /** Run an iteration on the current worker thread, interrupting it if it runs past the timeout
+     *
+     * @param name name of the iteration, for logging
+     * @param replication the iteration to run
+     * @param token token of this run of the iteration, checked by the watchdog before interrupting
+     */
+    private void run(String name, Runnable replication, Token token) {
+        if (cancelled) {
+            throw new CancellationException(name + " cancelled before it started");
+        }
+        ScheduledFuture<?> timer = null;
+        if (watchdog != null) {
+            Thread worker = Thread.currentThread();
+            timer = watchdog.schedule(() -> {
+                if (token.interrupt(worker)) {
+                    SLOGGER.error("{} timed out after {} ms", name, timeoutMillis);
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        try {
+            replication.run();
+            SLOGGER.info("{} completed ({} done)", name, completed.incrementAndGet());
+        } finally {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            // after this, the watchdog can no longer interrupt the worker, which may go on to run another iteration
+            token.finish();
+            // don't leak an interrupt into the next iteration run by this worker
+            Thread.interrupted();
+        }
+    }
+
+    /** Wait for all submitted iterations to finish.
+     *
+     * @throws RuntimeException wrapping the first failure of an iteration
+     * @throws CancellationException if the executor was cancelled without a failure
+     */
+    public void awaitAll() {
+        List<Future<?>> submitted;
+        synchronized (futures) {
+            submitted = new ArrayList<>(futures);
+        }
+        for (Future<?> future : submitted) {
+            try {
+                future.get();
+            } catch (CancellationException | ExecutionException e) {
+                // the first failure is reported below
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for iterations");
+            }
+        }
+        if (timedOut.get() > 0) {
+            SLOGGER.warn("{} iterations timed out and were KILLED", timedOut.get());
+        }
+        Throwable t = failure.get();
+        if (t != null) {
+            throw t instanceof RuntimeException re ? re : new RuntimeException(t);
+        }
+        if (cancelled) {
+            throw new CancellationException("Replication executor has been cancelled");
+        }
+    }
+
+    /** Cancel all outstanding iterations. Running iterations are interrupted. */
+    public void cancel() {
+        cancelled = true;
+        List<Future<?>> submitted;
+        synchronized (futures) {
+            submitted = new ArrayList<>(futures);
+        }
+        for (Future<?> future : submitted) {
+            future.cancel(true);
+        }
+    }
+
+    /** Get the number of completed iterations
+     *
+     * @return number of completed iterations
+     */
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    /** Get the number of iterations ended by the timeout
+     *
+     * @return number of timed out iterations
+     */
+    public int getTimedOut() {
+        return timedOut.get();
+    }
+
+    /** Shut down the worker pool and watchdog */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+    }
+
+    //===== SubClasses ======//
+    /** Token of one run of an iteration, shared by its worker and its watchdog timer, so the timer only interrupts
+     * the worker while it is still running that iteration */
+    private static class Token {
+        /** Whether the iteration is still running */
+        private boolean running = true;
+
+        /** Whether the iteration was interrupted by the timeout */
+        private boolean timedOut = false;
+
+        /** Interrupt the worker for the timeout, if it is still running the iteration
+         *
+         * @param worker the thread running the iteration
+         * @return whether the worker was interrupted
+         */
+        synchronized boolean interrupt(Thread worker) {
+            if (!running) {
+                return false;
+            }
+            timedOut = true;
+            worker.interrupt();
+            return true;
+        }
+
+        /** Mark the iteration finished, waiting for an interrupt in progress to be delivered */
+        synchronized void finish() {
+            running = false;
+        }
+
+        /** Check whether the iteration was interrupted by the timeout
+         *
+         * @return whether the iteration timed out
+         */
+        synchronized boolean isTimedOut() {
+            return timedOut;
+        }
+    }
+}
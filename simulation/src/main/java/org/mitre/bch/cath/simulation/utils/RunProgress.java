@@ -0,0 +1,111 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Run Progress class
+ * Thread-safe progress of a simulation run (all iterations of all child schedules), updated by runSim and read by
+ * the API to stream job progress.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public class RunProgress {
+    //===== Attributes ======//
+    /** Time the run started, in nanoseconds, valid once started is set */
+    private volatile long startNanos;
+
+    /** Whether the run has started, queued runs report no elapsed time or throughput */
+    private volatile boolean started = false;
+
+    /** Number of completed iterations */
+    private final AtomicInteger completed = new AtomicInteger();
+
+    /** Number of iterations KILLED by the timeout */
+    private final AtomicInteger killed = new AtomicInteger();
+
+    /** Total number of iterations of the run, 0 until known */
+    private volatile int total = 0;
+
+    /** Run id of the child schedule most recently started */
+    private volatile String childSchedule;
+
+    /** Index of the child schedule most recently started, starting from 1 */
+    private volatile int childScheduleIndex = 0;
+
+    /** Number of child schedules */
+    private volatile int childScheduleCount = 0;
+
+    //===== Methods ======//
+    /** Start the clock of the run, when it leaves the queue and runSim begins. Later calls have no effect. */
+    public synchronized void start() {
+        if (!started) {
+            startNanos = System.nanoTime();
+            started = true;
+        }
+    }
+
+    /** Set the total number of iterations of the run, starting its clock
+     *
+     * @param total total number of iterations
+     */
+    public void setTotal(int total) {
+        start();
+        this.total = total;
+    }
+
+    /** Record the start of the iterations of a child schedule
+     *
+     * @param childSchedule run id of the child schedule
+     * @param index index of the child schedule, starting from 1
+     * @param count number of child schedules
+     */
+    public void startChildSchedule(String childSchedule, int index, int count) {
+        this.childSchedule = childSchedule;
+        this.childScheduleIndex = index;
+        this.childScheduleCount = count;
+    }
+
+    /** Record a completed iteration */
+    public void iterationCompleted() {
+        completed.incrementAndGet();
+    }
+
+    /** Record an iteration KILLED by the timeout, which finished without completing */
+    public void iterationKilled() {
+        killed.incrementAndGet();
+    }
+
+    /** Take a snapshot of the progress
+     *
+     * @return the progress snapshot
+     */
+    public Snapshot snapshot() {
+        int done = completed.get();
+        int dead = killed.get();
+        int all = total;
+        // killed iterations are finished too, the run is done once completed and killed iterations reach the total
+        int finished = done + dead;
+        double elapsedSeconds = started ? (System.nanoTime() - startNanos) / 1e9 : 0;
+        double iterationsPerSecond = elapsedSeconds > 0 ? finished / elapsedSeconds : 0;
+        double etaSeconds = iterationsPerSecond > 0 && all > 0 ? Math.max(0, all - finished) / iterationsPerSecond : -1;
+        return new Snapshot(done, dead, all, childSchedule, childScheduleIndex, childScheduleCount, elapsedSeconds,
+                iterationsPerSecond, etaSeconds);
+    }
+
+    //===== SubClasses ======//
+    /** Progress of a run at a point in time
+     *
+     * @param completed number of completed iterations
+     * @param killed number of iterations KILLED by the timeout
+     * @param total total number of iterations, 0 if not known yet
+     * @param childSchedule run id of the child schedule most recently started
+     * @param childScheduleIndex index of the child schedule most recently started, starting from 1
+     * @param childScheduleCount number of child schedules
+     * @param elapsedSeconds seconds since the run started, 0 if not started yet
+     * @param iterationsPerSecond average number of iterations completed or killed per second since the run started,
+     *                            0 if not started yet
+     * @param etaSeconds estimated seconds until the run finishes, -1 if not known yet
+     */
+    public record Snapshot(int completed, int killed, int total, String childSchedule, int childScheduleIndex,
+                           int childScheduleCount, double elapsedSeconds, double iterationsPerSecond,
+                           double etaSeconds) {}
+}
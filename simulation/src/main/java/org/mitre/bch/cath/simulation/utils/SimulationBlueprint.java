@@ -0,0 +1,170 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import org.mitre.bch.cath.simulation.entity.Lab;
+import org.mitre.bch.cath.simulation.entity.Patient;
+import org.mitre.bch.cath.simulation.entity.Procedure;
+import org.mitre.bch.cath.simulation.entity.Resource;
+import org.mitre.bch.cath.simulation.model.CathLabSim;
+import org.mitre.bch.cath.simulation.model.CathSchedule;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/** Simulation Blueprint class
+ * An immutable, verified form of the config file. The blueprint is built once per simulation run by
+ * Config.readBlueprint or Config.uploadBlueprint, and every iteration only instantiates its own mutable
+ * entities (labs, resources, procedures) from it.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public final class SimulationBlueprint {
+    //===== Attributes ======//
+    /** The starting date of the simulation */
+    public final LocalDate startDate;
+
+    /** Time of day labs can start cases, in minutes */
+    public final double startTime;
+
+    /** Time of day labs would like to be finished by, in minutes */
+    public final double endTime;
+
+    /** Time of day a lab could be considered finished early, in minutes */
+    public final double earlyEndTime;
+
+    /** Whether add-on cases can be pushed */
+    public final boolean pushCases;
+
+    /** Threshold values for different pAE levels */
+    public final Map<String, Double> pAEThresholds;
+
+    /** Threshold values for different pICU levels */
+    public final Map<String, Double> pICUThresholds;
+
+    /** How many days an add-on can be bumped/pushed, depending on urgency */
+    public final Map<Patient.Urgency, Integer> pushBumpMap;
+
+    /** Whether push criteria apply to an add-on, depending on urgency */
+    public final Map<Patient.Urgency, Map<String, Boolean>> pushBooleansMap;
+
+    /** Which add-on case push criteria are active */
+    public final Map<String, Boolean> pushCriteriaActive;
+
+    /** Which criteria apply to which urgencies */
+    public final Map<String, List<String>> pushCriteriaUrgencies;
+
+    /** Threshold values for various push criteria */
+    public final Map<String, Map<String, Double>> pushCriteriaValues;
+
+    /** Config labs */
+    private final List<Config.Lab> labs;
+
+    /** Config resources */
+    private final List<Config.Resource> resources;
+
+    /** Config procedures */
+    private final List<Config.Procedure> procedures;
+
+    /** Config steps, used to order steps in the case */
+    private final List<Config.Step> steps;
+
+    //===== Constructors ======//
+    /** Constructor, only called by Config once the config has been verified. All collections are expected to be
+     * unmodifiable.
+     *
+     * @throws VerificationException if a resource has neither instances nor a total
+     */
+    SimulationBlueprint(LocalDate startDate, double startTime, double endTime, double earlyEndTime, boolean pushCases,
+                        Map<String, Double> pAEThresholds, Map<String, Double> pICUThresholds,
+                        Map<Patient.Urgency, Integer> pushBumpMap,
+                        Map<Patient.Urgency, Map<String, Boolean>> pushBooleansMap,
+                        Map<String, Boolean> pushCriteriaActive, Map<String, List<String>> pushCriteriaUrgencies,
+                        Map<String, Map<String, Double>> pushCriteriaValues, List<Config.Lab> labs,
+                        List<Config.Resource> resources, List<Config.Procedure> procedures, List<Config.Step> steps) {
+        this.startDate = startDate;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.earlyEndTime = earlyEndTime;
+        this.pushCases = pushCases;
+        this.pAEThresholds = pAEThresholds;
+        this.pICUThresholds = pICUThresholds;
+        this.pushBumpMap = pushBumpMap;
+        this.pushBooleansMap = pushBooleansMap;
+        this.pushCriteriaActive = pushCriteriaActive;
+        this.pushCriteriaUrgencies = pushCriteriaUrgencies;
+        this.pushCriteriaValues = pushCriteriaValues;
+        this.labs = labs;
+        this.resources = resources;
+        this.procedures = procedures;
+        this.steps = steps;
+
+        // each iteration instantiates the resources from their instances or their total
+        for (Config.Resource resource: resources) {
+            if (resource.instances == null && resource.total <= 0) {
+                throw new VerificationException("Resource has neither instances nor a total: " + resource.name);
+            }
+        }
+    }
+
+    //===== Methods ======//
+    /** Populate the simulation attributes and instantiate the mutable entities of one simulation iteration
+     *
+     * @param cathLabSim the CathLabSim instance of the simulation
+     */
+    public void instantiate(CathLabSim cathLabSim) {
+        // set start date, lab times, and other simulation attributes
+        cathLabSim.startDate = startDate;
+        cathLabSim.startTime = startTime;
+        cathLabSim.endTime = endTime;
+        cathLabSim.earlyEndTime = earlyEndTime;
+        cathLabSim.pushCases = pushCases;
+        cathLabSim.pAEThresholds.putAll(pAEThresholds);
+        cathLabSim.pICUThresholds.putAll(pICUThresholds);
+
+        // instantiate labs
+        for (Config.Lab lab: labs) {
+            cathLabSim.entityManager.labMap.put(lab.id, new Lab(lab));
+        }
+
+        // instantiate resources
+        for (Config.Resource resource: resources){
+            Resource r = new Resource(resource.name, resource.type);
+            cathLabSim.entityManager.resourceMap.put(resource.name, r);
+
+            if (resource.instances != null){ // with schedule
+                for (Config.ResourceInstance ri: resource.instances) {
+                    Resource.ResourceInstance resourceInstance = r.addInstance(ri.name);
+                    for (Config.ResourceInstanceSchedule ris: ri.schedule) {
+                        if (ris.lab > -1) {
+                            resourceInstance.addSchedule(ris.dayOfWeek, cathLabSim.entityManager.labMap.get(ris.lab), ris.startTime, ris.endTime);
+                        } else {
+                            resourceInstance.addSchedule(ris.dayOfWeek, ris.startTime, ris.endTime);
+                        }
+                    }
+
+                    cathLabSim.scheduleOnce(resourceInstance.nextScheduledTime(cathLabSim, 0), resourceInstance, "SimulationBlueprint.instantiate");
+                }
+            } else { // with simple total, verified to be positive
+                for (int i = 0; i < resource.total; i++) {
+                    String resourceName = resource.name + " " + i;
+                    Resource.ResourceInstance resourceInstance = r.addInstance(resourceName);
+                    for (int j = 0; j < 7; j++) {
+                        resourceInstance.addSchedule(j, 0, CathSchedule.MIN_PER_DAY);
+                    }
+                }
+            }
+        }
+
+        // instantiate procedures
+        for (Config.Procedure procedure: procedures) {
+            cathLabSim.entityManager.procedureMap.put(procedure.id, new Procedure(cathLabSim, procedure, steps));
+        }
+
+        // set pushing parameters for urgency levels, and push criteria
+        cathLabSim.pushBumpMap.putAll(pushBumpMap);
+        cathLabSim.pushBooleansMap.putAll(pushBooleansMap);
+        cathLabSim.pushCriteriaActive.putAll(pushCriteriaActive);
+        cathLabSim.pushCriteriaUrgencies.putAll(pushCriteriaUrgencies);
+        cathLabSim.pushCriteriaValues.putAll(pushCriteriaValues);
+    }
+}
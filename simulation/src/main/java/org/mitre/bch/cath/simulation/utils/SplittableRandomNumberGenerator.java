@@ -0,0 +1,446 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import ec.util.MersenneTwisterFast;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serial;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/** Splittable Random Number Generator class
+ * A counter-based generator in the SplitMix family: the i-th number of a stream is a pure function of the stream's
+ * key, gamma and i, so a stream is a few longs of state, construction is a couple of hash mixes, and jumping ahead is
+ * adding to the counter. Independent substreams are split off by name or number without drawing from the parent,
+ * e.g. one per (seed, stream name), so iterations fanned out across threads or machines never share or correlate
+ * streams.
+ * A stream can also switch between its substreams with select, resuming each where it left off, so draws for an entity
+ * (e.g. a patient) come from that entity's own substream whatever the order the entities draw in.
+ * Extends RandomNumberGenerator so it can be used wherever the simulation takes one, but never allocates or uses
+ * the Mersenne Twister state.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public class SplittableRandomNumberGenerator extends RandomNumberGenerator {
+    //===== Static Attributes ======//
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** Odd constant closest to 2^64 / golden ratio */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    //===== Attributes ======//
+    /** Key of the stream */
+    private long key;
+
+    /** Odd increment of the stream */
+    private long gamma;
+
+    /** Number of 64-bit values drawn from the stream */
+    private long counter;
+
+    /** Second normal number of the last polar draw */
+    private double nextNextGaussian;
+
+    /** Whether nextNextGaussian holds a number */
+    private boolean haveNextNextGaussian;
+
+    /** Key of the stream substreams are selected from, set by the first select */
+    private long selectKey;
+
+    /** Gamma of the stream substreams are selected from, set by the first select */
+    private long selectGamma;
+
+    /** Counters of the substreams selected before, by substream number, null until the first select */
+    private Map<Long, Long> positions;
+
+    /** Number of the selected substream */
+    private long selected;
+
+    //===== Constructors ======//
+    /** Construct a generator of a given stream
+     *
+     * @param seed RNG seed, as reported by getSeed
+     * @param key key of the stream
+     */
+    private SplittableRandomNumberGenerator(long seed, long key) {
+        super(seed);
+        setKey(key);
+    }
+
+    /** Construct the root stream of a seed
+     *
+     * @param seed RNG seed
+     */
+    public SplittableRandomNumberGenerator(long seed) {
+        super(seed);
+    }
+
+    /** Get the independent stream of a seed with a given name
+     *
+     * @param seed RNG seed
+     * @param name stream name
+     * @return the stream
+     */
+    public static SplittableRandomNumberGenerator stream(long seed, String name) {
+        return new SplittableRandomNumberGenerator(seed).split(name);
+    }
+
+    //===== Methods ======//
+    /** Split off an independent substream by name, without drawing from this stream
+     *
+     * @param name substream name
+     * @return the substream
+     */
+    public SplittableRandomNumberGenerator split(String name) {
+        long h = 0xcbf29ce484222325L; // FNV-1a
+        for (int i = 0; i < name.length(); i++) {
+            h = (h ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        return split(h);
+    }
+
+    /** Split off an independent substream by number, without drawing from this stream
+     *
+     * @param id substream number
+     * @return the substream
+     */
+    public SplittableRandomNumberGenerator split(long id) {
+        return new SplittableRandomNumberGenerator(getSeed(), childKey(key, gamma, id));
+    }
+
+    /** Switch this stream to one of its substreams, the same as split(id) would give, resuming it where it was left
+     * the last time it was selected. Any cached normal number is dropped, so the numbers drawn from a substream only
+     * depend on the draws made from it.
+     *
+     * @param id substream number
+     */
+    public void select(long id) {
+        if (positions == null) {
+            positions = new HashMap<>();
+            selectKey = key;
+            selectGamma = gamma;
+        } else if (id == selected) {
+            haveNextNextGaussian = false;
+            return;
+        } else {
+            positions.put(selected, counter);
+        }
+        setKey(childKey(selectKey, selectGamma, id));
+        counter = positions.getOrDefault(id, 0L);
+        selected = id;
+    }
+
+    /** Skip ahead in the stream
+     *
+     * @param n number of 64-bit values to skip
+     */
+    public void jump(long n) {
+        counter += n;
+    }
+
+    /** Set the key of the stream, deriving its gamma, and restart it
+     *
+     * @param key key of the stream
+     */
+    private void setKey(long key) {
+        this.key = key;
+        this.gamma = mixGamma(key + GOLDEN_GAMMA);
+        this.counter = 0;
+        this.haveNextNextGaussian = false;
+    }
+
+    /** Derive the key of a substream
+     *
+     * @param key key of the parent stream
+     * @param gamma gamma of the parent stream
+     * @param id substream number
+     * @return key of the substream
+     */
+    private static long childKey(long key, long gamma, long id) {
+        return mix64(key + mix64(id ^ gamma));
+    }
+
+    /** Draw the next 64-bit value of the stream
+     *
+     * @return random bits
+     */
+    private long next64() {
+        return mix64(key + (++counter) * gamma);
+    }
+
+    /** SplitMix64 finalizer, variant 13 of Stafford
+     *
+     * @param z value to mix
+     * @return mixed value
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Derive an odd gamma with enough bit transitions, as java.util.SplittableRandom does
+     *
+     * @param z value to mix
+     * @return gamma
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        return Long.bitCount(z ^ (z >>> 1)) < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+
+    /** Restart as the root stream of a seed. Also called by the Mersenne Twister constructor, in place of
+     * initializing its state.
+     *
+     * @param seed the seed value
+     */
+    @Override
+    public void setSeed(long seed) {
+        setKey(mix64(seed * GOLDEN_GAMMA + GOLDEN_GAMMA));
+    }
+
+    /** Restart as the root stream of a seed array
+     *
+     * @param array the seed values
+     */
+    @Override
+    public void setSeed(int[] array) {
+        long h = 0;
+        for (int v : array) {
+            h = mix64(h + v);
+        }
+        setSeed(h);
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (next64() >>> 32);
+    }
+
+    @Override
+    public int nextInt(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive, got: " + n);
+        }
+        int bits;
+        int val;
+        do {
+            bits = nextInt() >>> 1;
+            val = bits % n;
+        } while (bits - val + (n - 1) < 0);
+        return val;
+    }
+
+    @Override
+    public long nextLong() {
+        return next64();
+    }
+
+    @Override
+    public long nextLong(long n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive, got: " + n);
+        }
+        long bits;
+        long val;
+        do {
+            bits = next64() >>> 1;
+            val = bits % n;
+        } while (bits - val + (n - 1) < 0);
+        return val;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (next64() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public double nextDouble(boolean includeZero, boolean includeOne) {
+        double d;
+        do {
+            d = nextDouble();
+            if (includeOne && nextBoolean()) {
+                d += 1.0;
+            }
+        } while (d > 1.0 || (!includeZero && d == 0.0));
+        return d;
+    }
+
+    @Override
+    public float nextFloat() {
+        return (next64() >>> 40) * 0x1.0p-24f;
+    }
+
+    @Override
+    public float nextFloat(boolean includeZero, boolean includeOne) {
+        float d;
+        do {
+            d = nextFloat();
+            if (includeOne && nextBoolean()) {
+                d += 1.0f;
+            }
+        } while (d > 1.0f || (!includeZero && d == 0.0f));
+        return d;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return next64() < 0;
+    }
+
+    @Override
+    public boolean nextBoolean(float probability) {
+        if (probability < 0.0f || probability > 1.0f) {
+            throw new IllegalArgumentException("probability must be between 0.0 and 1.0 inclusive.");
+        }
+        return nextFloat() < probability;
+    }
+
+    @Override
+    public boolean nextBoolean(double probability) {
+        if (probability < 0.0 || probability > 1.0) {
+            throw new IllegalArgumentException("probability must be between 0.0 and 1.0 inclusive.");
+        }
+        return nextDouble() < probability;
+    }
+
+    @Override
+    public short nextShort() {
+        return (short) (next64() >>> 48);
+    }
+
+    @Override
+    public char nextChar() {
+        return (char) (next64() >>> 48);
+    }
+
+    @Override
+    public byte nextByte() {
+        return (byte) (next64() >>> 56);
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        int i = 0;
+        while (i < bytes.length) {
+            long bits = next64();
+            for (int k = 0; k < 8 && i < bytes.length; k++, bits >>>= 8) {
+                bytes[i++] = (byte) bits;
+            }
+        }
+    }
+
+    /** Draw a standard normal number with the polar method */
+    @Override
+    public double nextGaussian() {
+        if (haveNextNextGaussian) {
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        double v1;
+        double v2;
+        double s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    @Override
+    public void clearGaussian() {
+        haveNextNextGaussian = false;
+    }
+
+    @Override
+    public Object clone() {
+        SplittableRandomNumberGenerator copy = new SplittableRandomNumberGenerator(getSeed(), key);
+        copy.counter = counter;
+        copy.nextNextGaussian = nextNextGaussian;
+        copy.haveNextNextGaussian = haveNextNextGaussian;
+        copy.selectKey = selectKey;
+        copy.selectGamma = selectGamma;
+        copy.positions = positions == null ? null : new HashMap<>(positions);
+        copy.selected = selected;
+        return copy;
+    }
+
+    @Override
+    public boolean stateEquals(MersenneTwisterFast other) {
+        if (other == this) {
+            return true;
+        }
+        if (!(other instanceof SplittableRandomNumberGenerator o)) {
+            return false;
+        }
+        return key == o.key && gamma == o.gamma && counter == o.counter &&
+                haveNextNextGaussian == o.haveNextNextGaussian && nextNextGaussian == o.nextNextGaussian &&
+                selectKey == o.selectKey && selectGamma == o.selectGamma && selected == o.selected &&
+                Objects.equals(positions, o.positions);
+    }
+
+    /** Read the state written by writeState, including the substreams selected before
+     *
+     * @param stream the stream to read from
+     * @throws IOException if the state can't be read
+     */
+    @Override
+    public void readState(DataInputStream stream) throws IOException {
+        key = stream.readLong();
+        gamma = stream.readLong();
+        counter = stream.readLong();
+        nextNextGaussian = stream.readDouble();
+        haveNextNextGaussian = stream.readBoolean();
+        if (stream.readBoolean()) {
+            selectKey = stream.readLong();
+            selectGamma = stream.readLong();
+            selected = stream.readLong();
+            int size = stream.readInt();
+            positions = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                positions.put(stream.readLong(), stream.readLong());
+            }
+        } else {
+            selectKey = 0;
+            selectGamma = 0;
+            selected = 0;
+            positions = null;
+        }
+    }
+
+    /** Write the state of the stream, followed by whether it has selected a substream and, if so, the stream
+     * substreams are selected from, the selected substream and the counters of the others
+     *
+     * @param stream the stream to write to
+     * @throws IOException if the state can't be written
+     */
+    @Override
+    public void writeState(DataOutputStream stream) throws IOException {
+        stream.writeLong(key);
+        stream.writeLong(gamma);
+        stream.writeLong(counter);
+        stream.writeDouble(nextNextGaussian);
+        stream.writeBoolean(haveNextNextGaussian);
+        stream.writeBoolean(positions != null);
+        if (positions != null) {
+            stream.writeLong(selectKey);
+            stream.writeLong(selectGamma);
+            stream.writeLong(selected);
+            stream.writeInt(positions.size());
+            for (Map.Entry<Long, Long> position : positions.entrySet()) {
+                stream.writeLong(position.getKey());
+                stream.writeLong(position.getValue());
+            }
+        }
+    }
+}
@@ -32,11 +32,12 @@ public class ThreeWayMap<I, J, K, V>  {
      */
     public V get(I i, J j, K k){
         Key key = new Key(i,j,k);
-        if (!map.containsKey(key)) {
+        V v = map.get(key);
+        if (v == null && !map.containsKey(key)) {
             LOGGER.error("Key not found: ({}, {}, {})", i, j, k);
             return null;
         } else {
-            return map.get(key);
+            return v;
         }
 
     }
@@ -91,13 +92,7 @@ public class ThreeWayMap<I, J, K, V>  {
 
         @Override
         public int hashCode() {
-            return (
-                    i.toString()
-                            +"_"
-                            +j.toString()
-                            +"_"
-                            +k.toString()
-            ).hashCode();
+            return 31 * (31 * i.hashCode() + j.hashCode()) + k.hashCode();
         }
     }
 }
@@ -0,0 +1,158 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/** Time Series Recorder class
+ * Columnar recorder of time series sharing a time axis, built on growable primitive arrays. Rows are appended in time
+ * order, as simulation time never goes back, and a row at the time of the last one replaces it. Each column is stored
+ * as runs of unchanged values, so series that rarely change, e.g. resource usage, take little memory.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public class TimeSeriesRecorder implements Serializable {
+    //===== Attributes ======//
+    private static final long serialVersionUID = 1L;
+
+    /** Names of the columns */
+    private final List<String> names;
+
+    /** Columns, in the order of names */
+    private final Column[] columns;
+
+    /** Time of each row */
+    private double[] times = new double[256];
+
+    /** Number of rows */
+    private int size = 0;
+
+    //===== Constructors ======//
+    /** Constructor for TimeSeriesRecorder
+     *
+     * @param names names of the columns
+     */
+    public TimeSeriesRecorder(List<String> names) {
+        this.names = List.copyOf(names);
+        this.columns = new Column[names.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Column();
+        }
+    }
+
+    //===== Methods ======//
+    /** Get the index of a column
+     *
+     * @param name column name
+     * @return index of the column
+     */
+    public int column(String name) {
+        int i = names.indexOf(name);
+        if (i < 0) {
+            throw new IllegalArgumentException("No time series named " + name);
+        }
+        return i;
+    }
+
+    /** Start a row at a time, or reopen the last row if it is at the same time. Columns not set in the row keep the
+     * value of the row before.
+     *
+     * @param time simulation time, not before the time of the last row
+     */
+    public void startRow(double time) {
+        if (size > 0 && times[size - 1] == time) {
+            return;
+        }
+        if (size > 0 && time < times[size - 1]) {
+            throw new IllegalArgumentException(String.format("Row at %f is before the last row at %f", time,
+                    times[size - 1]));
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, 2 * size);
+        }
+        times[size++] = time;
+    }
+
+    /** Set the value of a column in the current row
+     *
+     * @param column index of the column
+     * @param value the value
+     */
+    public void set(int column, double value) {
+        columns[column].set(size - 1, value);
+    }
+
+    /** Get the number of rows
+     *
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Get the times of the rows
+     *
+     * @return time of each row
+     */
+    public double[] getTimes() {
+        return Arrays.copyOf(times, size);
+    }
+
+    /** Get the values of a column
+     *
+     * @param name column name
+     * @return value of each row, NaN before the column was first set
+     */
+    public double[] getColumn(String name) {
+        return columns[column(name)].expand(size);
+    }
+
+    //===== SubClasses ======//
+    /** A column, as runs of unchanged values */
+    private static class Column implements Serializable {
+        private static final long serialVersionUID = 1L;
+        /** first row of each run */
+        int[] starts = new int[16];
+        /** value of each run */
+        double[] values = new double[16];
+        /** number of runs */
+        int runs = 0;
+
+        /** Set the value of a row, the last row or a new one after it
+         * @param row the row
+         * @param value the value
+         */
+        void set(int row, double value) {
+            if (runs > 0 && starts[runs - 1] == row) { // the row was set before, replace its value
+                runs--;
+            }
+            if (runs > 0 && Double.compare(values[runs - 1], value) == 0) {
+                return;
+            }
+            if (runs == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * runs);
+                values = Arrays.copyOf(values, 2 * runs);
+            }
+            starts[runs] = row;
+            values[runs] = value;
+            runs++;
+        }
+
+        /** Expand the runs into a value per row
+         * @param size number of rows
+         * @return value of each row
+         */
+        double[] expand(int size) {
+            double[] out = new double[size];
+            int from = 0;
+            double value = Double.NaN;
+            for (int r = 0; r < runs; r++) {
+                Arrays.fill(out, from, starts[r], value);
+                from = starts[r];
+                value = values[r];
+            }
+            Arrays.fill(out, from, size, value);
+            return out;
+        }
+    }
+}
@@ -31,11 +31,12 @@ public class TwoWayMap<I, J, V>  {
      */
     public V get(I i, J j){
         Key key = new Key(i,j);
-        if (!map.containsKey(key)) {
+        V v = map.get(key);
+        if (v == null && !map.containsKey(key)) {
             LOGGER.error("Key not found: ({}, {}, {})", i, j);
             return null;
         } else {
-            return map.get(key);
+            return v;
         }
 
     }
@@ -87,11 +88,7 @@ public class TwoWayMap<I, J, V>  {
 
         @Override
         public int hashCode() {
-            return (
-                    i.toString()
-                            +"_"
-                            +j.toString()
-            ).hashCode();
+            return 31 * i.hashCode() + j.hashCode();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package org.mitre.bch.cath.simulation.distributions;
+
+import org.apache.commons.math3.distribution.BetaDistribution;
+import org.apache.commons.math3.distribution.GammaDistribution;
+import org.apache.commons.math3.distribution.LogNormalDistribution;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.distribution.PoissonDistribution;
+import org.apache.commons.math3.distribution.RealDistribution;
+import org.apache.commons.math3.distribution.UniformRealDistribution;
+import org.apache.commons.math3.stat.inference.ChiSquareTest;
+import org.apache.commons.math3.stat.inference.KolmogorovSmirnovTest;
+import org.junit.jupiter.api.Test;
+import org.mitre.bch.cath.simulation.utils.RandomNumberGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests of the fast sampling kernels in Samplers, and the distributions sampling with Sampling.FAST, against the
+ * Commons Math distributions they stand in for. Each test draws from a fixed seed, and fails if a Kolmogorov-Smirnov
+ * or chi-square test rejects the samples at the SIGNIFICANCE level.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+class SamplersTest {
+    //===== Static Attributes ======//
+    /** Number of samples drawn per test */
+    private static final int SAMPLES = 100_000;
+
+    /** Smallest p-value accepted, the seeds are fixed so the tests are deterministic */
+    private static final double SIGNIFICANCE = 0.001;
+
+    /** Smallest expected count of a chi-square bin */
+    private static final double MIN_EXPECTED = 5;
+
+    //===== Methods ======//
+    /** Draw samples
+     *
+     * @param sampler the sampler
+     * @return SAMPLES samples
+     */
+    private static double[] draw(DoubleSupplier sampler) {
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = sampler.getAsDouble();
+        }
+        return samples;
+    }
+
+    /** Assert that samples follow a continuous distribution, with a Kolmogorov-Smirnov test
+     *
+     * @param name name of the distribution, for the failure message
+     * @param expected the distribution
+     * @param samples the samples
+     */
+    private static void assertFollows(String name, RealDistribution expected, double[] samples) {
+        double p = new KolmogorovSmirnovTest().kolmogorovSmirnovTest(expected, samples);
+        assertTrue(p > SIGNIFICANCE, String.format("KS test rejects samples of %s, p = %g", name, p));
+    }
+
+    /** Assert that counts follow a Poisson distribution, with a chi-square test. Adjacent counts are merged into bins
+     * with an expected count of at least MIN_EXPECTED, the last bin holds the upper tail.
+     *
+     * @param expected the distribution
+     * @param samples the samples, whole numbers
+     */
+    private static void assertFollows(PoissonDistribution expected, double[] samples) {
+        int max = 0;
+        for (double sample : samples) {
+            assertEquals(Math.rint(sample), sample, "Poisson sample is not a whole number");
+            max = Math.max(max, (int) sample);
+        }
+        long[] counts = new long[max + 1];
+        for (double sample : samples) {
+            counts[(int) sample]++;
+        }
+        List<Double> binExpected = new ArrayList<>();
+        List<Long> binObserved = new ArrayList<>();
+        double e = 0;
+        long o = 0;
+        for (int k = 0; k <= max; k++) {
+            e += SAMPLES * expected.probability(k);
+            o += counts[k];
+            if (e >= MIN_EXPECTED && SAMPLES * (1 - expected.cumulativeProbability(k)) >= MIN_EXPECTED) {
+                binExpected.add(e);
+                binObserved.add(o);
+                e = 0;
+                o = 0;
+            }
+        }
+        // the rest, up to infinity, goes into the last bin
+        e += SAMPLES * (1 - expected.cumulativeProbability(max));
+        binExpected.add(e);
+        binObserved.add(o);
+        double[] expectedCounts = binExpected.stream().mapToDouble(Double::doubleValue).toArray();
+        long[] observedCounts = binObserved.stream().mapToLong(Long::longValue).toArray();
+        double p = new ChiSquareTest().chiSquareTest(expectedCounts, observedCounts);
+        assertTrue(p > SIGNIFICANCE, String.format("chi-square test rejects samples of Poisson(%s), p = %g",
+                expected.getMean(), p));
+    }
+
+    @Test
+    void normalFollowsStandardNormal() {
+        RandomNumberGenerator random = new RandomNumberGenerator(1);
+        assertFollows("Normal(0, 1)", new NormalDistribution(0, 1), draw(() -> Samplers.normal(random)));
+    }
+
+    @Test
+    void normalTailFollowsStandardNormal() {
+        // the ziggurat tail starts at R, check the samples beyond it against the conditional distribution
+        RandomNumberGenerator random = new RandomNumberGenerator(2);
+        NormalDistribution normal = new NormalDistribution(0, 1);
+        double r = 3.442619855899;
+        double tail = 1 - normal.cumulativeProbability(r);
+        double[] samples = new double[2000];
+        for (int i = 0; i < samples.length; ) {
+            double x = Math.abs(Samplers.normal(random));
+            if (x > r) {
+                samples[i++] = x;
+            }
+        }
+        RealDistribution beyondR = new NormalDistribution(0, 1) {
+            @Override
+            public double cumulativeProbability(double x) {
+                return x <= r ? 0 : (normal.cumulativeProbability(x) - (1 - tail)) / tail;
+            }
+        };
+        assertFollows("|Normal(0, 1)| beyond R", beyondR, samples);
+    }
+
+    @Test
+    void normalDistributionFollowsNormal() {
+        // means many standard deviations above zero, Normal rejects samples at or below it
+        double[][] parameters = {{50, 5}, {480, 60}};
+        for (double[] ms : parameters) {
+            Normal normal = new Normal(ms[0], ms[1], new RandomNumberGenerator(10), Sampling.FAST);
+            assertFollows(String.format("Normal(%s, %s)", ms[0], ms[1]), new NormalDistribution(ms[0], ms[1]),
+                    draw(normal::nextDouble));
+        }
+    }
+
+    @Test
+    void uniformFollowsUniform() {
+        double[][] parameters = {{2, 7}, {-30, 45}};
+        for (double[] ab : parameters) {
+            Uniform uniform = new Uniform(ab[0], ab[1], new RandomNumberGenerator(11), Sampling.FAST);
+            assertFollows(uniform.toString(), new UniformRealDistribution(ab[0], ab[1]), draw(uniform::nextDouble));
+        }
+        Uniform unit = new Uniform(new RandomNumberGenerator(11), Sampling.FAST);
+        assertFollows(unit.toString(), new UniformRealDistribution(0, 1), draw(unit::nextDouble));
+    }
+
+    @Test
+    void gammaWithShapeBelowOneFollowsGamma() {
+        for (double shape : new double[] {0.1, 0.5, 0.9}) {
+            RandomNumberGenerator random = new RandomNumberGenerator(3);
+            assertFollows("Gamma(" + shape + ")", new GammaDistribution(shape, 1),
+                    draw(() -> Samplers.gamma(random, shape)));
+        }
+    }
+
+    @Test
+    void gammaWithShapeAtLeastOneFollowsGamma() {
+        for (double shape : new double[] {1, 2.5, 30}) {
+            RandomNumberGenerator random = new RandomNumberGenerator(4);
+            assertFollows("Gamma(" + shape + ")", new GammaDistribution(shape, 1),
+                    draw(() -> Samplers.gamma(random, shape)));
+        }
+    }
+
+    @Test
+    void betaFollowsBeta() {
+        // X / (X + Y) with gamma X and Y, shapes below and above one
+        double[][] parameters = {{1.5, 1.8}, {0.5, 0.5}, {0.3, 4}, {8, 2}};
+        for (double[] ab : parameters) {
+            Beta beta = new Beta(ab[0], ab[1], new RandomNumberGenerator(5), Sampling.FAST);
+            assertFollows(beta.toString(), new BetaDistribution(ab[0], ab[1]), draw(beta::nextDouble));
+        }
+    }
+
+    @Test
+    void betaIsScaledAndShifted() {
+        Beta beta = new Beta(1.5, 1.8, 450, 90, new RandomNumberGenerator(6), Sampling.FAST);
+        double[] samples = draw(beta::nextDouble);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (samples[i] - 450) / 90;
+        }
+        assertFollows(beta.toString(), new BetaDistribution(1.5, 1.8), samples);
+    }
+
+    @Test
+    void lognormalFollowsLognormal() {
+        double[][] parameters = {{0, 1}, {4.2, 0.35}, {-1, 2}};
+        for (double[] ms : parameters) {
+            Lognormal lognormal = new Lognormal(ms[0], ms[1], new RandomNumberGenerator(7), Sampling.FAST);
+            assertFollows(lognormal.toString(), new LogNormalDistribution(ms[0], ms[1]),
+                    draw(lognormal::nextDouble));
+        }
+    }
+
+    @Test
+    void poissonTableFollowsPoisson() {
+        double[] means = {0.05, 0.5, 1, 3.7, 12, 40, Samplers.POISSON_TABLE_MAX_MEAN};
+        for (double mean : means) {
+            Poisson poisson = new Poisson(mean, new RandomNumberGenerator(8), Sampling.FAST);
+            assertFollows(new PoissonDistribution(mean), draw(poisson::nextDouble));
+        }
+    }
+
+    @Test
+    void poissonTableReachesOne() {
+        // the table must cover every count a uniform number in [0, 1) can map to
+        for (double mean = 0.25; mean <= Samplers.POISSON_TABLE_MAX_MEAN; mean *= 2) {
+            double[] table = Samplers.poissonTable(new Poisson(mean, new RandomNumberGenerator(9)));
+            assertEquals(1.0, table[table.length - 1], 0.0, "Poisson table of mean " + mean + " ends below 1");
+        }
+    }
+}
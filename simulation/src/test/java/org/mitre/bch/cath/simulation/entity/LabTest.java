@@ -0,0 +1,164 @@
+package org.mitre.bch.cath.simulation.entity;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mitre.bch.cath.simulation.model.CathLabSim;
+import org.mitre.bch.cath.simulation.model.CathSchedule;
+import org.mitre.bch.cath.simulation.model.SimulationFixture;
+import org.mitre.bch.cath.simulation.utils.RandomNumberGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests of the case cursor, done count and done lab times of Lab, against the scans of patients they replaced.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+class LabTest {
+    //===== Static Attributes ======//
+    /** Days the cases of the tests start on */
+    private static final int DAYS = 3;
+
+    /** Simulation the patients are created for, never started */
+    private static CathLabSim model;
+
+    /** Identifier of the next patient created */
+    private static int nextPid;
+
+    //===== Methods ======//
+    @BeforeAll
+    static void createModel() {
+        model = SimulationFixture.newModel(1, "config.json", 0);
+        nextPid = model.cathSchedule.allPatients.size();
+    }
+
+    /** Create a patient whose case is not started
+     *
+     * @return the patient
+     */
+    private static Patient patient() {
+        return SimulationFixture.newPatient(model, nextPid++, 1);
+    }
+
+    /** Finish the case of a patient, on a random day and with a random duration, unless it is already done
+     *
+     * @param patient the patient
+     * @param random random number generator
+     */
+    private static void finish(Patient patient, RandomNumberGenerator random) {
+        if (patient.status != Patient.Status.AFTER) { // a done case keeps its start and duration
+            patient.tStart = random.nextInt(DAYS) * CathSchedule.MIN_PER_DAY + random.nextDouble() * 600;
+            patient.tDuration = random.nextDouble() * 120;
+            patient.status = Patient.Status.AFTER;
+        }
+    }
+
+    /** Assert that the cursor, done count and expected lab times of a lab match the scans of its patients
+     *
+     * @param lab the lab
+     * @param where description of the step, for the failure message
+     */
+    private static void assertMatchesScans(Lab lab, String where) {
+        List<Patient> patients = lab.getPatients();
+        int index;
+        if (lab.currentPatient != null) {
+            index = patients.indexOf(lab.currentPatient);
+        } else if (lab.priorPatient != null) {
+            index = patients.indexOf(lab.priorPatient);
+        } else {
+            index = -1;
+        }
+        boolean hasNext = patients.size() > index + 1;
+        assertEquals(hasNext, lab.hasNextPatient(), where);
+        if (hasNext) {
+            assertSame(patients.get(index + 1), lab.getNextPatient(), where);
+        }
+        int done = 0;
+        while (done < patients.size() && patients.get(done).status == Patient.Status.AFTER) {
+            done++;
+        }
+        assertEquals(patients.subList(done, patients.size()), lab.getPendingPatients(), where);
+        for (int day = 0; day < DAYS; day++) {
+            int d = day;
+            double expected = patients.stream()
+                    .filter(p -> p.tStart == null ? p.day == d : p.tStart.intValue() / CathSchedule.MIN_PER_DAY == d)
+                    .map(p -> p.status == Patient.Status.AFTER ? p.tDuration : p.tExpectedDuration)
+                    .reduce(0.0, Double::sum);
+            assertEquals(expected, lab.getExpectedTotalLabTime(day), 0.0, where + ", day " + day);
+        }
+    }
+
+    @Test
+    void patientsAreReadOnly() {
+        Lab lab = new Lab(0, "Lab A", "CATH", List.of());
+        lab.addPatientsToLab(List.of(patient()));
+        assertThrows(UnsupportedOperationException.class, () -> lab.getPatients().add(patient()));
+        assertThrows(UnsupportedOperationException.class, () -> lab.getPendingPatients().remove(0));
+    }
+
+    @Test
+    void removingDonePatientKeepsPendingPatients() {
+        RandomNumberGenerator random = new RandomNumberGenerator(1);
+        Lab lab = new Lab(0, "Lab A", "CATH", List.of());
+        Patient a = patient();
+        Patient b = patient();
+        Patient c = patient();
+        lab.addPatientsToLab(List.of(a, b, c));
+        finish(a, random);
+        finish(b, random);
+        lab.priorPatient = b;
+        assertEquals(List.of(c), lab.getPendingPatients());
+        lab.removePatient(a);
+        assertEquals(List.of(c), lab.getPendingPatients());
+        assertSame(c, lab.getNextPatient());
+        assertMatchesScans(lab, "after removing a done patient");
+    }
+
+    @Test
+    void cursorAndDoneCountMatchScans() {
+        RandomNumberGenerator random = new RandomNumberGenerator(1);
+        Lab lab = new Lab(0, "Lab A", "CATH", List.of());
+        List<Patient> pool = new ArrayList<>();
+        for (int step = 0; step < 20000; step++) {
+            int op = random.nextInt(6);
+            List<Patient> patients = lab.getPatients();
+            if (op == 0 || patients.isEmpty()) { // add new patients, or one already in the lab again
+                Patient p = pool.isEmpty() || random.nextBoolean() ? patient() : pool.get(random.nextInt(pool.size()));
+                pool.add(p);
+                lab.addPatientsToLab(List.of(p));
+            } else if (op == 1) { // remove a patient, done or not
+                lab.removePatient(patients.get(random.nextInt(patients.size())));
+            } else if (op == 2) { // the current case is done and the next one starts
+                Patient next = lab.hasNextPatient() ? lab.getNextPatient() : null;
+                if (lab.currentPatient != null) {
+                    finish(lab.currentPatient, random);
+                    lab.priorPatient = lab.currentPatient;
+                }
+                lab.currentPatient = next;
+                if (next != null && next.status == Patient.Status.BEFORE) { // statuses never go back
+                    next.status = Patient.Status.DURING;
+                }
+            } else if (op == 3 && lab.currentPatient != null) { // the current case is done
+                finish(lab.currentPatient, random);
+                lab.priorPatient = lab.currentPatient;
+                lab.currentPatient = null;
+            } else if (op == 4) { // the cursor moves to any patient, as for a new day
+                Patient p = patients.get(random.nextInt(patients.size()));
+                if (random.nextBoolean()) {
+                    lab.currentPatient = p;
+                } else {
+                    lab.currentPatient = null;
+                    lab.priorPatient = p;
+                }
+            } else if (op == 5) { // a patient that was never in the lab
+                lab.currentPatient = null;
+                lab.priorPatient = random.nextBoolean() ? patient() : null;
+            }
+            assertMatchesScans(lab, String.format("step %d, operation %d", step, op));
+        }
+    }
+}
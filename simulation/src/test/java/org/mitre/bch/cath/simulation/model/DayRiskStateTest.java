@@ -0,0 +1,86 @@
+package org.mitre.bch.cath.simulation.model;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mitre.bch.cath.simulation.entity.Patient;
+import org.mitre.bch.cath.simulation.utils.RandomNumberGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests of the start time log of DayRiskState, which drops the start times that fell out of the largest window.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+class DayRiskStateTest {
+    //===== Static Attributes ======//
+    /** Largest window of the tests, in minutes */
+    private static final double MAX_WINDOW = 120;
+
+    /** Simulation the patients are created for, never started */
+    private static CathLabSim model;
+
+    /** Identifier of the next patient created */
+    private static int nextPid;
+
+    //===== Methods ======//
+    @BeforeAll
+    static void createModel() {
+        model = SimulationFixture.newModel(1, "config.json", 0);
+        nextPid = model.cathSchedule.allPatients.size();
+    }
+
+    /** Record the start of the case of a new high risk patient
+     *
+     * @param dayRiskState the counters
+     * @param tStart start time
+     */
+    private static void start(DayRiskState dayRiskState, double tStart) {
+        Patient patient = SimulationFixture.newPatient(model, nextPid++, 5);
+        patient.tStart = tStart;
+        dayRiskState.caseStarted(patient);
+    }
+
+    @Test
+    void recentStartCountMatchesScanAsTimeGoesOn() {
+        RandomNumberGenerator random = new RandomNumberGenerator(1);
+        DayRiskState pruned = new DayRiskState(MAX_WINDOW);
+        DayRiskState unpruned = new DayRiskState();
+        List<Double> starts = new ArrayList<>();
+        double tnow = 0;
+        for (int i = 0; i < 5000; i++) {
+            tnow += random.nextDouble() * 30;
+            // cases mostly start now, some at times already passed or still to come
+            double tStart = tnow + (random.nextDouble() < 0.8 ? 0 : (random.nextDouble() - 0.5) * 60);
+            starts.add(tStart);
+            start(pruned, tStart);
+            start(unpruned, tStart);
+            for (double window : new double[] {MAX_WINDOW, 60, 0}) {
+                double now = tnow;
+                long expected = starts.stream().filter(t -> t <= now && now - t <= window).count();
+                assertEquals(expected, pruned.getRecentStartCount(Patient.RiskLevel.HIGH, tnow, window),
+                        String.format("window %f, t = %f", window, tnow));
+                assertEquals(expected, unpruned.getRecentStartCount(Patient.RiskLevel.HIGH, tnow, window),
+                        String.format("window %f, t = %f, no pruning", window, tnow));
+            }
+        }
+    }
+
+    @Test
+    void recentStartCountCountsOnlyItsLevel() {
+        DayRiskState dayRiskState = new DayRiskState(MAX_WINDOW);
+        start(dayRiskState, 10);
+        assertEquals(1, dayRiskState.getRecentStartCount(Patient.RiskLevel.HIGH, 20, MAX_WINDOW));
+        assertEquals(0, dayRiskState.getRecentStartCount(Patient.RiskLevel.MED, 20, MAX_WINDOW));
+    }
+
+    @Test
+    void windowLargerThanLargestWindowIsRejected() {
+        DayRiskState dayRiskState = new DayRiskState(MAX_WINDOW);
+        assertThrows(IllegalArgumentException.class,
+                () -> dayRiskState.getRecentStartCount(Patient.RiskLevel.HIGH, 0, MAX_WINDOW + 1));
+    }
+}
@@ -0,0 +1,172 @@
+package org.mitre.bch.cath.simulation.model;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mitre.bch.cath.simulation.entity.Lab;
+import org.mitre.bch.cath.simulation.entity.Patient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests of the indexes kept up to date as patients are added, moved to other days and labs, have an AE, and change
+ * status: the day and lab index of CathSchedule, the case cursor and done lab times of Lab, and the counters of
+ * DayRiskState. Each test runs a simulation and, after every step, compares each index with the scan of the patients
+ * it replaced.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+class IndexesTest {
+    //===== Static Attributes ======//
+    /** Extra days to run past the last scheduled case, so add-on cases are observed, pushed and bumped */
+    private static final int EXTRA_DAYS = 10;
+
+    //===== Methods ======//
+    /** Run a simulation with the local elective schedule and add-on bucket, without Mlflow or logs
+     *
+     * @param seed the seed
+     * @param config name of the config file
+     * @param check called after every step of the simulation
+     */
+    private static void simulate(long seed, String config, Consumer<CathLabSim> check) {
+        SimulationFixture.run(SimulationFixture.newModel(seed, config, EXTRA_DAYS), check);
+    }
+
+    /** Get the last day scheduled in allPatients
+     *
+     * @param model the simulation
+     * @return largest day of a patient, 0 if none
+     */
+    private static int lastDay(CathLabSim model) {
+        return model.cathSchedule.allPatients.stream().filter(p -> p.day != null).mapToInt(p -> p.day).max()
+                .orElse(0);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, config.json", "2, config.json", "3, experiment_configs/config_addon_lab_MTWThF.json"})
+    void scheduleIndexesMatchScans(long seed, String config) {
+        simulate(seed, config, model -> {
+            CathSchedule cathSchedule = model.cathSchedule;
+            // patients of each day and lab, in the order of allPatients
+            Map<Integer, Map<Lab, List<Patient>>> scanned = new HashMap<>();
+            for (Patient p : cathSchedule.allPatients) {
+                if (p.day != null && p.lab != null) {
+                    scanned.computeIfAbsent(p.day, d -> new HashMap<>())
+                            .computeIfAbsent(p.lab, l -> new ArrayList<>()).add(p);
+                }
+            }
+            int lastDay = lastDay(model);
+            for (int day = 0; day <= lastDay; day++) {
+                for (Lab lab : model.entityManager.labMap.values()) {
+                    List<Patient> expected = scanned.getOrDefault(day, Map.of()).getOrDefault(lab, List.of());
+                    String where = String.format("day %d, lab %s, t = %f", day, lab.name, model.schedule.getTime());
+                    assertEquals(expected, cathSchedule.getLabDayPatients(day, lab), where);
+                    assertEquals(expected.stream().map(p -> p.tExpectedDuration).reduce(0.0, Double::sum),
+                            cathSchedule.getExpectedLabDayEnd(day, lab), 0.0, where);
+                }
+            }
+            int lastElectiveDay = cathSchedule.allPatients.stream().filter(p -> !p.addon)
+                    .mapToInt(p -> p.day == null ? p.addonDay : p.day).max().orElseThrow();
+            assertEquals(lastElectiveDay, cathSchedule.getLastElectiveDay());
+        });
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, config.json", "2, config.json", "3, experiment_configs/config_addon_lab_MTWThF.json"})
+    void labCursorsMatchScans(long seed, String config) {
+        simulate(seed, config, model -> {
+            for (Lab lab : model.entityManager.labMap.values()) {
+                String where = String.format("lab %s, t = %f", lab.name, model.schedule.getTime());
+                int index;
+                if (lab.currentPatient != null) {
+                    index = lab.getPatients().indexOf(lab.currentPatient);
+                } else if (lab.priorPatient != null) {
+                    index = lab.getPatients().indexOf(lab.priorPatient);
+                } else {
+                    index = -1;
+                }
+                boolean hasNext = lab.getPatients().size() > index + 1;
+                assertEquals(hasNext, lab.hasNextPatient(), where);
+                if (hasNext) {
+                    assertSame(lab.getPatients().get(index + 1), lab.getNextPatient(), where);
+                }
+                // the cases not done are all pending, and only done cases are skipped
+                List<Patient> pending = lab.getPendingPatients();
+                assertEquals(lab.getPatients().stream().filter(p -> p.status != Patient.Status.AFTER).toList(),
+                        pending.stream().filter(p -> p.status != Patient.Status.AFTER).toList(), where);
+                assertTrue(pending.isEmpty() || pending.get(0).status != Patient.Status.AFTER, where);
+                // the done cases are summed as they are skipped, in the order of the scan
+                for (int day = 0; day <= lastDay(model); day++) {
+                    Integer d = day;
+                    double expected = lab.getPatients().stream()
+                            .filter(p -> p.tStart == null ? d.equals(p.day) : p.tStart.intValue() / CathSchedule.MIN_PER_DAY == d)
+                            .map(p -> p.status == Patient.Status.AFTER ? p.tDuration : p.tExpectedDuration)
+                            .reduce(0.0, Double::sum);
+                    assertEquals(expected, lab.getExpectedTotalLabTime(day), 0.0, where + ", day " + day);
+                }
+            }
+        });
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, config.json", "2, config.json", "3, experiment_configs/config_addon_lab_MTWThF.json"})
+    void dayRiskCountersMatchScans(long seed, String config) {
+        double[] windows = {120, 60, 15, 0}; // the push criteria window, and smaller ones
+        simulate(seed, config, model -> {
+            DayRiskState dayRiskState = model.cathSchedule.dayRiskState;
+            double tnow = model.schedule.getTime();
+            // the counts, in one scan of the patients
+            Map<Integer, int[]> risk = new HashMap<>();
+            Map<Integer, int[]> ae = new HashMap<>();
+            int[] activeAE = new int[Patient.AELevel.values().length];
+            int[][] recentStarts = new int[windows.length][Patient.RiskLevel.values().length];
+            for (Patient p : model.cathSchedule.allPatients) {
+                if (p.day != null) {
+                    risk.computeIfAbsent(p.day, d -> new int[Patient.RiskLevel.values().length])
+                            [p.riskLevel.ordinal()]++;
+                    if (p.aeLevel != null) {
+                        ae.computeIfAbsent(p.day, d -> new int[Patient.AELevel.values().length])
+                                [p.aeLevel.ordinal()]++;
+                    }
+                }
+                if (p.status == Patient.Status.DURING && p.aeLevel != null) {
+                    activeAE[p.aeLevel.ordinal()]++;
+                }
+                for (int w = 0; w < windows.length; w++) {
+                    if (p.tStart != null && p.tStart <= tnow && tnow - p.tStart <= windows[w]) {
+                        recentStarts[w][p.riskLevel.ordinal()]++;
+                    }
+                }
+            }
+            int lastDay = lastDay(model);
+            for (int day = 0; day <= lastDay; day++) {
+                String where = String.format("day %d, t = %f", day, tnow);
+                for (Patient.RiskLevel level : Patient.RiskLevel.values()) {
+                    assertEquals(risk.getOrDefault(day, new int[level.ordinal() + 1])[level.ordinal()],
+                            dayRiskState.getRiskCount(day, level), level + " risk, " + where);
+                }
+                for (Patient.AELevel level : Patient.AELevel.values()) {
+                    assertEquals(ae.getOrDefault(day, new int[level.ordinal() + 1])[level.ordinal()],
+                            dayRiskState.getAECount(day, level), level + " AE, " + where);
+                }
+            }
+            for (Patient.AELevel level : Patient.AELevel.values()) {
+                assertEquals(activeAE[level.ordinal()], dayRiskState.getActiveAECount(level),
+                        level + " active AE, t = " + tnow);
+            }
+            for (int w = 0; w < windows.length; w++) {
+                for (Patient.RiskLevel level : Patient.RiskLevel.values()) {
+                    assertEquals(recentStarts[w][level.ordinal()],
+                            dayRiskState.getRecentStartCount(level, tnow, windows[w]),
+                            String.format("%s starts in %f, t = %f", level, windows[w], tnow));
+                }
+            }
+        });
+    }
+}
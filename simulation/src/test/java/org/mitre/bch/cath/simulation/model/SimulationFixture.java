@@ -0,0 +1,75 @@
+package org.mitre.bch.cath.simulation.model;
+
+import org.mitre.bch.cath.simulation.distributions.Sampling;
+import org.mitre.bch.cath.simulation.entity.Patient;
+import org.mitre.bch.cath.simulation.utils.Config;
+import org.mitre.bch.cath.simulation.utils.Event;
+import org.mitre.bch.cath.simulation.utils.MlFlowManager;
+import org.mitre.bch.cath.simulation.utils.RandomStreams;
+import org.mlflow.tracking.MlflowClient;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.Mockito.mock;
+
+/** Simulations and patients for the tests, built the way API builds them, with the local elective schedule and
+ * add-on bucket, and without an Mlflow server or logs.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+public final class SimulationFixture {
+    //===== Constructors ======//
+    private SimulationFixture() {
+    }
+
+    //===== Methods ======//
+    /** Create a simulation, not yet started, whose Mlflow client does nothing
+     *
+     * @param seed the seed
+     * @param config name of the config file
+     * @param extraDays days to run past the last scheduled case
+     * @return the simulation
+     */
+    public static CathLabSim newModel(long seed, String config, int extraDays) {
+        MlFlowManager mlFlowManager = mock(MlFlowManager.class);
+        List<Config.Schedule> configSchedule =
+                CathLabSim.getConfigSchedule("schedules/schedule_elective_local.json", null);
+        List<Config.Schedule> addonBucket = CathLabSim.getAddonBucket(mlFlowManager, null, "addon_bucket_local");
+        CathLabSim model = new CathLabSim(seed, null, "test", extraDays, configSchedule, addonBucket,
+                mlFlowManager, Config.readBlueprint(config), "elective_local", Event.Provenance.OFF, true,
+                Sampling.STANDARD, false, RandomStreams.SEEDED);
+        model.mlflowClient = mock(MlflowClient.class);
+        return model;
+    }
+
+    /** Start a simulation and run it to the end, the way runSim does
+     *
+     * @param model the simulation
+     * @param check called after every step of the simulation
+     */
+    public static void run(CathLabSim model, Consumer<CathLabSim> check) {
+        model.start();
+        do {
+            model.metrics.recordPoint(model);
+            if (!model.schedule.step(model)) {
+                break;
+            }
+            check.accept(model);
+        } while (!model.schedule.scheduleComplete());
+    }
+
+    /** Create a scheduled patient, not assigned to a lab, with the procedure and scores of the first patient of the
+     * schedule
+     *
+     * @param model the simulation
+     * @param pid the unique identifier of the patient, not one of the schedule
+     * @param riskScore risk category, 5 for a high risk patient
+     * @return the patient, with status BEFORE
+     */
+    public static Patient newPatient(CathLabSim model, int pid, int riskScore) {
+        Patient first = model.cathSchedule.allPatients.get(0);
+        return new Patient(model, first.procedure.id, first.adverseScore, riskScore, first.durationScore,
+                (float) first.pICU, false, null, null, pid, 0);
+    }
+}
@@ -0,0 +1,208 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests of the columnar log format: logs written by ColumnarLogWriter, read back by ColumnarLogReader and exported
+ * to csv, must give the same bytes as the csv files written directly by Metrics.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+class ColumnarLogTest {
+    //===== Static Attributes ======//
+    /** Seed of the logs */
+    private static final long SEED = 42;
+
+    //===== Attributes ======//
+    /** Folder of the files of a test */
+    @TempDir
+    Path dir;
+
+    //===== Methods ======//
+    /** Append a batch to a new file, read each of its logs back and export them, and assert that each log matches its
+     * rows and its csv file written by Metrics, byte for byte
+     *
+     * @param batch the batch
+     * @param logs name of each log of the batch, in order
+     * @param headers column names of each log
+     * @param rows values of each row of each log
+     * @throws IOException if a file can't be written or read
+     */
+    private void assertRoundTrip(ColumnarLogWriter.Batch batch, List<String> logs, List<List<String>> headers,
+                                 List<List<String[]>> rows) throws IOException {
+        Path file = dir.resolve("run.bin");
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file)) {
+            writer.append(batch);
+        }
+        Path exported = dir.resolve("exported");
+        Path written = dir.resolve("written");
+        ColumnarLogReader.exportCsv(file, exported);
+        assertEquals(logs, ColumnarLogReader.read(file).stream().map(chunk -> chunk.log).toList());
+        for (int l = 0; l < logs.size(); l++) {
+            String log = logs.get(l);
+            List<ColumnarLogReader.Chunk> chunks = ColumnarLogReader.read(file, log);
+            assertEquals(1, chunks.size(), log);
+            ColumnarLogReader.Chunk chunk = chunks.get(0);
+            assertEquals(SEED, chunk.seed, log);
+            assertEquals(headers.get(l), chunk.names, log);
+            assertEquals(rows.get(l).size(), chunk.rows, log);
+            for (int r = 0; r < chunk.rows; r++) {
+                for (int c = 0; c < chunk.names.size(); c++) {
+                    assertEquals(rows.get(l).get(r)[c], chunk.get(r, c),
+                            String.format("%s row %d column %d", log, r, c));
+                }
+            }
+            Metrics.writeCSVLog(written.toString(), log, SEED, headers.get(l), rows.get(l));
+            String csv = String.format("%s/%s_%d.csv", log, log, SEED);
+            assertArrayEquals(Files.readAllBytes(written.resolve(csv)), Files.readAllBytes(exported.resolve(csv)), log);
+        }
+    }
+
+    /** Assert that a log of text rows survives the round trip
+     *
+     * @param header column names
+     * @param rows values of each row
+     * @throws IOException if a file can't be written or read
+     */
+    private void assertRoundTrip(List<String> header, List<String[]> rows) throws IOException {
+        assertRoundTrip(new ColumnarLogWriter.Batch(SEED).writeRows("log", header, rows), List.of("log"),
+                List.of(header), List.of(rows));
+    }
+
+    @Test
+    void codeWidthFitsDictionary() {
+        assertEquals(1, ColumnarLogWriter.codeWidth(0));
+        assertEquals(1, ColumnarLogWriter.codeWidth(256));
+        assertEquals(2, ColumnarLogWriter.codeWidth(257));
+        assertEquals(2, ColumnarLogWriter.codeWidth(65536));
+        assertEquals(4, ColumnarLogWriter.codeWidth(65537));
+    }
+
+    @Test
+    void nullCellsRoundTrip() throws IOException {
+        List<String[]> rows = List.of(
+                new String[] {"1", null, null, "a, \"quoted\" value"},
+                new String[] {null, "x", null, ""},
+                new String[] {"1", "x", null, "\u00fcn\u00efcode"},
+                new String[] {null, null, null, "a, \"quoted\" value"});
+        assertRoundTrip(List.of("first", "second", "all null", "text"), rows);
+    }
+
+    @Test
+    void emptyLogRoundTrips() throws IOException {
+        assertRoundTrip(List.of("a", "b"), List.of());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {255, 256, 257, 258, 65535, 65536, 65537, 65538})
+    void dictionaryAtWidthBoundariesRoundTrips(int entries) throws IOException {
+        // entries - 1 distinct values and null, then the largest codes again, so the codes with the top bits set are
+        // written and read back in each width
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < entries - 1; i++) {
+            rows.add(new String[] {"value " + i, String.valueOf(i % 3)});
+        }
+        rows.add(new String[] {null, null});
+        for (int i = entries - 2; i > entries - 6; i--) {
+            rows.add(new String[] {"value " + i, null});
+        }
+        assertRoundTrip(List.of("value", "mod 3"), rows);
+    }
+
+    @Test
+    void numbersRoundTrip() throws IOException {
+        double[] time = {0, 1.5, 1e-300, Double.MAX_VALUE};
+        double[] value = {-0.0, Double.NaN, Double.POSITIVE_INFINITY, 1.0 / 3};
+        List<String[]> rows = new ArrayList<>();
+        for (int r = 0; r < time.length; r++) {
+            rows.add(new String[] {Double.toString(time[r]), Double.toString(value[r])});
+        }
+        List<String> header = List.of("time", "value");
+        assertRoundTrip(new ColumnarLogWriter.Batch(SEED).writeNumbers("timeseries", header, List.of(time, value)),
+                List.of("timeseries"), List.of(header), List.of(rows));
+    }
+
+    @Test
+    void batchAppendsAllLogsOfTheSeed() throws IOException {
+        List<String> numbersHeader = List.of("time");
+        List<String[]> numbersRows = List.<String[]>of(new String[] {"2.0"});
+        List<String> textHeader = List.of("patient", "event");
+        List<String[]> textRows = List.of(new String[] {"Patient 1", "BEFORE -> DURING"},
+                new String[] {"Patient 1", null});
+        ColumnarLogWriter.Batch batch = new ColumnarLogWriter.Batch(SEED)
+                .writeNumbers("timeseries", numbersHeader, List.of(new double[] {2.0}))
+                .writeRows("patientLog", textHeader, textRows)
+                .writeRows("insuffResource", textHeader, List.of());
+        assertRoundTrip(batch, List.of("timeseries", "patientLog", "insuffResource"),
+                List.of(numbersHeader, textHeader, textHeader), List.of(numbersRows, textRows, List.of()));
+    }
+
+    @Test
+    void interruptedIterationWritesNothing() throws IOException {
+        Path file = dir.resolve("run.bin");
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file)) {
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(InterruptedIOException.class,
+                        () -> writer.writeRows("log", SEED, List.of("a"), List.<String[]>of(new String[] {"1"})));
+            } finally {
+                Thread.interrupted();
+            }
+            writer.writeRows("log", SEED + 1, List.of("a"), List.<String[]>of(new String[] {"2"}));
+        }
+        assertEquals(List.of(SEED + 1), ColumnarLogReader.read(file).stream().map(chunk -> chunk.seed).toList());
+    }
+
+    @Test
+    void interruptDuringWriteKeepsFileOpen() throws IOException, InterruptedException {
+        // large chunks, so interrupts arrive while they are written, as a timeout interrupts a running iteration
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            rows.add(new String[] {"value " + i});
+        }
+        ColumnarLogWriter.Batch batch = new ColumnarLogWriter.Batch(SEED).writeRows("log", List.of("a"), rows);
+        Path file = dir.resolve("run.bin");
+        List<Long> written = new ArrayList<>();
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(file)) {
+            AtomicReference<IOException> failure = new AtomicReference<>();
+            Thread iteration = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        writer.append(batch);
+                        written.add(SEED);
+                    } catch (InterruptedIOException e) {
+                        // interrupted before the write, nothing written
+                    } catch (IOException e) {
+                        failure.set(e);
+                        return;
+                    }
+                    Thread.interrupted();
+                }
+            });
+            iteration.start();
+            while (iteration.isAlive()) {
+                iteration.interrupt();
+                Thread.sleep(1);
+            }
+            assertNull(failure.get());
+            writer.writeRows("log", SEED + 1, List.of("a"), List.<String[]>of(new String[] {"after"}));
+            written.add(SEED + 1);
+        }
+        assertEquals(written, ColumnarLogReader.read(file).stream().map(chunk -> chunk.seed).toList());
+    }
+}
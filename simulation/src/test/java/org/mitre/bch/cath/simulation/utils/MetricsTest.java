@@ -0,0 +1,77 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import org.apache.commons.math3.stat.descriptive.rank.Median;
+import org.junit.jupiter.api.Test;
+import org.mitre.bch.cath.simulation.entity.Lab;
+import org.mitre.bch.cath.simulation.entity.Patient;
+import org.mitre.bch.cath.simulation.model.CathLabSim;
+import org.mitre.bch.cath.simulation.model.SimulationFixture;
+import org.mlflow.api.proto.Service.Metric;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests of the run-level metrics Metrics writes to Mlflow.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+class MetricsTest {
+    //===== Static Attributes ======//
+    /** Extra days to run past the last scheduled case, so the run ends on days without scheduled cases */
+    private static final int EXTRA_DAYS = 10;
+
+    //===== Methods ======//
+    /** Check if a day of the run is a weekend day
+     *
+     * @param model the simulation
+     * @param day day of the run
+     * @return whether the day is a Saturday or Sunday
+     */
+    private static boolean isWeekend(CathLabSim model, int day) {
+        DayOfWeek dow = model.startDate.plusDays(day).getDayOfWeek();
+        return dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY;
+    }
+
+    @Test
+    void medianOfNoValuesIsZero() {
+        // a horizon of weekend days only has no weekday turnover times
+        assertEquals(0.0, Metrics.findMedian(new double[0]));
+    }
+
+    @Test
+    void medianOfOddAndEvenCounts() {
+        assertEquals(2.0, Metrics.findMedian(new double[] {2.0}));
+        assertEquals(2.0, Metrics.findMedian(new double[] {1.0, 2.0, 5.0}));
+        assertEquals(3.5, Metrics.findMedian(new double[] {1.0, 2.0, 5.0, 9.0}));
+    }
+
+    @Test
+    void medianTurnoverTimeIsOverWeekdays() {
+        CathLabSim model = SimulationFixture.newModel(1, "config.json", EXTRA_DAYS);
+        SimulationFixture.run(model, m -> { });
+        List<Integer> weekdays = IntStream.rangeClosed(0, model.simLastDay).filter(d -> !isWeekend(model, d)).boxed()
+                .toList();
+        assertTrue(IntStream.rangeClosed(0, model.simLastDay).anyMatch(d -> isWeekend(model, d)),
+                "the run has weekend days");
+
+        Map<String, Double> metrics = model.metrics.writeToMlflow(true).stream()
+                .collect(Collectors.toMap(Metric::getKey, Metric::getValue, (a, b) -> b));
+        for (Lab lab : model.entityManager.labMap.values()) {
+            // total turnover time of each weekday in the lab, from the cases that ended
+            double[] turnovers = weekdays.stream().mapToDouble(d -> model.cathSchedule.allPatients.stream()
+                    .filter(p -> p.status == Patient.Status.AFTER && p.tTurnover != null && p.lab == lab
+                            && d.equals(p.day))
+                    .mapToDouble(p -> p.tTurnover).sum()).toArray();
+            String key = lab.name.replace(" ", "_") + "_Median_Daily_Total_Turnover_Time";
+            assertTrue(metrics.containsKey(key), key);
+            double median = metrics.get(key);
+            assertEquals(new Median().evaluate(turnovers), median, 1e-6, key);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests of the failure handling and in-flight bound of ReplicationExecutor.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+class ReplicationExecutorTest {
+    //===== Methods ======//
+    @Test
+    void blockedSubmitRethrowsFailure() throws InterruptedException {
+        RuntimeException failure = new IllegalStateException("iteration failed");
+        CountDownLatch fail = new CountDownLatch(1);
+        try (ReplicationExecutor executor = new ReplicationExecutor(1, 1, 0)) {
+            executor.submit("failing", () -> {
+                try {
+                    fail.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                throw failure;
+            });
+            // the next submit blocks until the failing iteration exits
+            new Thread(fail::countDown).start();
+            RuntimeException thrown = assertThrows(RuntimeException.class, () -> executor.submit("next", () -> { }));
+            assertSame(failure, thrown);
+        }
+    }
+
+    @Test
+    void cancelledIterationKeepsPermitUntilItExits() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch exit = new CountDownLatch(1);
+        AtomicReference<Throwable> submitted = new AtomicReference<>();
+        try (ReplicationExecutor executor = new ReplicationExecutor(1, 1, 0)) {
+            executor.submit("stubborn", () -> {
+                started.countDown();
+                // ignores its interrupt, as an iteration in the middle of a step would
+                boolean exited = false;
+                while (!exited) {
+                    try {
+                        exited = exit.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        // keep running
+                    }
+                }
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            executor.cancel();
+            Thread submitter = new Thread(() -> {
+                try {
+                    executor.submit("next", () -> { });
+                } catch (InterruptedException | RuntimeException e) {
+                    submitted.set(e);
+                }
+            });
+            submitter.start();
+            // the interrupted iteration is still running and holds the only permit
+            submitter.join(200);
+            assertTrue(submitter.isAlive());
+            exit.countDown();
+            submitter.join(10000);
+            assertFalse(submitter.isAlive());
+        }
+        assertInstanceOf(CancellationException.class, submitted.get());
+    }
+}
@@ -0,0 +1,52 @@
+package org.mitre.bch.cath.simulation.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests of the verification of the resources of a SimulationBlueprint.
+ *
+ * @author H. Haven Liu, The MITRE Corporation
+ */
+class SimulationBlueprintTest {
+    //===== Methods ======//
+    /** Create a config resource
+     *
+     * @param total number of instances with a simple total
+     * @param instances instances with a schedule, or null
+     * @return the resource
+     */
+    private static Config.Resource resource(int total, List<Config.ResourceInstance> instances) {
+        Config.Resource resource = new Config.Resource();
+        resource.type = "STAFF";
+        resource.name = "Nurse";
+        resource.total = total;
+        resource.instances = instances;
+        return resource;
+    }
+
+    /** Create a blueprint with only resources
+     *
+     * @param resources the resources
+     * @return the blueprint
+     */
+    private static SimulationBlueprint blueprint(Config.Resource... resources) {
+        return new SimulationBlueprint(LocalDate.of(2023, 1, 2), 480, 1020, 900, false, Map.of(), Map.of(), Map.of(),
+                Map.of(), Map.of(), Map.of(), Map.of(), List.of(), List.of(resources), List.of(), List.of());
+    }
+
+    @Test
+    void resourceWithInstancesOrTotalIsVerified() {
+        assertDoesNotThrow(() -> blueprint(resource(2, null), resource(0, List.of())));
+    }
+
+    @Test
+    void resourceWithoutInstancesOrTotalFailsVerification() {
+        assertThrows(VerificationException.class, () -> blueprint(resource(2, null), resource(0, null)));
+    }
+}